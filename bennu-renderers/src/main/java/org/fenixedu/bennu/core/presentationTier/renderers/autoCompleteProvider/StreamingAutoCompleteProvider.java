@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An {@link AutoCompleteProvider} that produces its results lazily, best matches first, so that searching stops as soon as
+ * <code>maxCount</code> results are found.
+ */
+public interface StreamingAutoCompleteProvider<T> extends AutoCompleteProvider<T> {
+
+    public Stream<T> streamSearchResults(Map<String, String> argsMap, String value, int maxCount);
+
+    @Override
+    public default Collection<T> getSearchResults(Map<String, String> argsMap, String value, int maxCount) {
+        Stream<T> results = streamSearchResults(argsMap, value, maxCount);
+        return (maxCount < 0 ? results : results.limit(maxCount)).collect(Collectors.toList());
+    }
+
+    /**
+     * The results for the given value among all the results previously found for a shorter one, in the same order, or
+     * <code>null</code> when the value does not narrow that search and it must be done again. Used to answer users that keep
+     * typing without searching again.
+     */
+    public default Stream<T> narrowSearchResults(Map<String, String> argsMap, String value, String previousValue,
+            List<T> previousResults) {
+        return null;
+    }
+
+}
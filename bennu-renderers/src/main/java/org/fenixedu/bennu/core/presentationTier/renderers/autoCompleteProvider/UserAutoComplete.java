@@ -42,9 +42,8 @@
 */
 package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.fenixedu.bennu.core.domain.Bennu;
@@ -57,32 +56,40 @@ import org.fenixedu.commons.StringNormalizer;
  * @author Luis Cruz
  * 
  */
-public class UserAutoComplete implements AutoCompleteProvider<User> {
+public class UserAutoComplete implements StreamingAutoCompleteProvider<User> {
 
     @Override
-    public Collection<User> getSearchResults(Map<String, String> argsMap, String value, int maxCount) {
-
-        final Stream<User> users = Bennu.getInstance().getUserSet().stream();
+    public Stream<User> streamSearchResults(Map<String, String> argsMap, String value, int maxCount) {
         String trimmedValue = value.trim();
         final String[] input = StringNormalizer.normalize(trimmedValue).split(" ");
-        return users.filter(u -> match(input, u)).collect(Collectors.toSet());
 
+        UserSearchIndex index = UserSearchIndex.isEnabled() ? UserSearchIndex.getInstance() : null;
+        if (index != null) {
+            return index.search(input);
+        }
+        return Bennu.getInstance().getUserSet().stream().filter(u -> match(input, u));
     }
 
-    private boolean match(String[] values, User u) {
+    /*
+     * Every part of a value that extends the previous one contains the corresponding part of the previous value, so it can
+     * only match fewer users.
+     */
+    @Override
+    public Stream<User> narrowSearchResults(Map<String, String> argsMap, String value, String previousValue,
+            List<User> previousResults) {
+        String normalizedValue = StringNormalizer.normalize(value.trim());
+        if (!normalizedValue.startsWith(StringNormalizer.normalize(previousValue.trim()))) {
+            return null;
+        }
 
-        return (values.length == 1 && hasMatch(values, StringNormalizer.normalize(u.getUsername())))
-                || (u.getProfile() != null && hasMatch(values, StringNormalizer.normalize(u.getProfile().getFullName())
-                        .toLowerCase()));
+        final String[] input = normalizedValue.split(" ");
+        return previousResults.stream().filter(u -> match(input, u));
     }
 
-    private boolean hasMatch(final String[] input, final String string) {
+    private boolean match(String[] values, User u) {
 
-        for (final String namePart : input) {
-            if (string.indexOf(namePart) == -1) {
-                return false;
-            }
-        }
-        return true;
+        return (values.length == 1 && UserSearchIndex.matches(values, StringNormalizer.normalize(u.getUsername())))
+                || (u.getProfile() != null && UserSearchIndex.matches(values,
+                        StringNormalizer.normalize(u.getProfile().getFullName()).toLowerCase()));
     }
 }
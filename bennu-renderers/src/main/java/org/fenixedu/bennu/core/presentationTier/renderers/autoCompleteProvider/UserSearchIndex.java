@@ -0,0 +1,236 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.commons.StringNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+
+/**
+ * In-memory index of the normalized usernames and full names of all users, sorted by name, with the position of the users
+ * that contain each sequence of three characters.
+ * 
+ * The index is built, and rebuilt after <code>autocomplete.users.refreshInterval</code> seconds, by a background thread,
+ * reusing the normalized names of the users that did not change. Searches keep using the previous index while a new one is
+ * built, and there is no index until the first one is ready.
+ */
+final class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final long REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(RenderersConfigurationManager.getConfiguration()
+            .autoCompleteUsersRefreshInterval());
+
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean();
+
+    private static final Executor BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile UserSearchIndex current;
+
+    private final Entry[] entries;
+
+    private final Map<String, int[]> grams;
+
+    private final long created = System.nanoTime();
+
+    private UserSearchIndex(Entry[] entries, Map<String, int[]> grams) {
+        this.entries = entries;
+        this.grams = grams;
+    }
+
+    static boolean isEnabled() {
+        return REFRESH_INTERVAL > 0;
+    }
+
+    /**
+     * @return the current index, or <code>null</code> while the first one is being built. A new index is requested when
+     *         there is none or the current one is older than the refresh interval.
+     */
+    static UserSearchIndex getInstance() {
+        UserSearchIndex index = current;
+        if ((index == null || System.nanoTime() - index.created > REFRESH_INTERVAL) && REFRESHING.compareAndSet(false, true)) {
+            try {
+                BUILDER.execute(() -> {
+                    try {
+                        current = build(index);
+                    } catch (RuntimeException e) {
+                        logger.warn("Could not build the user search index", e);
+                    } finally {
+                        REFRESHING.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                REFRESHING.set(false);
+            }
+        }
+        return index;
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private static UserSearchIndex build(UserSearchIndex previous) {
+        Map<User, Entry> known = new IdentityHashMap<User, Entry>();
+        if (previous != null) {
+            for (Entry entry : previous.entries) {
+                known.put(entry.user, entry);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<Entry>();
+        for (User user : Bennu.getInstance().getUserSet()) {
+            String username = user.getUsername();
+            String fullName = user.getProfile() == null ? null : user.getProfile().getFullName();
+
+            Entry entry = known.get(user);
+            if (entry == null || !Objects.equals(entry.username, username) || !Objects.equals(entry.fullName, fullName)) {
+                entry = new Entry(user, username, fullName);
+            }
+            entries.add(entry);
+        }
+        return create(entries);
+    }
+
+    static UserSearchIndex create(List<Entry> entries) {
+        entries = new ArrayList<Entry>(entries);
+        Collections.sort(entries, Entry.ORDER);
+
+        Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < entries.size(); i++) {
+            for (String gram : entries.get(i).grams()) {
+                positions.computeIfAbsent(gram, key -> new ArrayList<Integer>()).add(i);
+            }
+        }
+        Map<String, int[]> grams = new HashMap<String, int[]>(positions.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<Integer>> gram : positions.entrySet()) {
+            grams.put(gram.getKey(), gram.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        return new UserSearchIndex(entries.toArray(new Entry[entries.size()]), grams);
+    }
+
+    /**
+     * The users whose full name contains all the given normalized parts, or whose username contains the only part given, in
+     * the order of their names.
+     */
+    Stream<User> search(String[] input) {
+        return find(input).map(entry -> entry.user);
+    }
+
+    Stream<Entry> find(String[] input) {
+        int[] candidates = null;
+        for (String part : input) {
+            for (int i = 0; i + GRAM_LENGTH <= part.length(); i++) {
+                int[] users = grams.get(part.substring(i, i + GRAM_LENGTH));
+                if (users == null) {
+                    return Stream.empty();
+                }
+                if (candidates == null || users.length < candidates.length) {
+                    candidates = users;
+                }
+            }
+        }
+
+        IntStream positions = candidates == null ? IntStream.range(0, entries.length) : Arrays.stream(candidates);
+        return positions.mapToObj(i -> entries[i]).filter(entry -> entry.matches(input));
+    }
+
+    static boolean matches(String[] input, String string) {
+        for (String part : input) {
+            if (string.indexOf(part) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static final class Entry {
+
+        static final Comparator<Entry> ORDER = Comparator.comparing((Entry entry) -> entry.name,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(entry -> entry.normalizedUsername,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+
+        final User user;
+
+        final String username;
+
+        final String fullName;
+
+        final String normalizedUsername;
+
+        final String name;
+
+        Entry(User user, String username, String fullName) {
+            this.user = user;
+            this.username = username;
+            this.fullName = fullName;
+            this.normalizedUsername = username == null ? null : StringNormalizer.normalize(username);
+            this.name = fullName == null ? null : StringNormalizer.normalize(fullName).toLowerCase();
+        }
+
+        boolean matches(String[] input) {
+            return (input.length == 1 && normalizedUsername != null && UserSearchIndex.matches(input, normalizedUsername))
+                    || (name != null && UserSearchIndex.matches(input, name));
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<String>();
+            addGrams(grams, normalizedUsername);
+            addGrams(grams, name);
+            return grams;
+        }
+
+        private static void addGrams(Set<String> grams, String string) {
+            if (string != null) {
+                for (int i = 0; i + GRAM_LENGTH <= string.length(); i++) {
+                    grams.add(string.substring(i, i + GRAM_LENGTH));
+                }
+            }
+        }
+    }
+}
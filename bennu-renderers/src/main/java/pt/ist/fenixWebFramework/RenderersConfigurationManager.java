@@ -38,6 +38,110 @@ public class RenderersConfigurationManager {
         @ConfigurationProperty(key = "viewstate.signature.key",
                 description = "The HMAC Signature used to validate View State Integrity", defaultValue = "somerandomstring")
         public String viewStateSignatureKey();
+
+        @ConfigurationProperty(key = "viewstate.codec",
+                description = "The ViewStateCodec used to encode view states. View states produced by the built-in codecs are always accepted.",
+                defaultValue = "pt.ist.fenixWebFramework.renderers.components.state.CompactViewStateCodec")
+        public String viewStateCodec();
+
+        @ConfigurationProperty(key = "viewstate.store",
+                description = "The ViewStateStore used to keep view states in the server, sending only a token to the browser (e.g. pt.ist.fenixWebFramework.renderers.components.state.InMemoryViewStateStore). When empty view states are sent to the browser.",
+                defaultValue = "")
+        public String viewStateStore();
+
+        @ConfigurationProperty(key = "viewstate.store.maxEntries",
+                description = "Maximum number of view states kept by InMemoryViewStateStore for each session. The least recently used are discarded first.",
+                defaultValue = "100")
+        public Integer viewStateStoreMaxEntries();
+
+        @ConfigurationProperty(key = "viewstate.store.timeToLive",
+                description = "Number of seconds a view state is kept by InMemoryViewStateStore.", defaultValue = "3600")
+        public Integer viewStateStoreTimeToLive();
+
+        @ConfigurationProperty(key = "viewstate.bindings",
+                description = "Specifies if view states carry the bindings of their form components, so that postbacks are processed without rendering the objects again.",
+                defaultValue = "false")
+        public Boolean viewStateBindings();
+
+        @ConfigurationProperty(key = "checksum.cache.maxSize",
+                description = "Approximate size, in bytes, of the cache of url checksums shared by all sessions. Use 0 to disable it.",
+                defaultValue = "16777216")
+        public Integer checksumCacheMaxSize();
+
+        @ConfigurationProperty(key = "labels.cache.maxSize",
+                description = "Maximum number of resolved labels and resource strings cached by the renderers. Use 0 to disable it.",
+                defaultValue = "20000")
+        public Integer labelsCacheMaxSize();
+
+        @ConfigurationProperty(key = "formats.cache.maxSize",
+                description = "Maximum number of parsed property formats, like the ones used in link and label formats, cached by the renderers. Use 0 to disable it.",
+                defaultValue = "5000")
+        public Integer formatsCacheMaxSize();
+
+        @ConfigurationProperty(key = "properties.cache.maxSize",
+                description = "Maximum number of parsed property paths cached by the renderers, and of resolved accessors and property types cached for each class. Use 0 to disable it.",
+                defaultValue = "5000")
+        public Integer propertiesCacheMaxSize();
+
+        @ConfigurationProperty(key = "fragment.cache.maxSize",
+                description = "Approximate size, in bytes, of the cache of html fragments used by views that request it. Use 0 to disable it.",
+                defaultValue = "33554432")
+        public Integer fragmentCacheMaxSize();
+
+        @ConfigurationProperty(key = "fragment.cache.timeToLive",
+                description = "Number of seconds a cached html fragment is kept. Objects changed without the renderers are only seen after this time.",
+                defaultValue = "600")
+        public Integer fragmentCacheTimeToLive();
+
+        @ConfigurationProperty(key = "options.cache.maxSize",
+                description = "Maximum number of options, in all lists, kept by the menus, check box and radio button lists whose provider is a CachingDataProvider. Use 0 to disable it.",
+                defaultValue = "100000")
+        public Integer optionsCacheMaxSize();
+
+        @ConfigurationProperty(key = "options.cache.timeToLive",
+                description = "Number of seconds a shared list of options is kept before its provider is invoked again.",
+                defaultValue = "300")
+        public Integer optionsCacheTimeToLive();
+
+        @ConfigurationProperty(key = "validators.patterns.maxSize",
+                description = "Maximum number of compiled regular expressions shared by the validators. Use 0 to disable it.",
+                defaultValue = "500")
+        public Integer validatorPatternsMaxSize();
+
+        @ConfigurationProperty(key = "rendering.metrics",
+                description = "The RenderingMetrics that receives the timings of renderers, form processing and view states (e.g. pt.ist.fenixWebFramework.renderers.utils.JmxRenderingMetrics). When empty nothing is measured.",
+                defaultValue = "")
+        public String renderingMetrics();
+
+        @ConfigurationProperty(key = "tables.parallel.minRows",
+                description = "Minimum number of rows of an output table for its rows to be rendered concurrently. Use 0 to always render them in the request thread.",
+                defaultValue = "0")
+        public Integer tablesParallelMinRows();
+
+        @ConfigurationProperty(key = "tables.parallel.threads",
+                description = "Number of threads, shared by all requests, used to render the rows of large tables. Use 0 for the number of available processors.",
+                defaultValue = "0")
+        public Integer tablesParallelThreads();
+
+        @ConfigurationProperty(key = "autocomplete.users.refreshInterval",
+                description = "Number of seconds after which the in-memory index used to search users by name is rebuilt. Users created or renamed meanwhile are only found after that. Use 0 to search all the users on every request.",
+                defaultValue = "60")
+        public Integer autoCompleteUsersRefreshInterval();
+
+        @ConfigurationProperty(key = "autocomplete.cache.maxResults",
+                description = "Maximum number of results of an auto complete search kept for each field of a session, so that the queries of a user that keeps typing are answered by filtering them. Only searches that find all their results within the requested page are kept. Use 0 to disable it.",
+                defaultValue = "500")
+        public Integer autoCompleteCacheMaxResults();
+
+        @ConfigurationProperty(key = "autocomplete.cache.maxFields",
+                description = "Maximum number of auto complete fields, each one of a page, whose searches are kept for each session. The least recently used are discarded first.",
+                defaultValue = "20")
+        public Integer autoCompleteCacheMaxFields();
+
+        @ConfigurationProperty(key = "autocomplete.cache.timeToLive",
+                description = "Number of seconds the results of an auto complete search are used to answer the following queries of the same field.",
+                defaultValue = "30")
+        public Integer autoCompleteCacheTimeToLive();
     }
 
     public static ConfigurationProperties getConfiguration() {
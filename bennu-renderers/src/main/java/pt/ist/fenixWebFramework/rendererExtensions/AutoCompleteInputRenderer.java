@@ -24,7 +24,6 @@ import java.util.function.Function;
 
 import javax.ws.rs.core.UriBuilder;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import com.google.common.base.Strings;
 
@@ -45,6 +44,7 @@ import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.renderers.utils.RendererPropertyUtils;
 import pt.ist.fenixWebFramework.servlets.ajax.AutoCompleteServlet;
@@ -517,7 +517,7 @@ public class AutoCompleteInputRenderer extends InputRenderer {
             Object object = viewState.getMetaObject().getObject();
 
             try {
-                PropertyUtils.setProperty(object, this.rawSlotName, value);
+                PropertyAccessors.setProperty(object, this.rawSlotName, value);
             } catch (Exception e) {
                 e.printStackTrace();
             }
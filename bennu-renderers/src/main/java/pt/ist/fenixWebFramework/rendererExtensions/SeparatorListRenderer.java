@@ -21,7 +21,6 @@ package pt.ist.fenixWebFramework.rendererExtensions;
 import java.util.Collection;
 import java.util.Iterator;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.OutputRenderer;
 import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
@@ -30,6 +29,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlLink;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 
 import com.google.common.base.Strings;
@@ -176,7 +176,7 @@ public class SeparatorListRenderer extends OutputRenderer {
                 String slotValue = null;
 
                 try {
-                    slotValue = String.valueOf(PropertyUtils.getProperty(object, slotName));
+                    slotValue = String.valueOf(PropertyAccessors.getProperty(object, slotName));
 
                 } catch (Exception e) {
                     throw new RuntimeException("could not set param name by reading property '" + slotName + "' from object "
@@ -19,21 +19,31 @@
 package pt.ist.fenixWebFramework.rendererExtensions.converters;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
 import pt.ist.fenixframework.DomainObject;
 
 public class DomainObjectKeyArrayConverter extends Converter {
 
+    private static final DomainObjectKeyConverter KEY_CONVERTER = new DomainObjectKeyConverter();
+
     @Override
     public Object convert(Class type, Object value) {
-        DomainObjectKeyConverter converter = new DomainObjectKeyConverter();
-        List<DomainObject> result = new ArrayList<DomainObject>();
-
         String[] values = (String[]) value;
+        List<DomainObject> result = new ArrayList<DomainObject>(values.length);
+
+        // repeated keys are only looked up once
+        Map<String, DomainObject> resolved = new HashMap<String, DomainObject>();
         for (String key : values) {
-            result.add((DomainObject) converter.convert(type, key));
+            DomainObject object = resolved.get(key);
+            if (object == null) {
+                object = (DomainObject) KEY_CONVERTER.convert(type, key);
+                resolved.put(key, object);
+            }
+            result.add(object);
         }
 
         return result;
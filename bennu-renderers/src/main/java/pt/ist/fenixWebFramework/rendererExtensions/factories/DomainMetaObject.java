@@ -33,6 +33,8 @@ import pt.ist.fenixWebFramework.renderers.model.CompositeSlotSetter;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.utils.FragmentCache;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixframework.Atomic;
 import pt.ist.fenixframework.DomainObject;
 import pt.ist.fenixframework.FenixFramework;
@@ -118,6 +120,32 @@ public class DomainMetaObject extends SimpleMetaObject {
         }
 
         callService(changes);
+        invalidateFragments(changes);
+    }
+
+    /*
+     * Objects given as values are invalidated too, since relations are usually presented from both sides.
+     */
+    private void invalidateFragments(List<ObjectChange> changes) {
+        FragmentCache.invalidate(getExternalId());
+        for (ObjectChange change : changes) {
+            invalidateFragment(change.value);
+            if (change.values != null) {
+                for (Object value : change.values) {
+                    invalidateFragment(value);
+                }
+            }
+        }
+    }
+
+    private static void invalidateFragment(Object value) {
+        if (value instanceof DomainObject) {
+            FragmentCache.invalidate(((DomainObject) value).getExternalId());
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection) value) {
+                invalidateFragment(element);
+            }
+        }
     }
 
     public static class ServicePredicateWithResult {
@@ -213,7 +241,7 @@ public class DomainMetaObject extends SimpleMetaObject {
 
         protected void setSlotProperty(Object object, String slot, Object value) throws IllegalAccessException,
                 InvocationTargetException, NoSuchMethodException, InstantiationException {
-            PropertyUtils.setProperty(object, slot, value);
+            PropertyAccessors.setProperty(object, slot, value);
         }
 
         protected void setCollectionProperty(Object object, String slot, Collection list) throws IllegalAccessException,
@@ -240,7 +268,7 @@ public class DomainMetaObject extends SimpleMetaObject {
 
         protected Object getSlotProperty(Object object, String slot) throws IllegalAccessException, InvocationTargetException,
                 NoSuchMethodException, InstantiationException {
-            return PropertyUtils.getProperty(object, slot);
+            return PropertyAccessors.getProperty(object, slot);
         }
 
         private Object getObject(Hashtable<ObjectKey, Object> objects, ObjectChange change) {
@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers;
+
+/**
+ * A {@link DataProvider} whose possible values can be shared by every user. The menus, check box and radio button lists keep
+ * the options of these providers, already formatted or rendered, in an application wide cache (see {@link OptionList}), so
+ * they must not depend on the current user or request beyond what is returned by {@link #getCacheKey(Object, Object)}.
+ */
+public interface CachingDataProvider extends DataProvider {
+
+    /**
+     * Identifies the collection that would be provided for the given source and value, for instance the source itself or a
+     * version of the data it is built from. Returning <code>null</code> means that this collection must not be shared.
+     */
+    public Object getCacheKey(Object source, Object currentValue);
+}
@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -30,8 +29,6 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlListItem;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
@@ -243,37 +240,26 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
 
             Schema schema = RenderKit.getInstance().findSchema(getEachSchema());
 
-            List<MetaObject> possibleMetaObjects;
+            OptionList options;
 
             if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
+                options = OptionList.of(getPossibleMetaObjects());
             } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
+                options = getOptionList(schema, getEachLayout());
             }
 
-            for (MetaObject metaObject : possibleMetaObjects) {
-                Object obj = metaObject.getObject();
-                MetaObjectKey key = metaObject.getKey();
-
-                String layout = getEachLayout();
-
-                PresentationContext newContext = getContext().createSubContext(metaObject);
-                newContext.setLayout(layout);
-                newContext.setRenderMode(RenderMode.OUTPUT);
+            List<MetaObject> possibleMetaObjects = options.getMetaObjects();
 
-                RenderKit kit = RenderKit.getInstance();
-                HtmlComponent component = kit.render(newContext, obj);
+            for (int i = 0; i < possibleMetaObjects.size(); i++) {
+                MetaObject metaObject = possibleMetaObjects.get(i);
+                Object obj = metaObject.getObject();
 
                 HtmlLabel label = new HtmlLabel();
-                label.setBody(component);
+                label.setBody(options.getBody(i, this::renderOption));
                 label.setStyle(eachStyle);
                 label.setClasses(eachClasses);
 
-                HtmlCheckBox checkBox = listComponent.addOption(label, key.toString());
+                HtmlCheckBox checkBox = listComponent.addOption(label, options.getValue(i, each -> each.getKey().toString()));
                 label.setFor(checkBox);
                 checkBox.setClasses(getCheckBoxClasses());
                 checkBox.setStyle(getCheckBoxStyle());
@@ -285,7 +271,8 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
 
             listComponent.setSelectAllShown(listComponent.getList().getItems().size() > 1 && isSelectAllShown());
 
-            if (isSaveOptions()) {
+            // shared lists are kept by the options cache, so they are never saved in the view state
+            if (isSaveOptions() && !options.isShared()) {
                 savePossibleMetaObjects(possibleMetaObjects);
             }
 
@@ -306,12 +293,20 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
             // TODO: make providers only provide a converter for a single object
             // make a wrapper converter that calls that converter for each value
             // this allows converters to be used to menus and checkboxes
-            listComponent.setConverter(new MultipleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            listComponent.setConverter(new MultipleSelectOptionConverter(options, getConverter()));
             listComponent.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
 
             return listComponent;
         }
 
+        private HtmlComponent renderOption(MetaObject metaObject) {
+            PresentationContext newContext = getContext().createSubContext(metaObject);
+            newContext.setLayout(getEachLayout());
+            newContext.setRenderMode(RenderMode.OUTPUT);
+
+            return RenderKit.getInstance().render(newContext, metaObject.getObject());
+        }
+
         private boolean hasSavedPossibleMetaObjects() {
             return getInputContext().getViewState().getLocalAttribute("options") != null;
         }
@@ -25,8 +25,6 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
 import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
 import pt.ist.fenixWebFramework.renderers.components.HtmlCheckBox;
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -39,7 +37,9 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlLink.Target;
 import pt.ist.fenixWebFramework.renderers.components.HtmlScript;
 import pt.ist.fenixWebFramework.renderers.components.HtmlTable;
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.contexts.OutputContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.layouts.TabularLayout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
@@ -48,8 +48,11 @@ import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.CollectionPager;
+import pt.ist.fenixWebFramework.renderers.utils.ParallelRendering;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.renderers.utils.RendererPropertyUtils;
+import pt.ist.fenixWebFramework.renderers.utils.SortCriteria;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
@@ -995,6 +998,11 @@ public class CollectionRenderer extends OutputRenderer {
 
     @Override
     protected Layout getLayout(Object object, Class type) {
+        SortCriteria criteria = SortCriteria.parse(getSortBy());
+        if (pagedLayout && criteria != null && object != null && pageSize > 0) {
+            return new CollectionTabularLayout(selectPage((Collection) object, criteria));
+        }
+
         Collection sortedCollection = RenderUtils.sortCollectionWithCriteria((Collection) object, getSortBy());
 
         Collection pagedSortedCollection = checkForPager(sortedCollection);
@@ -1016,6 +1024,21 @@ public class CollectionRenderer extends OutputRenderer {
         return result;
     }
 
+    /**
+     * Sorts only as much of the collection as needed to show the current page.
+     */
+    private <T> Collection<T> selectPage(Collection<T> collection, SortCriteria criteria) {
+        int page = actualPage < 1 ? 1 : actualPage;
+        long needed = (long) page * pageSize;
+
+        List<T> sorted =
+                needed < collection.size() ? criteria.selectFirst(collection, (int) needed) : criteria.sort(collection);
+
+        pager = new CollectionPager<T>(sorted, collection.size(), pageSize);
+        numberOfPages = pager.getNumberOfPages();
+        return pager.getPage(page);
+    }
+
     public class CollectionTabularLayout extends TabularLayout {
 
         List<MetaObject> metaObjects;
@@ -1063,14 +1086,7 @@ public class CollectionRenderer extends OutputRenderer {
                 // reuse meta objects
                 MetaObjectCollection multipleMetaObject = (MetaObjectCollection) getContext().getMetaObject();
 
-                for (Object object : collection) {
-                    for (MetaObject metaObject : multipleMetaObject.getAllMetaObjects()) {
-                        if (object.equals(metaObject.getObject())) {
-                            metaObjects.add(metaObject);
-                            break;
-                        }
-                    }
-                }
+                metaObjects.addAll(multipleMetaObject.getMetaObjectsFor(collection));
             } else {
                 Schema schema = getContext().getSchema();
                 for (Object object : collection) {
@@ -1242,12 +1258,39 @@ public class CollectionRenderer extends OutputRenderer {
             }
         }
 
+        /**
+         * Rows are only created concurrently in output contexts, and never with
+         * check boxes, which read the request parameters.
+         */
+        @Override
+        protected boolean isParallelRowRendering(int rowNumber) {
+            return getContext() instanceof OutputContext && !isCheckable() && ParallelRendering.isParallel(rowNumber);
+        }
+
+        @Override
+        protected boolean createCells(HtmlTableRow row, int rowIndex, int columnNumber) {
+            if (!isRenderingRowsConcurrently()) {
+                return super.createCells(row, rowIndex, columnNumber);
+            }
+
+            // the shared context can not follow the current object as rows are created at the same time
+            int objectRow = isRowForLinks() ? rowIndex / 2 : rowIndex;
+            setThreadContext(((OutputContext) getContext()).createCopy(getObject(objectRow)));
+            try {
+                return super.createCells(row, rowIndex, columnNumber);
+            } finally {
+                setThreadContext(null);
+            }
+        }
+
         @Override
         protected HtmlComponent getComponent(int rowIndex, int columnIndex) {
             int objectRow = isRowForLinks() ? rowIndex / 2 : rowIndex;
 
             MetaObject object = getObject(objectRow);
-            getContext().setMetaObject(object);
+            if (!isRenderingRowsConcurrently()) {
+                getContext().setMetaObject(object);
+            }
 
             if (isRowForLinks() && rowIndex % 2 == 1) { // links in isolated row
                 return generateLinkComponent(object, rowIndex, columnIndex);
@@ -1261,7 +1304,7 @@ public class CollectionRenderer extends OutputRenderer {
                     Object realObject = object.getObject();
 
                     try {
-                        String checkBoxValue = String.valueOf(PropertyUtils.getProperty(realObject, getCheckboxValue()));
+                        String checkBoxValue = String.valueOf(PropertyAccessors.getProperty(realObject, getCheckboxValue()));
 
                         boolean checked = false;
                         String[] existingValues = getContext().getViewState().getRequest().getParameterValues(getCheckboxName());
@@ -1972,7 +2015,7 @@ public class CollectionRenderer extends OutputRenderer {
 
                 try {
                     String value =
-                            customValue != null ? customValue : String.valueOf(PropertyUtils.getProperty(object, slotName));
+                            customValue != null ? customValue : String.valueOf(PropertyAccessors.getProperty(object, slotName));
 
                     if (value != null) {
                         link.setParameter(realName, value);
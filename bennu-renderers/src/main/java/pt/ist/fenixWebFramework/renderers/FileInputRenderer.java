@@ -21,7 +21,6 @@ package pt.ist.fenixWebFramework.renderers;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlForm;
@@ -36,6 +35,7 @@ import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.servlets.commons.UploadedFile;
 
 /**
@@ -202,7 +202,7 @@ public class FileInputRenderer extends InputRenderer {
             }
 
             try {
-                PropertyUtils.setProperty(object, property, value);
+                PropertyAccessors.setProperty(object, property, value);
             } catch (Exception e) {
                 e.printStackTrace();
             }
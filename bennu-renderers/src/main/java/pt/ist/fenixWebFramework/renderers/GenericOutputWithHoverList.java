@@ -20,7 +20,6 @@ package pt.ist.fenixWebFramework.renderers;
 
 import java.util.Collection;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlInlineContainer;
@@ -29,6 +28,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlListItem;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.contexts.OutputContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 
@@ -99,7 +99,7 @@ public class GenericOutputWithHoverList extends AbstractToolTipRenderer {
                 Collection list = null;
 
                 try {
-                    list = (Collection) PropertyUtils.getProperty(getTargetObject(object), getList());
+                    list = (Collection) PropertyAccessors.getProperty(getTargetObject(object), getList());
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
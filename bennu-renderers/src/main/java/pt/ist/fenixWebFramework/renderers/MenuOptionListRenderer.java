@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -28,7 +27,6 @@ import pt.ist.fenixWebFramework.renderers.components.converters.BiDirectionalCon
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
@@ -193,35 +191,31 @@ public class MenuOptionListRenderer extends SelectionRenderer {
             RenderKit kit = RenderKit.getInstance();
             Schema schema = kit.findSchema(getEachSchema());
 
-            List<MetaObject> possibleMetaObjects;
+            OptionList options;
 
             if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
+                options = OptionList.of(getPossibleMetaObjects());
             } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
+                options = getOptionList(schema, getEachLayout(), getFormat());
             }
 
-            for (MetaObject metaObject : possibleMetaObjects) {
+            List<MetaObject> possibleMetaObjects = options.getMetaObjects();
+
+            for (int i = 0; i < possibleMetaObjects.size(); i++) {
+                MetaObject metaObject = possibleMetaObjects.get(i);
                 Object obj = metaObject.getObject();
                 HtmlMenuOption option = menu.createOption(null);
 
-                if (getConverter() instanceof BiDirectionalConverter) {
-                    option.setValue(((BiDirectionalConverter) getConverter()).deserialize(obj));
-                } else {
-                    option.setValue(metaObject.getKey().toString());
-                }
+                option.setValue(options.getValue(i, this::getOptionValue));
 
                 if (Strings.isNullOrEmpty(getEachLayout())) {
                     if (Enum.class.isAssignableFrom(obj.getClass()) && Strings.isNullOrEmpty(getFormat())) {
-                        fillBodyWithRenderKit(kit, metaObject, obj, option);
+                        option.setBody(options.getBody(i, each -> renderWithRenderKit(kit, each)));
                     } else {
-                        option.setText(getObjectLabel(obj));
+                        option.setText(options.getText(i, each -> getObjectLabel(each.getObject())));
                     }
                 } else {
-                    fillBodyWithRenderKit(kit, metaObject, obj, option);
+                    option.setBody(options.getBody(i, each -> renderWithRenderKit(kit, each)));
                 }
 
                 if (obj.equals(object)) {
@@ -229,23 +223,30 @@ public class MenuOptionListRenderer extends SelectionRenderer {
                 }
             }
 
-            if (isSaveOptions()) {
+            // shared lists are kept by the options cache, so they are never saved in the view state
+            if (isSaveOptions() && !options.isShared()) {
                 savePossibleMetaObjects(possibleMetaObjects);
             }
 
-            menu.setConverter(new SingleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            menu.setConverter(new SingleSelectOptionConverter(options, getConverter()));
 
             menu.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
             return menu;
         }
 
-        private void fillBodyWithRenderKit(RenderKit kit, MetaObject metaObject, Object obj, HtmlMenuOption option) {
+        private String getOptionValue(MetaObject metaObject) {
+            if (getConverter() instanceof BiDirectionalConverter) {
+                return ((BiDirectionalConverter) getConverter()).deserialize(metaObject.getObject());
+            }
+            return metaObject.getKey().toString();
+        }
+
+        private HtmlComponent renderWithRenderKit(RenderKit kit, MetaObject metaObject) {
             PresentationContext newContext = getContext().createSubContext(metaObject);
             newContext.setLayout(getEachLayout());
             newContext.setRenderMode(RenderMode.OUTPUT);
 
-            HtmlComponent component = kit.render(newContext, obj);
-            option.setBody(component);
+            return kit.render(newContext, metaObject.getObject());
         }
 
         private boolean hasSavedPossibleMetaObjects() {
@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlLink;
@@ -28,6 +27,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
@@ -339,7 +339,7 @@ public class ObjectLinkRenderer extends OutputRenderer {
                     return true;
                 } else {
                     try {
-                        Object object = PropertyUtils.getProperty(usedObject, getLinkIf());
+                        Object object = PropertyAccessors.getProperty(usedObject, getLinkIf());
                         if (object == null) {
                             return true;
                         } else {
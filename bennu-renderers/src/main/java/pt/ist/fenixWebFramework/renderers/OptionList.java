@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The options presented by a {@link SelectionRenderer}: the meta objects of the possible values, and the values and labels of
+ * each option, computed once per list.
+ * 
+ * Lists of a {@link CachingDataProvider} are shared by every user that presents the same options, until they expire after
+ * <code>options.cache.timeToLive</code> seconds. The total number of shared options is bounded by the
+ * <code>options.cache.maxSize</code> configuration property. Labels rendered with a layout are kept as html.
+ */
+public final class OptionList {
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().optionsCacheMaxSize();
+
+    private static final Cache<List<Object>, OptionList> CACHE = CacheBuilder.newBuilder().maximumWeight(Math.max(MAX_SIZE, 0))
+            .expireAfterWrite(RenderersConfigurationManager.getConfiguration().optionsCacheTimeToLive(), TimeUnit.SECONDS)
+            .weigher((List<Object> key, OptionList options) -> 1 + options.size()).build();
+
+    private final List<MetaObject> metaObjects;
+
+    private final boolean shared;
+
+    /*
+     * Filled lazily. Strings are immutable, so concurrent readers either see a complete value or compute it again.
+     */
+    private final String[] values;
+
+    private final String[] texts;
+
+    private final String[] bodies;
+
+    private volatile Map<String, Integer> keyIndex;
+
+    private OptionList(List<MetaObject> metaObjects, boolean shared) {
+        this.metaObjects = metaObjects;
+        this.shared = shared;
+        this.values = new String[metaObjects.size()];
+        this.texts = new String[metaObjects.size()];
+        this.bodies = new String[metaObjects.size()];
+    }
+
+    public static boolean isEnabled() {
+        return MAX_SIZE > 0;
+    }
+
+    /**
+     * A list used only by the current presentation, like the one saved in the view state.
+     */
+    public static OptionList of(List<MetaObject> metaObjects) {
+        return new OptionList(metaObjects, false);
+    }
+
+    /**
+     * The shared list with the given key, created with the loader when missing. A <code>null</code> key creates a list that is
+     * not shared.
+     */
+    public static OptionList get(List<Object> key, Supplier<List<MetaObject>> loader) {
+        if (key == null || !isEnabled()) {
+            return of(loader.get());
+        }
+
+        OptionList options = CACHE.getIfPresent(key);
+        if (options == null) {
+            options = new OptionList(Collections.unmodifiableList(loader.get()), true);
+            CACHE.put(key, options);
+        }
+        return options;
+    }
+
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public List<MetaObject> getMetaObjects() {
+        return metaObjects;
+    }
+
+    public int size() {
+        return metaObjects.size();
+    }
+
+    /**
+     * The position of each option by the key of its meta object, used to convert submitted values back into objects.
+     */
+    public Map<String, Integer> getIndex() {
+        Map<String, Integer> index = keyIndex;
+        if (index == null) {
+            index = createIndex(metaObjects);
+            keyIndex = index;
+        }
+        return index;
+    }
+
+    static Map<String, Integer> createIndex(List<MetaObject> metaObjects) {
+        Map<String, Integer> index = new HashMap<String, Integer>(metaObjects.size() * 4 / 3 + 1);
+        for (int i = 0; i < metaObjects.size(); i++) {
+            index.putIfAbsent(metaObjects.get(i).getKey().toString(), i);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    public String getValue(int index, Function<MetaObject, String> function) {
+        String value = values[index];
+        if (value == null) {
+            value = function.apply(metaObjects.get(index));
+            values[index] = value;
+        }
+        return value;
+    }
+
+    public String getText(int index, Function<MetaObject, String> function) {
+        String text = texts[index];
+        if (text == null) {
+            text = function.apply(metaObjects.get(index));
+            texts[index] = text;
+        }
+        return text;
+    }
+
+    /**
+     * The rendered label of an option. Shared lists render it once and return a copy of its html.
+     */
+    public HtmlComponent getBody(int index, Function<MetaObject, HtmlComponent> renderer) {
+        if (!shared) {
+            return renderer.apply(metaObjects.get(index));
+        }
+
+        String html = bodies[index];
+        if (html == null) {
+            StringWriter writer = new StringWriter();
+            try {
+                renderer.apply(metaObjects.get(index)).draw(writer);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not render option " + index, e);
+            }
+            html = writer.toString();
+            bodies[index] = html;
+        }
+        return new HtmlText(html, false, false);
+    }
+}
@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -29,8 +28,6 @@ import pt.ist.fenixWebFramework.renderers.components.converters.BiDirectionalCon
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
@@ -186,21 +183,19 @@ public class RadioButtonListRenderer extends SelectionRenderer {
 
             Schema schema = RenderKit.getInstance().findSchema(getEachSchema());
 
-            List<MetaObject> possibleMetaObjects;
+            OptionList options;
 
             if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
+                options = OptionList.of(getPossibleMetaObjects());
             } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
+                options = getOptionList(schema, getEachLayout(), getFormat());
             }
 
-            for (MetaObject metaObject : possibleMetaObjects) {
+            List<MetaObject> possibleMetaObjects = options.getMetaObjects();
+
+            for (int i = 0; i < possibleMetaObjects.size(); i++) {
+                MetaObject metaObject = possibleMetaObjects.get(i);
                 Object obj = metaObject.getObject();
-                MetaObjectKey key = metaObject.getKey();
 
                 String layout = getEachLayout();
 
@@ -208,20 +203,18 @@ public class RadioButtonListRenderer extends SelectionRenderer {
 
                 if (Strings.isNullOrEmpty(layout)) {
                     if (Enum.class.isAssignableFrom(obj.getClass()) && Strings.isNullOrEmpty(getFormat())) {
-                        fillBodyForRadioLabel(metaObject, obj, layout, label);
+                        label.setBody(options.getBody(i, each -> renderRadioLabel(each, layout)));
                     } else {
-                        label.setText(getObjectLabel(obj));
+                        label.setText(options.getText(i, each -> getObjectLabel(each.getObject())));
                     }
                 } else {
-                    fillBodyForRadioLabel(metaObject, obj, layout, label);
+                    label.setBody(options.getBody(i, each -> renderRadioLabel(each, layout)));
                 }
 
                 label.setStyle(eachStyle);
                 label.setClasses(eachClasses);
 
-                String optionValue =
-                        getConverter() instanceof BiDirectionalConverter ? ((BiDirectionalConverter) getConverter())
-                                .deserialize(obj) : key.toString();
+                String optionValue = options.getValue(i, this::getOptionValue);
 
                 HtmlRadioButton radioButton = listComponent.addOption(label, optionValue);
                 label.setFor(radioButton);
@@ -240,24 +233,31 @@ public class RadioButtonListRenderer extends SelectionRenderer {
                 }
             }
 
-            if (isSaveOptions()) {
+            // shared lists are kept by the options cache, so they are never saved in the view state
+            if (isSaveOptions() && !options.isShared()) {
                 savePossibleMetaObjects(possibleMetaObjects);
             }
 
-            listComponent.setConverter(new SingleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            listComponent.setConverter(new SingleSelectOptionConverter(options, getConverter()));
             listComponent.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
 
             return listComponent;
         }
 
-        private void fillBodyForRadioLabel(MetaObject metaObject, Object obj, String layout, HtmlLabel label) {
+        private String getOptionValue(MetaObject metaObject) {
+            if (getConverter() instanceof BiDirectionalConverter) {
+                return ((BiDirectionalConverter) getConverter()).deserialize(metaObject.getObject());
+            }
+            return metaObject.getKey().toString();
+        }
+
+        private HtmlComponent renderRadioLabel(MetaObject metaObject, String layout) {
             PresentationContext newContext = getContext().createSubContext(metaObject);
             newContext.setLayout(layout);
             newContext.setRenderMode(RenderMode.OUTPUT);
 
             RenderKit kit = RenderKit.getInstance();
-            HtmlComponent component = kit.render(newContext, obj);
-            label.setBody(component);
+            return kit.render(newContext, metaObject.getObject());
         }
 
         private boolean hasSavedPossibleMetaObjects() {
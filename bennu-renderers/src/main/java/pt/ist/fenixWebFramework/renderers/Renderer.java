@@ -23,7 +23,6 @@ import java.util.Properties;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
@@ -32,6 +31,7 @@ import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 
@@ -52,6 +52,8 @@ public abstract class Renderer {
 
     private PresentationContext context;
 
+    private volatile ThreadLocal<PresentationContext> threadContexts;
+
     private String classes;
 
     private String style;
@@ -59,9 +61,41 @@ public abstract class Renderer {
     private String title;
 
     public PresentationContext getContext() {
+        ThreadLocal<PresentationContext> threadContexts = this.threadContexts;
+        if (threadContexts != null) {
+            PresentationContext threadContext = threadContexts.get();
+            if (threadContext != null) {
+                return threadContext;
+            }
+        }
+
         return context;
     }
 
+    /**
+     * Makes {@link #getContext()} return the given context, but only in the
+     * current thread. This allows layouts to render parts of the object
+     * concurrently when each part needs its own context, like the rows of a
+     * table. Use <code>null</code> to go back to the context of the renderer.
+     */
+    protected void setThreadContext(PresentationContext threadContext) {
+        ThreadLocal<PresentationContext> threadContexts = this.threadContexts;
+        if (threadContexts == null) {
+            synchronized (this) {
+                threadContexts = this.threadContexts;
+                if (threadContexts == null) {
+                    this.threadContexts = threadContexts = new ThreadLocal<>();
+                }
+            }
+        }
+
+        if (threadContext == null) {
+            threadContexts.remove();
+        } else {
+            threadContexts.set(threadContext);
+        }
+    }
+
     public void setContext(PresentationContext context) {
         this.context = context;
     }
@@ -163,7 +197,7 @@ public abstract class Renderer {
 
         for (String name : names) {
             try {
-                if (PropertyUtils.getProperty(this, name) != null) {
+                if (PropertyAccessors.getProperty(this, name) != null) {
                     layoutProperties.setProperty(name, BeanUtils.getProperty(this, name));
                 }
             } catch (Exception e) {
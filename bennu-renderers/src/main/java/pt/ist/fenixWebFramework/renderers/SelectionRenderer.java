@@ -19,16 +19,21 @@
 package pt.ist.fenixWebFramework.renderers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
-import org.apache.commons.beanutils.PropertyUtils;
+import org.fenixedu.commons.i18n.I18N;
 
 import pt.ist.fenixWebFramework.renderers.components.converters.ConversionException;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 
 public abstract class SelectionRenderer extends InputRenderer {
@@ -89,7 +94,7 @@ public abstract class SelectionRenderer extends InputRenderer {
             try {
 
                 if (source != null) {
-                    return PropertyUtils.getProperty(source, getFrom());
+                    return PropertyAccessors.getProperty(source, getFrom());
                 }
                 Class<?> type = getInputContext().getMetaObject().getType();
                 String getter = getFrom();
@@ -141,16 +146,56 @@ public abstract class SelectionRenderer extends InputRenderer {
         return RenderUtils.sortCollectionWithCriteria(collection, getSortBy());
     }
 
+    /**
+     * The possible objects as meta objects of the given schema. When the provider is a {@link CachingDataProvider} the list is
+     * shared by every presentation of the same renderer, schema, locale and the given presentation properties, which must
+     * include everything the labels of the options depend on.
+     */
+    protected OptionList getOptionList(Schema schema, Object... presentation) {
+        List<Object> key = null;
+
+        DataProvider provider = getProvider();
+        if (provider instanceof CachingDataProvider && OptionList.isEnabled()) {
+            Object object = ((MetaSlot) getInputContext().getMetaObject()).getMetaObject().getObject();
+            Object value = getInputContext().getMetaObject().getObject();
+
+            Object providerKey = ((CachingDataProvider) provider).getCacheKey(object, value);
+            if (providerKey != null) {
+                key =
+                        Arrays.asList(provider.getClass(), providerKey, getClass(), schema == null ? null : schema.getName(),
+                                getSortBy(), I18N.getLocale(), Arrays.asList(presentation));
+            }
+        }
+
+        return OptionList.get(key, () -> {
+            List<MetaObject> metaObjects = new ArrayList<MetaObject>();
+            for (Object possibility : getPossibleObjects()) {
+                metaObjects.add(MetaObjectFactory.createObject(possibility, schema));
+            }
+            return metaObjects;
+        });
+    }
+
     protected static class SingleSelectOptionConverter extends Converter {
 
         private final List<MetaObject> metaObjects;
         private final Converter converter;
 
+        /*
+         * Shared with the option list when there is one, otherwise built on the first conversion.
+         */
+        private transient Map<String, Integer> index;
+
         public SingleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
             this.metaObjects = metaObjects;
             this.converter = converter;
         }
 
+        public SingleSelectOptionConverter(OptionList options, Converter converter) {
+            this(options.getMetaObjects(), converter);
+            this.index = converter == null ? options.getIndex() : null;
+        }
+
         @Override
         public Object convert(Class type, Object value) {
             String textValue = (String) value;
@@ -161,10 +206,13 @@ public abstract class SelectionRenderer extends InputRenderer {
             if (this.converter != null) {
                 return this.converter.convert(type, value);
             }
-            for (MetaObject metaObject : this.metaObjects) {
-                if (textValue.equals(metaObject.getKey().toString())) {
-                    return metaObject.getObject();
-                }
+            if (this.index == null) {
+                this.index = OptionList.createIndex(this.metaObjects);
+            }
+
+            Integer position = this.index.get(textValue);
+            if (position != null) {
+                return this.metaObjects.get(position).getObject();
             }
 
             throw new ConversionException("renderers.select.convert.invalid.value");
@@ -177,11 +225,18 @@ public abstract class SelectionRenderer extends InputRenderer {
 
         private final Converter converter;
 
+        private transient Map<String, Integer> index;
+
         public MultipleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
             this.metaObjects = metaObjects;
             this.converter = converter;
         }
 
+        public MultipleSelectOptionConverter(OptionList options, Converter converter) {
+            this(options.getMetaObjects(), converter);
+            this.index = converter == null ? options.getIndex() : null;
+        }
+
         @Override
         public Object convert(Class type, Object value) {
             String[] textValues = (String[]) value;
@@ -192,15 +247,25 @@ public abstract class SelectionRenderer extends InputRenderer {
             if (this.converter != null) {
                 return this.converter.convert(type, value);
             }
-            List<Object> result = new ArrayList<Object>();
+            if (this.index == null) {
+                this.index = OptionList.createIndex(this.metaObjects);
+            }
 
-            for (MetaObject metaObject : this.metaObjects) {
-                for (String textValue : textValues) {
-                    if (textValue.equals(metaObject.getKey().toString())) {
-                        result.add(metaObject.getObject());
-                    }
+            // the selected objects are returned in the order of the options
+            int[] positions = new int[textValues.length];
+            int count = 0;
+            for (String textValue : textValues) {
+                Integer position = this.index.get(textValue);
+                if (position != null) {
+                    positions[count++] = position;
                 }
             }
+            Arrays.sort(positions, 0, count);
+
+            List<Object> result = new ArrayList<Object>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(this.metaObjects.get(positions[i]).getObject());
+            }
 
             return result;
         }
@@ -124,14 +124,7 @@ public class TabularOptionInputRenderer extends SelectionRenderer {
             // reuse meta objects
             MetaObjectCollection multipleMetaObject = (MetaObjectCollection) getContext().getMetaObject();
 
-            for (Object object : collection) {
-                for (MetaObject metaObject : multipleMetaObject.getAllMetaObjects()) {
-                    if (object.equals(metaObject.getObject())) {
-                        metaObjects.add(metaObject);
-                        break;
-                    }
-                }
-            }
+            metaObjects.addAll(multipleMetaObject.getMetaObjectsFor(collection));
         } else {
             Schema schema = getContext().getSchema();
             for (Object object : collection) {
@@ -31,6 +31,7 @@ import java.util.regex.Pattern;
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 import com.google.common.base.Predicate;
 
@@ -253,15 +254,44 @@ public abstract class HtmlComponent implements Serializable {
     }
 
     public void draw(Writer writer) throws IOException {
-        HtmlTag tag = getOwnTag(null);
-        tag.writeTag(writer);
+        draw(new HtmlWriter(writer), null);
     }
 
     public void draw(PageContext context) throws IOException {
-        HtmlTag tag = getOwnTag(context);
-        tag.writeTag(context);
+        draw(new HtmlWriter(context.getOut()), context);
     }
 
+    /**
+     * Writes this component in the current position of the writer. By default
+     * this writes the tag returned by {@link #getOwnTag(PageContext)}.
+     * Components with many children, like tables, override it to stream their
+     * children instead of building the whole tree of tags first.
+     */
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        writer.writeTag(getOwnTag(context));
+    }
+
+    /**
+     * Streaming implementations of {@link #draw(HtmlWriter, PageContext)} must
+     * only be used when {@link #getOwnTag(PageContext)} was not overridden by a
+     * subclass of the class that provides them, or the customization would be
+     * lost.
+     */
+    protected boolean isOwnTagDeclaredBy(Class<? extends HtmlComponent> type) {
+        return ownTagDeclarations.get(getClass()) == type;
+    }
+
+    private static final ClassValue<Class<?>> ownTagDeclarations = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getOwnTag", PageContext.class).getDeclaringClass();
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("Could not find getOwnTag in " + type.getName(), e);
+            }
+        }
+    };
+
     public HtmlTag getOwnTag(PageContext context) {
         HtmlTag tag = new HtmlTag("div"); // generic container
 
@@ -314,16 +344,18 @@ public abstract class HtmlComponent implements Serializable {
 
     public List<HtmlComponent> getChildren(Predicate<HtmlComponent> predicate) {
         List<HtmlComponent> results = new ArrayList<HtmlComponent>();
+        collectChildren(this, predicate, results);
+        return results;
+    }
 
-        for (HtmlComponent child : getChildren()) {
+    private static void collectChildren(HtmlComponent component, Predicate<HtmlComponent> predicate, List<HtmlComponent> results) {
+        for (HtmlComponent child : component.getChildren()) {
             if (predicate.apply(child)) {
                 results.add(child);
             }
 
-            results.addAll(child.getChildren(predicate));
+            collectChildren(child, predicate, results);
         }
-
-        return results;
     }
 
     public HtmlComponent getChildWithId(final String id) {
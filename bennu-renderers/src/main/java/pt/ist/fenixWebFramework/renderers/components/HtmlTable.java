@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTable extends HtmlComponent {
 
@@ -134,16 +136,7 @@ public class HtmlTable extends HtmlComponent {
     @Override
     public HtmlTag getOwnTag(PageContext context) {
 
-        HtmlTag tag = super.getOwnTag(context);
-
-        tag.setName("table");
-
-        tag.setAttribute("class", getClasses() == null ? "table" : getClasses() + " table");
-        tag.setAttribute("summary", summary);
-        tag.setAttribute("width", width);
-        tag.setAttribute("border", border);
-        tag.setAttribute("cellSpacing", cellSpacing);
-        tag.setAttribute("cellPadding", cellPadding);
+        HtmlTag tag = getTableTag(context);
 
         if (this.caption != null) {
             tag.addChild(new HtmlTag("caption", this.caption));
@@ -172,4 +165,45 @@ public class HtmlTable extends HtmlComponent {
 
         return tag;
     }
+
+    private HtmlTag getTableTag(PageContext context) {
+        HtmlTag tag = super.getOwnTag(context);
+
+        tag.setName("table");
+
+        tag.setAttribute("class", getClasses() == null ? "table" : getClasses() + " table");
+        tag.setAttribute("summary", summary);
+        tag.setAttribute("width", width);
+        tag.setAttribute("border", border);
+        tag.setAttribute("cellSpacing", cellSpacing);
+        tag.setAttribute("cellPadding", cellPadding);
+
+        return tag;
+    }
+
+    @Override
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        if (!isOwnTagDeclaredBy(HtmlTable.class)) {
+            super.draw(writer, context);
+            return;
+        }
+
+        writer.startTag(getTableTag(context));
+
+        if (this.caption != null) {
+            writer.writeTag(new HtmlTag("caption", this.caption));
+        }
+
+        if (this.header != null) {
+            header.draw(writer, context);
+        }
+
+        writer.startTag("tbody");
+        for (HtmlTableRow row : this.rows) {
+            row.draw(writer, context);
+        }
+        writer.endTag();
+
+        writer.endTag();
+    }
 }
@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableCell extends HtmlComponent {
 
@@ -162,6 +164,16 @@ public class HtmlTableCell extends HtmlComponent {
 
     @Override
     public HtmlTag getOwnTag(PageContext context) {
+        HtmlTag tag = getCellTag(context);
+
+        if (data != null) {
+            tag.addChild(this.data.getOwnTag(context));
+        }
+
+        return tag;
+    }
+
+    private HtmlTag getCellTag(PageContext context) {
         HtmlTag tag = super.getOwnTag(context);
 
         tag.setName(type.toString());
@@ -175,10 +187,20 @@ public class HtmlTableCell extends HtmlComponent {
         tag.setAttribute("align", getAlign());
         tag.setAttribute("valign", getValign());
 
-        if (data != null) {
-            tag.addChild(this.data.getOwnTag(context));
+        return tag;
+    }
+
+    @Override
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        if (!isOwnTagDeclaredBy(HtmlTableCell.class)) {
+            super.draw(writer, context);
+            return;
         }
 
-        return tag;
+        writer.startTag(getCellTag(context));
+        if (data != null) {
+            this.data.draw(writer, context);
+        }
+        writer.endTag();
     }
 }
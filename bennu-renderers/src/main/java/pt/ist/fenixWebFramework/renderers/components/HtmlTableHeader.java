@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableHeader extends HtmlComponent {
 
@@ -51,9 +53,7 @@ public class HtmlTableHeader extends HtmlComponent {
 
     @Override
     public HtmlTag getOwnTag(PageContext context) {
-        HtmlTag tag = super.getOwnTag(context);
-
-        tag.setName("thead");
+        HtmlTag tag = getHeaderTag(context);
 
         for (HtmlTableRow row : this.rows) {
             tag.addChild(row.getOwnTag(context));
@@ -61,4 +61,26 @@ public class HtmlTableHeader extends HtmlComponent {
 
         return tag;
     }
+
+    private HtmlTag getHeaderTag(PageContext context) {
+        HtmlTag tag = super.getOwnTag(context);
+
+        tag.setName("thead");
+
+        return tag;
+    }
+
+    @Override
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        if (!isOwnTagDeclaredBy(HtmlTableHeader.class)) {
+            super.draw(writer, context);
+            return;
+        }
+
+        writer.startTag(getHeaderTag(context));
+        for (HtmlTableRow row : this.rows) {
+            row.draw(writer, context);
+        }
+        writer.endTag();
+    }
 }
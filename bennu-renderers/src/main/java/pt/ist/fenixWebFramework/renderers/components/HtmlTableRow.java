@@ -18,6 +18,7 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell.CellType;
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableRow extends HtmlComponent {
 
@@ -80,15 +82,35 @@ public class HtmlTableRow extends HtmlComponent {
 
     @Override
     public HtmlTag getOwnTag(PageContext context) {
+        HtmlTag tag = getRowTag(context);
+
+        for (HtmlTableCell cell : this.cells) {
+            tag.addChild(cell.getOwnTag(context));
+        }
+
+        return tag;
+    }
+
+    private HtmlTag getRowTag(PageContext context) {
         HtmlTag tag = super.getOwnTag(context);
 
         tag.setName("tr");
         tag.setAttribute("align", getAlign());
 
-        for (HtmlTableCell cell : this.cells) {
-            tag.addChild(cell.getOwnTag(context));
+        return tag;
+    }
+
+    @Override
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        if (!isOwnTagDeclaredBy(HtmlTableRow.class)) {
+            super.draw(writer, context);
+            return;
         }
 
-        return tag;
+        writer.startTag(getRowTag(context));
+        for (HtmlTableCell cell : this.cells) {
+            cell.draw(writer, context);
+        }
+        writer.endTag();
     }
 }
@@ -0,0 +1,334 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import pt.ist.fenixframework.DomainObject;
+import pt.ist.fenixframework.FenixFramework;
+
+/**
+ * Compact binary encoding of view states.
+ * 
+ * {@link ViewState}s are written field by field (see {@link ViewState#writeTo(Output)}), with lengths as varints, strings
+ * (slot names, layouts, property names, class names, ...) written once and then referenced by their index in a string
+ * table, and domain objects replaced by their external ids. Other objects, like the meta object graph, fall back to
+ * Java serialization, but class descriptors are written as a reference to the class name instead of the full field
+ * description, which is what makes up most of the size of serialized view states. The whole payload is deflated.
+ * 
+ * As with Java serialization, payloads can only be decoded by the same version of the classes that produced them.
+ */
+public class CompactViewStateCodec implements ViewStateCodec {
+
+    private static final byte MAGIC = (byte) 0xC1;
+
+    private static final Class<?> SINGLETON_LIST = Collections.singletonList(null).getClass();
+
+    private static final int LIST = 0;
+    private static final int SINGLETON = 1;
+
+    private static final int VIEW_STATE = 0;
+    private static final int OTHER_VIEW_STATE = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int INTEGER = 4;
+    private static final int CLASS = 5;
+    private static final int DOMAIN_OBJECT = 6;
+    private static final int OBJECT = 7;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[] { boolean.class, byte.class, char.class, short.class, int.class, long.class,
+                float.class, double.class, void.class }) {
+            PRIMITIVES.put(type.getName(), type);
+        }
+    }
+
+    @Override
+    public byte[] encode(List<IViewState> viewStates) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(MAGIC);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (Output output = new Output(new DeflaterOutputStream(baos, deflater))) {
+            output.writeVarInt(viewStates.getClass() == SINGLETON_LIST ? SINGLETON : LIST);
+            output.writeVarInt(viewStates.size());
+            for (IViewState viewState : viewStates) {
+                if (viewState.getClass() == ViewState.class) {
+                    output.writeVarInt(VIEW_STATE);
+                    ((ViewState) viewState).writeTo(output);
+                } else {
+                    output.writeVarInt(OTHER_VIEW_STATE);
+                    output.writeObject(viewState);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public List<IViewState> decode(byte[] payload) throws IOException, ClassNotFoundException {
+        Inflater inflater = new Inflater(true);
+        try (Input input = new Input(new InflaterInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1), inflater))) {
+            int kind = input.readVarInt();
+            int size = input.readVarInt();
+            List<IViewState> viewStates = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (input.readVarInt() == VIEW_STATE) {
+                    viewStates.add(ViewState.readFrom(input));
+                } else {
+                    viewStates.add((IViewState) input.readObject());
+                }
+            }
+            return kind == SINGLETON && size == 1 ? Collections.singletonList(viewStates.get(0)) : viewStates;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public boolean accepts(byte[] payload) {
+        return payload.length > 1 && payload[0] == MAGIC;
+    }
+
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return Class.forName(name, false, loader != null ? loader : CompactViewStateCodec.class.getClassLoader());
+    }
+
+    private static final class DomainObjectReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String externalId;
+
+        DomainObjectReference(String externalId) {
+            this.externalId = externalId;
+        }
+
+    }
+
+    public static final class Output extends ObjectOutputStream {
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Output(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected void writeStreamHeader() {
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            writeString(desc.getName());
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof DomainObject) {
+                return new DomainObjectReference(((DomainObject) obj).getExternalId());
+            }
+            return obj;
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        /**
+         * Writes the size of a collection or map, or a marker if it is <code>null</code>.
+         */
+        public void writeSize(int size, boolean isNull) throws IOException {
+            writeVarInt(isNull ? 0 : size + 1);
+        }
+
+        public void writeString(String string) throws IOException {
+            if (string == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(string);
+            if (index != null) {
+                writeVarInt(index + 2);
+            } else {
+                strings.put(string, strings.size());
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(1);
+                writeVarInt(bytes.length);
+                write(bytes);
+            }
+        }
+
+        public void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL);
+            } else if (value instanceof String) {
+                writeVarInt(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeVarInt((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                int integer = (Integer) value;
+                writeVarInt(INTEGER);
+                writeVarInt((integer << 1) ^ (integer >> 31));
+            } else if (value instanceof Class) {
+                writeVarInt(CLASS);
+                writeString(((Class<?>) value).getName());
+            } else if (value instanceof DomainObject) {
+                writeVarInt(DOMAIN_OBJECT);
+                writeString(((DomainObject) value).getExternalId());
+            } else {
+                writeVarInt(OBJECT);
+                writeObject(value);
+            }
+        }
+
+    }
+
+    public static final class Input extends ObjectInputStream {
+
+        private final List<String> strings = new ArrayList<>();
+
+        Input(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected void readStreamHeader() {
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            return ObjectStreamClass.lookupAny(loadClass(readString()));
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+            return loadClass(desc.getName());
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof DomainObjectReference) {
+                return FenixFramework.getDomainObject(((DomainObjectReference) obj).externalId);
+            }
+            return obj;
+        }
+
+        public int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint");
+        }
+
+        /**
+         * @return the size written by {@link Output#writeSize(int, boolean)}, or <code>-1</code> if it was <code>null</code>
+         */
+        public int readSize() throws IOException {
+            return readVarInt() - 1;
+        }
+
+        public String readString() throws IOException {
+            int reference = readVarInt();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > 1) {
+                if (reference - 2 >= strings.size()) {
+                    throw new StreamCorruptedException("Invalid string reference");
+                }
+                return strings.get(reference - 2);
+            }
+            byte[] bytes = new byte[readVarInt()];
+            readFully(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(string);
+            return string;
+        }
+
+        public Object readValue() throws IOException, ClassNotFoundException {
+            int tag = readVarInt();
+            switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                int integer = readVarInt();
+                return (integer >>> 1) ^ -(integer & 1);
+            case CLASS:
+                return loadClass(readString());
+            case DOMAIN_OBJECT:
+                return FenixFramework.getDomainObject(readString());
+            case OBJECT:
+                return readObject();
+            default:
+                throw new StreamCorruptedException("Unknown value tag: " + tag);
+            }
+        }
+
+    }
+
+}
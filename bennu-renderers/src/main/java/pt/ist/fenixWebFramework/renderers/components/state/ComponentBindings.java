@@ -0,0 +1,327 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMultipleHiddenField;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMultipleValueComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlSimpleValueComponent;
+import pt.ist.fenixWebFramework.renderers.components.Validatable;
+import pt.ist.fenixWebFramework.renderers.components.controllers.Controllable;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
+import pt.ist.fenixWebFramework.renderers.validators.AbstractHtmlValidator;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlChainValidator;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
+import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
+
+/**
+ * Describes the form components of a rendered tree that are bound to slots: their names, target slots, whether they take
+ * multiple values and their converters. It is kept in the view state so that, on postback, {@link ComponentLifeCycle} can
+ * bind request parameters and validate the slots without rendering the object again.
+ * 
+ * Only trees whose behaviour is fully described this way have bindings: trees with controllers, with components that
+ * change how values are read or converted, with stateful converters or with validators that are not the ones declared
+ * in the slots are always rendered again.
+ */
+public final class ComponentBindings implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final boolean ENABLED = RenderersConfigurationManager.getConfiguration().viewStateBindings();
+
+    private static final ClassValue<Boolean> BINDABLE_COMPONENT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            Class<?> base;
+            if (HtmlSimpleValueComponent.class.isAssignableFrom(type)) {
+                base = HtmlSimpleValueComponent.class;
+            } else if (HtmlMultipleValueComponent.class.isAssignableFrom(type)) {
+                base = HtmlMultipleValueComponent.class;
+            } else {
+                return false;
+            }
+            try {
+                return type.getMethod("getConvertedValue", MetaSlot.class).getDeclaringClass() == base
+                        && type.getMethod("getValue").getDeclaringClass() == base
+                        && type.getMethod("getValues").getDeclaringClass() == base;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private static final ClassValue<Boolean> STATELESS_CONVERTER = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers()) || type.isAnonymousClass()
+                    || (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()))) {
+                return false;
+            }
+            try {
+                if (!Modifier.isPublic(type.getConstructor().getModifiers())) {
+                    return false;
+                }
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+            for (Class<?> current = type; current != Converter.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    private final List<Binding> bindings;
+
+    private ComponentBindings(List<Binding> bindings) {
+        this.bindings = bindings;
+    }
+
+    /**
+     * @return the bindings of the given tree, or <code>null</code> if it must be rendered again on postback
+     */
+    public static ComponentBindings of(HtmlComponent component, MetaObject metaObject) {
+        return ENABLED ? describe(component, metaObject) : null;
+    }
+
+    static ComponentBindings describe(HtmlComponent component, MetaObject metaObject) {
+        if (component == null || metaObject == null) {
+            return null;
+        }
+
+        Map<HtmlFormComponent, Binding> bound = new IdentityHashMap<HtmlFormComponent, Binding>();
+        List<HtmlChainValidator> validators = new ArrayList<HtmlChainValidator>();
+        List<Binding> bindings = new ArrayList<Binding>();
+        if (!collect(component, bound, validators, bindings)) {
+            return null;
+        }
+
+        if (!validators.isEmpty()) {
+            Map<String, MetaSlot> slots = new HashMap<String, MetaSlot>();
+            if (metaObject instanceof MetaSlot) {
+                slots.put(metaObject.getKey().toString(), (MetaSlot) metaObject);
+                metaObject = ((MetaSlot) metaObject).getMetaObject();
+            }
+            for (MetaSlot slot : metaObject.getAllSlots()) {
+                slots.putIfAbsent(slot.getKey().toString(), slot);
+            }
+
+            for (HtmlChainValidator chainValidator : validators) {
+                if (!isDeclaredBySlot(chainValidator, bound, slots)) {
+                    return null;
+                }
+            }
+        }
+
+        return new ComponentBindings(bindings);
+    }
+
+    private static boolean collect(HtmlComponent component, Map<HtmlFormComponent, Binding> bound,
+            List<HtmlChainValidator> validators, List<Binding> bindings) {
+        if (component instanceof Controllable && ((Controllable) component).hasController()) {
+            return false;
+        }
+
+        if (component instanceof HtmlChainValidator) {
+            validators.add((HtmlChainValidator) component);
+        } else if (component instanceof HtmlFormComponent) {
+            HtmlFormComponent formComponent = (HtmlFormComponent) component;
+            HtmlChainValidator chainValidator = formComponent.getChainValidator();
+
+            if (formComponent.getName() != null && formComponent.hasTargetSlot()) {
+                Converter converter = formComponent.getConverter();
+                if (!BINDABLE_COMPONENT.get(formComponent.getClass())
+                        || (converter != null && !STATELESS_CONVERTER.get(converter.getClass()))) {
+                    return false;
+                }
+
+                MetaSlotKey key = formComponent.getTargetSlot();
+                String name = formComponent.getName();
+                Binding binding =
+                        new Binding(name.equals(HtmlComponent.getValidIdOrName(key.toString())) ? null : name, key,
+                                formComponent instanceof HtmlMultipleValueComponent, converter == null ? null
+                                        : converter.getClass());
+                bound.put(formComponent, binding);
+                bindings.add(binding);
+            }
+
+            if (chainValidator != null && !chainValidator.isEmpty()) {
+                validators.add(chainValidator);
+            }
+        }
+
+        for (HtmlComponent child : component.getChildren()) {
+            if (!collect(child, bound, validators, bindings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The life cycle always validates bound components with the validators declared in their slots, so other validators
+     * are only safe to drop if they are of the same types and have the same properties.
+     */
+    private static boolean isDeclaredBySlot(HtmlChainValidator chainValidator, Map<HtmlFormComponent, Binding> bound,
+            Map<String, MetaSlot> slots) {
+        Validatable validated = chainValidator.getComponent();
+        Binding binding = bound.get(validated);
+        if (binding == null) {
+            return false;
+        }
+
+        MetaSlot slot = slots.get(binding.key.toString());
+        if (slot == null) {
+            return false;
+        }
+
+        outer: for (HtmlValidator validator : chainValidator.getValidators()) {
+            for (ValidatorProperties properties : slot.getValidators()) {
+                if (properties.getType() == validator.getClass() && isConfiguredBy(validator, properties)) {
+                    continue outer;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * Compares the fields of the validator with the ones of a validator created from the slot's properties, leaving out the
+     * chain it belongs to and the validation result.
+     */
+    private static boolean isConfiguredBy(HtmlValidator validator, ValidatorProperties properties) {
+        try {
+            HtmlValidator declared = properties.newValidator();
+            for (Class<?> type = validator.getClass(); type != AbstractHtmlValidator.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType() == HtmlChainValidator.class) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    if (!Objects.equals(field.get(validator), field.get(declared))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (IllegalAccessException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a component with a stand-in form component for each binding, that can be used in place of the rendered tree
+     * to read and convert the submitted values.
+     */
+    public HtmlComponent createComponent() {
+        HtmlBlockContainer container = new HtmlBlockContainer();
+
+        for (Binding binding : bindings) {
+            HtmlFormComponent formComponent = binding.multiple ? new HtmlMultipleHiddenField() : new HtmlHiddenField();
+            formComponent.setTargetSlot(binding.key);
+            if (binding.name != null) {
+                formComponent.setName(binding.name);
+            }
+
+            if (binding.converter != null) {
+                try {
+                    formComponent.setConverter(binding.converter.newInstance());
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new RuntimeException("Could not create converter " + binding.converter.getName(), e);
+                }
+            }
+
+            container.addChild(formComponent);
+        }
+
+        return container;
+    }
+
+    /*
+     * Used by CompactViewStateCodec.
+     */
+    void writeTo(CompactViewStateCodec.Output output) throws IOException {
+        output.writeVarInt(bindings.size());
+        for (Binding binding : bindings) {
+            output.writeString(binding.name);
+            output.writeValue(binding.key);
+            output.writeBoolean(binding.multiple);
+            output.writeValue(binding.converter);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static ComponentBindings readFrom(CompactViewStateCodec.Input input) throws IOException, ClassNotFoundException {
+        int size = input.readVarInt();
+        List<Binding> bindings = new ArrayList<Binding>(size);
+        for (int i = 0; i < size; i++) {
+            String name = input.readString();
+            MetaSlotKey key = (MetaSlotKey) input.readValue();
+            boolean multiple = input.readBoolean();
+            bindings.add(new Binding(name, key, multiple, (Class<? extends Converter>) input.readValue()));
+        }
+        return new ComponentBindings(bindings);
+    }
+
+    private static final class Binding implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        // null when it is the name given by the target slot
+        private final String name;
+
+        private final MetaSlotKey key;
+
+        private final boolean multiple;
+
+        private final Class<? extends Converter> converter;
+
+        Binding(String name, MetaSlotKey key, boolean multiple, Class<? extends Converter> converter) {
+            this.name = name;
+            this.key = key;
+            this.multiple = multiple;
+            this.converter = converter;
+        }
+
+    }
+
+}
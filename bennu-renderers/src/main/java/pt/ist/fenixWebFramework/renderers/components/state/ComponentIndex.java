@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.controllers.Controllable;
+import pt.ist.fenixWebFramework.renderers.components.controllers.HtmlController;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlChainValidator;
+
+/**
+ * The components of a tree that take part in the life cycle, gathered in a single pass. Each list keeps the order, and
+ * the semantics, of the searches it replaces: {@link HtmlComponent#getComponents(HtmlComponent, com.google.common.base.Predicate)}
+ * for form components and controllers, which only return the root if it matches, and
+ * {@link HtmlComponent#getChildren(com.google.common.base.Predicate)} for validators.
+ */
+final class ComponentIndex {
+
+    private final List<HtmlFormComponent> namedFormComponents = new ArrayList<HtmlFormComponent>();
+
+    private final List<HtmlFormComponent> boundFormComponents = new ArrayList<HtmlFormComponent>();
+
+    private final List<HtmlController> controllers = new ArrayList<HtmlController>();
+
+    private final List<HtmlChainValidator> validators = new ArrayList<HtmlChainValidator>();
+
+    ComponentIndex(HtmlComponent component) {
+        if (component == null) {
+            return;
+        }
+
+        for (HtmlComponent child : component.getChildren()) {
+            visit(child);
+        }
+
+        // like getComponents, a matching root hides its descendants
+        if (isNamedFormComponent(component)) {
+            namedFormComponents.clear();
+            namedFormComponents.add((HtmlFormComponent) component);
+        }
+        if (isBoundFormComponent(component)) {
+            boundFormComponents.clear();
+            boundFormComponents.add((HtmlFormComponent) component);
+        }
+        if (hasController(component)) {
+            controllers.clear();
+            controllers.add(((Controllable) component).getController());
+        }
+    }
+
+    private void visit(HtmlComponent component) {
+        if (isNamedFormComponent(component)) {
+            namedFormComponents.add((HtmlFormComponent) component);
+        }
+        if (isBoundFormComponent(component)) {
+            boundFormComponents.add((HtmlFormComponent) component);
+        }
+        if (hasController(component)) {
+            controllers.add(((Controllable) component).getController());
+        }
+        if (component instanceof HtmlChainValidator) {
+            validators.add((HtmlChainValidator) component);
+        }
+
+        for (HtmlComponent child : component.getChildren()) {
+            visit(child);
+        }
+    }
+
+    private static boolean isNamedFormComponent(HtmlComponent component) {
+        return component instanceof HtmlFormComponent && ((HtmlFormComponent) component).getName() != null;
+    }
+
+    private static boolean isBoundFormComponent(HtmlComponent component) {
+        return component instanceof HtmlFormComponent && ((HtmlFormComponent) component).getTargetSlot() != null;
+    }
+
+    private static boolean hasController(HtmlComponent component) {
+        return component instanceof Controllable && ((Controllable) component).hasController();
+    }
+
+    /**
+     * Form components with a name, whose values are read from the request.
+     */
+    List<HtmlFormComponent> getNamedFormComponents() {
+        return namedFormComponents;
+    }
+
+    /**
+     * Form components with a target slot, which are validated and update the meta object.
+     */
+    List<HtmlFormComponent> getBoundFormComponents() {
+        return boundFormComponents;
+    }
+
+    List<HtmlController> getControllers() {
+        return controllers;
+    }
+
+    /**
+     * Validators that are part of the tree, not including the root.
+     */
+    List<HtmlChainValidator> getValidators() {
+        return validators;
+    }
+
+}
@@ -20,7 +20,9 @@ package pt.ist.fenixWebFramework.renderers.components.state;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.servlet.http.HttpServletRequest;
@@ -36,7 +38,6 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlMultipleHiddenField;
 import pt.ist.fenixWebFramework.renderers.components.HtmlMultipleValueComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlSimpleValueComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
-import pt.ist.fenixWebFramework.renderers.components.controllers.Controllable;
 import pt.ist.fenixWebFramework.renderers.components.controllers.HtmlController;
 import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
@@ -45,11 +46,10 @@ import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+import pt.ist.fenixWebFramework.renderers.utils.RenderingMetrics;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlChainValidator;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
 
-import com.google.common.base.Predicate;
-
 public class ComponentLifeCycle {
     private static final Logger logger = LoggerFactory.getLogger(ComponentLifeCycle.class);
 
@@ -59,21 +59,24 @@ public class ComponentLifeCycle {
 
     private class ComponentCollector {
 
+        private final ComponentIndex index;
+
         private final List<HtmlFormComponent> formComponents;
 
         private final List<HtmlController> controllers;
 
         public ComponentCollector(IViewState viewState, HtmlComponent component) {
+            this.index = new ComponentIndex(component);
             this.formComponents = new ArrayList<HtmlFormComponent>();
             this.controllers = new ArrayList<HtmlController>();
 
             if (component != null) {
-                collect(component);
+                collect(index);
 
                 InputContext context = viewState.getContext();
                 if (context != null) {
-                    collect(context.getForm().getSubmitButton());
-                    collect(context.getForm().getCancelButton());
+                    collect(new ComponentIndex(context.getForm().getSubmitButton()));
+                    collect(new ComponentIndex(context.getForm().getCancelButton()));
                 }
 
                 addHiddenComponents(viewState);
@@ -96,6 +99,13 @@ public class ComponentLifeCycle {
             }
         }
 
+        /**
+         * The index of the collected tree, without the form buttons and hidden fields.
+         */
+        public ComponentIndex getIndex() {
+            return this.index;
+        }
+
         public List<HtmlFormComponent> getFormComponents() {
             return this.formComponents;
         }
@@ -104,46 +114,9 @@ public class ComponentLifeCycle {
             return this.controllers;
         }
 
-        private void collect(HtmlComponent component) {
-            Predicate<HtmlComponent> isFormComponent = new Predicate<HtmlComponent>() {
-                @Override
-                public boolean apply(HtmlComponent component) {
-                    if (component instanceof HtmlFormComponent) {
-                        HtmlFormComponent formComponent = (HtmlFormComponent) component;
-
-                        if (formComponent.getName() != null) {
-                            return true;
-                        }
-                    }
-
-                    return false;
-                }
-            };
-
-            List<HtmlComponent> components = HtmlFormComponent.getComponents(component, isFormComponent);
-            for (HtmlComponent comp : components) {
-                this.formComponents.add((HtmlFormComponent) comp);
-            }
-
-            Predicate<HtmlComponent> hasController = new Predicate<HtmlComponent>() {
-                @Override
-                public boolean apply(HtmlComponent component) {
-                    if (component instanceof Controllable) {
-                        Controllable controllabelComponent = (Controllable) component;
-
-                        if (controllabelComponent.hasController()) {
-                            return true;
-                        }
-                    }
-
-                    return false;
-                }
-            };
-
-            components = HtmlFormComponent.getComponents(component, hasController);
-            for (HtmlComponent comp : components) {
-                this.controllers.add(((Controllable) comp).getController());
-            }
+        private void collect(ComponentIndex index) {
+            this.formComponents.addAll(index.getNamedFormComponents());
+            this.controllers.addAll(index.getControllers());
         }
     }
 
@@ -163,16 +136,46 @@ public class ComponentLifeCycle {
 
     public ViewDestination doLifeCycle(HttpServletRequest request) throws Exception {
 
+        long start = startPhase();
         EditRequest editRequest = new EditRequest(request);
         List<IViewState> viewStates = editRequest.getAllViewStates();
+        endPhase(RenderingMetrics.DECODE, start);
+
+        LifeCycleResult result = processViewStates(editRequest, viewStates, true);
+        if (result.anyBound && !result.allValid) {
+            // messages must be the ones of the rendered components, as are the components shown in the input page
+            for (IViewState viewState : viewStates) {
+                viewState.setMessages(new ArrayList<Message>());
+            }
+            result = processViewStates(editRequest, viewStates, false);
+        }
+
+        ViewDestination destination;
+        try {
+            if (result.allValid && !result.anySkip && !result.anyCanceled) {
+                start = startPhase();
+                updateDomain(viewStates);
+                endPhase(RenderingMetrics.COMMIT, start);
+            }
+        } finally {
+            destination = getDestination(viewStates);
+            prepareDestination(viewStates, editRequest);
+        }
+
+        return destination;
+    }
+
+    /*
+     * When useBindings is true, view states that carry bindings are bound and validated without rendering their objects.
+     */
+    private LifeCycleResult processViewStates(EditRequest editRequest, List<IViewState> viewStates, boolean useBindings)
+            throws Exception {
+        LifeCycleResult result = new LifeCycleResult();
         List<ViewStateHolder> viewStateHolders = new ArrayList<ViewStateHolder>();
 
-        boolean allValid = true;
-        boolean anySkip = false;
-        boolean anyCanceled = false;
         boolean skipValidation = false;
 
-        skipValidation = Boolean.parseBoolean(request.getParameter("skipValidation"));
+        skipValidation = Boolean.parseBoolean(editRequest.getParameter("skipValidation"));
 
         for (IViewState viewState : viewStates) {
             ViewStateHolder holder = new ViewStateHolder(viewState);
@@ -180,12 +183,15 @@ public class ComponentLifeCycle {
 
             if (cancelRequested(editRequest)) {
                 doCancel(viewState);
-                anyCanceled = true;
+                result.anyCanceled = true;
                 holder.setCanceled(true);
                 continue;
             }
 
-            HtmlComponent component = restoreComponent(viewState);
+            long start = startPhase();
+            ComponentBindings bindings = useBindings ? getBindings(viewState) : null;
+            HtmlComponent component = bindings != null ? restoreBoundComponent(viewState, bindings) : restoreComponent(viewState);
+            endPhase(RenderingMetrics.RESTORE, start);
 
             viewState.setValid(true);
             viewState.setSkipUpdate(false);
@@ -194,19 +200,36 @@ public class ComponentLifeCycle {
 
             ComponentCollector collector = null;
 
-            viewState.setUpdateComponentTree(true);
-            while (viewState.getUpdateComponentTree()) {
+            if (bindings != null) {
+                result.anyBound = true;
                 viewState.setUpdateComponentTree(false);
 
+                start = startPhase();
                 collector = new ComponentCollector(viewState, component);
                 updateComponent(collector, editRequest);
-
-                runControllers(collector, viewState);
-                component = viewState.getComponent();
+                endPhase(RenderingMetrics.UPDATE, start);
+            } else {
+                viewState.setUpdateComponentTree(true);
+                while (viewState.getUpdateComponentTree()) {
+                    viewState.setUpdateComponentTree(false);
+
+                    start = startPhase();
+                    collector = new ComponentCollector(viewState, component);
+                    updateComponent(collector, editRequest);
+                    endPhase(RenderingMetrics.UPDATE, start);
+
+                    start = startPhase();
+                    runControllers(collector, viewState);
+                    component = viewState.getComponent();
+                    endPhase(RenderingMetrics.CONTROLLERS, start);
+                }
             }
 
             holder.setComponent(component);
             holder.setCollector(collector);
+            // controllers may have changed the tree without asking for it to be collected again
+            holder.setIndex(collector != null && collector.getControllers().isEmpty() ? collector.getIndex() : new ComponentIndex(
+                    component));
             skipValidation = skipValidation || viewState.skipValidation();
         }
 
@@ -216,33 +239,38 @@ public class ComponentLifeCycle {
 
                 if (viewState.isVisible() && !viewState.skipUpdate()) {
                     if (!skipValidation) {
-                        viewState.setValid(validateComponent(viewState, holder.getComponent(), viewState.getMetaObject()));
+                        long start = startPhase();
+                        viewState.setValid(validateComponent(viewState, holder.getIndex(), viewState.getMetaObject()));
+                        endPhase(RenderingMetrics.VALIDATE, start);
                     }
                 }
 
                 if (viewState.isVisible() || isHiddenSlot(viewState)) {
                     if (viewState.isValid()) {
                         // updateMetaObject can get conversion errors
+                        long start = startPhase();
                         viewState.setValid(updateMetaObject(holder.getCollector(), editRequest, viewState));
+                        endPhase(RenderingMetrics.UPDATE, start);
                     }
                 }
 
-                allValid = allValid && viewState.isValid();
-                anySkip = anySkip || viewState.skipUpdate();
+                result.allValid = result.allValid && viewState.isValid();
+                result.anySkip = result.anySkip || viewState.skipUpdate();
             }
         }
 
-        ViewDestination destination;
-        try {
-            if (allValid && !anySkip && !anyCanceled) {
-                updateDomain(viewStates);
-            }
-        } finally {
-            destination = getDestination(viewStates);
-            prepareDestination(viewStates, editRequest);
-        }
+        return result;
+    }
 
-        return destination;
+    private static long startPhase() {
+        return RenderKit.getMetrics() == null ? 0 : System.nanoTime();
+    }
+
+    private static void endPhase(String phase, long start) {
+        RenderingMetrics metrics = RenderKit.getMetrics();
+        if (metrics != null) {
+            metrics.phase(phase, System.nanoTime() - start, 0);
+        }
     }
 
     public static void doCancel(IViewState viewState) {
@@ -255,7 +283,7 @@ public class ComponentLifeCycle {
                 || editRequest.getAttribute(Constants.CANCEL_PROPERTY) != null;
     }
 
-    private boolean isHiddenSlot(IViewState viewState) {
+    private static boolean isHiddenSlot(IViewState viewState) {
         return viewState.getMetaObject() instanceof MetaSlot && viewState.getHiddenSlots().size() > 0;
     }
 
@@ -307,50 +335,29 @@ public class ComponentLifeCycle {
         return destination;
     }
 
-    private boolean validateComponent(IViewState viewState, HtmlComponent component, MetaObject metaObject) {
+    private boolean validateComponent(IViewState viewState, ComponentIndex index, MetaObject metaObject) {
         boolean valid = true;
 
-        List<HtmlComponent> validators = component.getChildren(new Predicate<HtmlComponent>() {
-            @Override
-            public boolean apply(HtmlComponent component) {
-                return component instanceof HtmlChainValidator;
-            }
-        });
-
-        List<HtmlComponent> formComponents = HtmlComponent.getComponents(component, new Predicate<HtmlComponent>() {
-            @Override
-            public boolean apply(HtmlComponent component) {
-                if (!(component instanceof HtmlFormComponent)) {
-                    return false;
-                }
+        List<HtmlChainValidator> validators = new ArrayList<HtmlChainValidator>(index.getValidators());
+        SlotLookup slots = new SlotLookup(metaObject);
 
-                HtmlFormComponent formComponent = (HtmlFormComponent) component;
-                return formComponent.getTargetSlot() != null;
+        for (HtmlFormComponent formComponent : index.getBoundFormComponents()) {
+            HtmlChainValidator chainValidator = formComponent.getChainValidator();
+            if (chainValidator == null) {
+                chainValidator = new HtmlChainValidator(formComponent);
             }
-        });
-
-        if (!formComponents.isEmpty()) {
-            for (HtmlComponent boundComponent : formComponents) {
-                HtmlFormComponent formComponent = (HtmlFormComponent) boundComponent;
-                HtmlChainValidator chainValidator = formComponent.getChainValidator();
-                if (chainValidator == null) {
-                    chainValidator = new HtmlChainValidator(formComponent);
-                }
-
-                MetaSlotKey key = formComponent.getTargetSlot();
-                MetaSlot slot = getMetaSlot(metaObject, key);
 
-                for (HtmlValidator validator : slot.getValidatorsList()) {
-                    chainValidator.addValidator(validator);
-                }
+            MetaSlotKey key = formComponent.getTargetSlot();
+            MetaSlot slot = slots.get(key);
 
-                validators.add(chainValidator);
+            for (HtmlValidator validator : slot.getValidatorsList()) {
+                chainValidator.addValidator(validator);
             }
-        }
 
-        for (HtmlComponent validator : validators) {
-            HtmlChainValidator htmlValidator = (HtmlChainValidator) validator;
+            validators.add(chainValidator);
+        }
 
+        for (HtmlChainValidator htmlValidator : validators) {
             htmlValidator.performValidation();
             valid = valid && htmlValidator.isValid();
 
@@ -362,7 +369,7 @@ public class ComponentLifeCycle {
                     MetaSlotKey key = validatedFormComponent.getTargetSlot();
 
                     if (key != null) {
-                        MetaSlot slot = getMetaSlot(metaObject, key);
+                        MetaSlot slot = slots.get(key);
 
                         if (slot != null) {
                             viewState.addMessage(new ValidationMessage(slot, htmlValidator.getErrorMessage()));
@@ -393,6 +400,56 @@ public class ComponentLifeCycle {
     }
 
     public HtmlComponent restoreComponent(IViewState viewState) throws InstantiationException, IllegalAccessException {
+        if (!restoreContext(viewState)) {
+            return new HtmlText();
+        }
+
+        if (isHiddenSlot(viewState)) {
+            viewState.setComponent(new HtmlText());
+        } else {
+            MetaObject metaObject = viewState.getMetaObject();
+            Object object = metaObject.getObject();
+            viewState.setComponent(RenderKit.getInstance().render(viewState.getContext(), object, metaObject.getType()));
+        }
+
+        HtmlComponent component = viewState.getComponent();
+        return component != null ? component : new HtmlText();
+    }
+
+    private static ComponentBindings getBindings(IViewState viewState) {
+        if (viewState instanceof ViewState && viewState.isVisible() && !isHiddenSlot(viewState)
+                && viewState.getMetaObject() != null) {
+            return ((ViewState) viewState).getBindings();
+        }
+        return null;
+    }
+
+    /*
+     * The rendered component is replaced by stand-ins for the bound form components. It is only rendered if someone asks
+     * the view state for it, usually the input page when it is shown again.
+     */
+    private HtmlComponent restoreBoundComponent(IViewState viewState, ComponentBindings bindings) {
+        restoreContext(viewState);
+        ((ViewState) viewState).deferComponent();
+        return bindings.createComponent();
+    }
+
+    HtmlComponent renderDeferredComponent(IViewState viewState) {
+        try {
+            HtmlComponent component = restoreComponent(viewState);
+            if (viewState.getRequest() != null) {
+                updateComponent(new ComponentCollector(viewState, component), viewState.getRequest());
+            }
+            return component;
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Could not render component of view state " + viewState.getId(), e);
+        }
+    }
+
+    /**
+     * @return <code>false</code> if the view state is not visible
+     */
+    private boolean restoreContext(IViewState viewState) {
         viewState.setPostBack(true);
 
         MetaObject metaObject = viewState.getMetaObject();
@@ -414,29 +471,17 @@ public class ComponentLifeCycle {
         context.setViewState(viewState);
         viewState.setContext(context);
 
-        if (!viewState.isVisible()) {
-            return new HtmlText();
-        }
-
-        if (isHiddenSlot(viewState)) {
-            viewState.setComponent(new HtmlText());
-        } else {
-            Object object = metaObject.getObject();
-            viewState.setComponent(RenderKit.getInstance().render(context, object, metaObject.getType()));
-        }
-
-        HtmlComponent component = viewState.getComponent();
-        return component != null ? component : new HtmlText();
+        return viewState.isVisible();
     }
 
-    private void updateComponent(ComponentCollector collector, EditRequest editRequest) {
+    private void updateComponent(ComponentCollector collector, HttpServletRequest request) {
         List<HtmlFormComponent> formComponents = collector.getFormComponents();
 
         for (HtmlFormComponent formComponent : formComponents) {
             String name = formComponent.getName();
 
             if (formComponent instanceof HtmlMultipleValueComponent) {
-                String[] values = editRequest.getParameterValues(name);
+                String[] values = request.getParameterValues(name);
 
                 if (values == null) {
                     values = new String[0];
@@ -444,14 +489,14 @@ public class ComponentLifeCycle {
 
                 ((HtmlMultipleValueComponent) formComponent).setValues(values);
             } else if (formComponent instanceof HtmlSimpleValueComponent) {
-                String value = editRequest.getParameter(name);
+                String value = request.getParameter(name);
 
                 ((HtmlSimpleValueComponent) formComponent).setValue(value);
             }
         }
     }
 
-    private void updateDomain(List<IViewState> viewStates) {
+    protected void updateDomain(List<IViewState> viewStates) {
         List<MetaObject> metaObjectsToCommit = new ArrayList<MetaObject>();
         MetaObjectCollection metaObjectCollection = new MetaObjectCollection();
 
@@ -484,6 +529,8 @@ public class ComponentLifeCycle {
             throws Exception {
         boolean hasConvertError = false;
 
+        SlotLookup slots = new SlotLookup(viewState.getMetaObject());
+
         List<HtmlFormComponent> formComponents = collector.getFormComponents();
         for (HtmlFormComponent formComponent : formComponents) {
             MetaSlotKey targetSlot = formComponent.getTargetSlot();
@@ -492,7 +539,7 @@ public class ComponentLifeCycle {
                 continue;
             }
 
-            MetaSlot metaSlot = getMetaSlot(viewState.getMetaObject(), targetSlot);
+            MetaSlot metaSlot = slots.get(targetSlot);
 
             if (metaSlot == null) {
                 continue;
@@ -520,32 +567,66 @@ public class ComponentLifeCycle {
         return !hasConvertError;
     }
 
-    private MetaSlot getMetaSlot(MetaObject metaObject, MetaSlotKey targetSlot) {
-        if (metaObject instanceof MetaSlot) {
-            if (metaObject.getKey().equals(targetSlot)) {
-                return (MetaSlot) metaObject;
-            } else {
-                metaObject = ((MetaSlot) metaObject).getMetaObject();
-            }
+    private void addConvertError(IViewState viewState, MetaSlot metaSlot, Exception exception) {
+        viewState.addMessage(new ConversionMessage(metaSlot, exception.getLocalizedMessage()));
+    }
+
+    /*
+     * Finds the slots targeted by form components, indexing them on first use. Keys of objects being created have no code
+     * and cannot be hashed, so they are indexed by their string form, which is also what names the form components.
+     */
+    private static class SlotLookup {
+        private final MetaObject metaObject;
+        private Map<String, MetaSlot> slots;
+
+        public SlotLookup(MetaObject metaObject) {
+            this.metaObject = metaObject;
         }
 
-        for (MetaSlot slot : metaObject.getAllSlots()) {
-            if (slot.getKey().equals(targetSlot)) {
+        public MetaSlot get(MetaSlotKey key) {
+            MetaObject object = this.metaObject;
+            if (object instanceof MetaSlot) {
+                if (object.getKey().equals(key)) {
+                    return (MetaSlot) object;
+                } else {
+                    object = ((MetaSlot) object).getMetaObject();
+                }
+            }
+
+            if (this.slots == null) {
+                this.slots = new HashMap<String, MetaSlot>();
+                for (MetaSlot slot : object.getAllSlots()) {
+                    this.slots.putIfAbsent(slot.getKey().toString(), slot);
+                }
+            }
+
+            MetaSlot slot = this.slots.get(key.toString());
+            if (slot == null || slot.getKey().equals(key)) {
                 return slot;
             }
-        }
 
-        return null;
+            // equal keys have the same string form, but not the other way around
+            for (MetaSlot other : object.getAllSlots()) {
+                if (other.getKey().equals(key)) {
+                    return other;
+                }
+            }
+            return null;
+        }
     }
 
-    private void addConvertError(IViewState viewState, MetaSlot metaSlot, Exception exception) {
-        viewState.addMessage(new ConversionMessage(metaSlot, exception.getLocalizedMessage()));
+    private static class LifeCycleResult {
+        private boolean allValid = true;
+        private boolean anySkip;
+        private boolean anyCanceled;
+        private boolean anyBound;
     }
 
     private static class ViewStateHolder {
         private IViewState viewState;
         private HtmlComponent component;
         private ComponentCollector collector;
+        private ComponentIndex index;
         private boolean canceled;
 
         public ViewStateHolder(IViewState viewState) {
@@ -584,5 +665,13 @@ public class ComponentLifeCycle {
             this.collector = collector;
         }
 
+        public ComponentIndex getIndex() {
+            return index;
+        }
+
+        public void setIndex(ComponentIndex index) {
+            this.index = index;
+        }
+
     }
 }
@@ -45,7 +45,7 @@ public class EditRequest extends HttpServletRequestWrapper {
             String[] parameterValues = getParameterValues(LifeCycleConstants.VIEWSTATE_PARAM_NAME);
             if (parameterValues != null) {
                 for(String parameter : parameterValues) {
-                    this.viewStates.addAll(ViewState.decodeFromBase64(parameter));
+                    this.viewStates.addAll(ViewState.decodeFromBase64(parameter, this));
                 }
             }
         }
@@ -75,4 +75,15 @@ public class EditRequest extends HttpServletRequestWrapper {
             super("viewstate.user.changed");
         }
     }
+
+    /**
+     * Thrown when the view states of the request were kept in a {@link ViewStateStore} that no longer has them, usually
+     * because the form was open for too long or too many other forms were opened in the same session.
+     */
+    public static class ViewStateExpiredException extends RuntimeException {
+
+        public ViewStateExpiredException() {
+            super("viewstate.expired");
+        }
+    }
 }
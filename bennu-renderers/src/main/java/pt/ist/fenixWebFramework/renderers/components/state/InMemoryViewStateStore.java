@@ -0,0 +1,177 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+/**
+ * Keeps view states in the user's session, evicting the least recently used when there are more than
+ * <code>viewstate.store.maxEntries</code> and discarding those older than <code>viewstate.store.timeToLive</code> seconds.
+ * 
+ * Requests without a session are not stored, so anonymous pages keep sending their view states to the browser. The session
+ * attribute is set again after every change, so that replicated and persistent sessions see it.
+ */
+public class InMemoryViewStateStore implements ViewStateStore {
+
+    private static final String SESSION_ATTRIBUTE = InMemoryViewStateStore.class.getName();
+
+    private static final int TOKEN_LENGTH = 12;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final int maxEntries;
+
+    private final long timeToLive;
+
+    public InMemoryViewStateStore() {
+        this(RenderersConfigurationManager.getConfiguration().viewStateStoreMaxEntries(), TimeUnit.SECONDS
+                .toMillis(RenderersConfigurationManager.getConfiguration().viewStateStoreTimeToLive()));
+    }
+
+    public InMemoryViewStateStore(int maxEntries, long timeToLive) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public String store(HttpServletRequest request, byte[] payload) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        random.nextBytes(bytes);
+        String token = Base64.getEncoder().encodeToString(bytes);
+        Entries entries = getEntries(session);
+        entries.put(token, payload, currentTimeMillis());
+        session.setAttribute(SESSION_ATTRIBUTE, entries);
+        return token;
+    }
+
+    @Override
+    public byte[] retrieve(HttpServletRequest request, String token) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        Entries entries = getEntries(session);
+        byte[] payload = entries.get(token, currentTimeMillis());
+        session.setAttribute(SESSION_ATTRIBUTE, entries);
+        return payload;
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private Entries getEntries(HttpSession session) {
+        Entries entries = (Entries) session.getAttribute(SESSION_ATTRIBUTE);
+        if (entries == null) {
+            synchronized (session) {
+                entries = (Entries) session.getAttribute(SESSION_ATTRIBUTE);
+                if (entries == null) {
+                    entries = new Entries(maxEntries, timeToLive);
+                    session.setAttribute(SESSION_ATTRIBUTE, entries);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] payload;
+
+        private final long expiration;
+
+        Entry(byte[] payload, long expiration) {
+            this.payload = payload;
+            this.expiration = expiration;
+        }
+
+    }
+
+    private static final class Entries implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LeastRecentlyUsed entries;
+
+        private final long timeToLive;
+
+        Entries(int maxEntries, long timeToLive) {
+            this.timeToLive = timeToLive;
+            this.entries = new LeastRecentlyUsed(maxEntries);
+        }
+
+        synchronized void put(String token, byte[] payload, long now) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+                if (iterator.next().expiration < now) {
+                    iterator.remove();
+                }
+            }
+            entries.put(token, new Entry(payload, now + timeToLive));
+        }
+
+        synchronized byte[] get(String token, long now) {
+            Entry entry = entries.get(token);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiration < now) {
+                entries.remove(token);
+                return null;
+            }
+            return entry.payload;
+        }
+
+    }
+
+    private static final class LeastRecentlyUsed extends LinkedHashMap<String, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        LeastRecentlyUsed(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+
+    }
+
+}
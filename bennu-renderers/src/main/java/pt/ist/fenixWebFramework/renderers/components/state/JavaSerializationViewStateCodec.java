@@ -0,0 +1,58 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes view states with standard Java serialization, compressed with GZIP.
+ */
+public class JavaSerializationViewStateCodec implements ViewStateCodec {
+
+    @Override
+    public byte[] encode(List<IViewState> viewStates) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(new GZIPOutputStream(baos))) {
+            stream.writeObject(viewStates);
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<IViewState> decode(byte[] payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream stream = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            return (List<IViewState>) stream.readObject();
+        }
+    }
+
+    @Override
+    public boolean accepts(byte[] payload) {
+        return payload.length > 2 && payload[0] == (byte) GZIPInputStream.GZIP_MAGIC
+                && payload[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+}
@@ -18,11 +18,7 @@
  */
 package pt.ist.fenixWebFramework.renderers.components.state;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -33,8 +29,6 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -44,8 +38,13 @@ import org.fenixedu.bennu.core.domain.User;
 
 import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
 import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+import pt.ist.fenixWebFramework.renderers.utils.RenderingMetrics;
 
 public class ViewState implements IViewState {
 
@@ -79,8 +78,13 @@ public class ViewState implements IViewState {
 
     transient private HtmlComponent component;
 
+    // the component is only rendered when needed, see ComponentLifeCycle
+    transient private boolean componentDeferred;
+
     transient private HttpServletRequest request;
 
+    private ComponentBindings bindings;
+
     // Viewed object 
 
     private MetaObject metaObject;
@@ -146,12 +150,30 @@ public class ViewState implements IViewState {
 
     @Override
     public HtmlComponent getComponent() {
+        if (this.componentDeferred) {
+            this.componentDeferred = false;
+            this.component = ComponentLifeCycle.getInstance().renderDeferredComponent(this);
+        }
         return this.component;
     }
 
     @Override
     public void setComponent(HtmlComponent component) {
         this.component = component;
+        this.componentDeferred = false;
+    }
+
+    void deferComponent() {
+        this.component = null;
+        this.componentDeferred = true;
+    }
+
+    public ComponentBindings getBindings() {
+        return bindings;
+    }
+
+    public void setBindings(ComponentBindings bindings) {
+        this.bindings = bindings;
     }
 
     @Override
@@ -347,12 +369,65 @@ public class ViewState implements IViewState {
     // Serialization utils
     //
 
+    private static final ViewStateCodec CODEC = createCodec(RenderersConfigurationManager.getConfiguration().viewStateCodec());
+
+    private static final List<ViewStateCodec> CODECS = Arrays.asList(CODEC, new CompactViewStateCodec(),
+            new JavaSerializationViewStateCodec());
+
+    private static final ViewStateStore STORE = createStore(RenderersConfigurationManager.getConfiguration().viewStateStore());
+
+    /*
+     * Base64 never produces this character, so it tells store tokens apart from inline view states.
+     */
+    private static final String TOKEN_PREFIX = "~";
+
+    private static ViewStateCodec createCodec(String className) {
+        try {
+            return (ViewStateCodec) Class.forName(className).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            throw new RuntimeException("Could not create view state codec " + className, e);
+        }
+    }
+
+    private static ViewStateStore createStore(String className) {
+        if (className == null || className.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return (ViewStateStore) Class.forName(className.trim()).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            throw new RuntimeException("Could not create view state store " + className, e);
+        }
+    }
+
     public static String encodeToBase64(List<IViewState> viewStates) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ObjectOutputStream stream = new ObjectOutputStream(new GZIPOutputStream(baos))) {
-            stream.writeObject(viewStates);
+        return encodeToBase64(viewStates, null);
+    }
+
+    /**
+     * Encodes the given view states. If a {@link ViewStateStore} is configured and accepts them, they are kept on the server
+     * and only a signed token referring to them is returned.
+     */
+    public static String encodeToBase64(List<IViewState> viewStates, HttpServletRequest request) throws IOException {
+        return encodeToBase64(viewStates, request, STORE);
+    }
+
+    static String encodeToBase64(List<IViewState> viewStates, HttpServletRequest request, ViewStateStore store)
+            throws IOException {
+        RenderingMetrics metrics = RenderKit.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+
+        byte[] bytes = CODEC.encode(viewStates);
+        if (metrics != null) {
+            metrics.phase(RenderingMetrics.VIEWSTATE_ENCODE, System.nanoTime() - start, bytes.length);
+        }
+        if (store != null && request != null) {
+            String token = store.store(request, bytes);
+            if (token != null) {
+                return TOKEN_PREFIX + token + "_"
+                        + Base64.getEncoder().encodeToString(sign(token.getBytes(StandardCharsets.UTF_8)));
+            }
         }
-        byte[] bytes = baos.toByteArray();
         return Base64.getEncoder().encodeToString(bytes) + "_" + Base64.getEncoder().encodeToString(sign(bytes));
     }
 
@@ -377,24 +452,185 @@ public class ViewState implements IViewState {
         }
     }
 
-    private static Object decodeObjectFromBase64(String encodedState) throws IOException, ClassNotFoundException {
+    private static List<IViewState> decodeObjectFromBase64(String encodedState, HttpServletRequest request,
+            ViewStateStore store) throws IOException, ClassNotFoundException {
+        RenderingMetrics metrics = RenderKit.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+
         String[] parts = encodedState.split("_", 2);
         if (parts.length != 2) {
             throw invalidViewState();
         }
-        byte[] decodedForm = Base64.getDecoder().decode(parts[0]);
-        validate(decodedForm, Base64.getDecoder().decode(parts[1]));
-        ObjectInputStream stream = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(decodedForm)));
-        return stream.readObject();
+        byte[] decodedForm;
+        if (parts[0].startsWith(TOKEN_PREFIX)) {
+            String token = parts[0].substring(TOKEN_PREFIX.length());
+            validate(token.getBytes(StandardCharsets.UTF_8), Base64.getDecoder().decode(parts[1]));
+            decodedForm = store == null || request == null ? null : store.retrieve(request, token);
+            if (decodedForm == null) {
+                throw new EditRequest.ViewStateExpiredException();
+            }
+        } else {
+            decodedForm = Base64.getDecoder().decode(parts[0]);
+            validate(decodedForm, Base64.getDecoder().decode(parts[1]));
+        }
+        for (ViewStateCodec codec : CODECS) {
+            if (codec.accepts(decodedForm)) {
+                List<IViewState> viewStates = codec.decode(decodedForm);
+                if (metrics != null) {
+                    metrics.phase(RenderingMetrics.VIEWSTATE_DECODE, System.nanoTime() - start, decodedForm.length);
+                }
+                return viewStates;
+            }
+        }
+        throw invalidViewState();
     }
 
     private static RuntimeException invalidViewState() {
         return new IllegalArgumentException("Invalid ViewState provided");
     }
 
-    @SuppressWarnings("unchecked")
     public static List<IViewState> decodeFromBase64(String encodedState) throws IOException, ClassNotFoundException {
-        return (List<IViewState>) decodeObjectFromBase64(encodedState);
+        return decodeFromBase64(encodedState, RenderersRequestProcessorImpl.getCurrentRequest());
+    }
+
+    /**
+     * Decodes view states produced by {@link #encodeToBase64(List, HttpServletRequest)}, resolving store tokens in the
+     * session of the given request.
+     * 
+     * @throws EditRequest.ViewStateExpiredException if the view states referred by a token are no longer in the store
+     */
+    public static List<IViewState> decodeFromBase64(String encodedState, HttpServletRequest request) throws IOException,
+            ClassNotFoundException {
+        return decodeObjectFromBase64(encodedState, request, STORE);
+    }
+
+    static List<IViewState> decodeFromBase64(String encodedState, HttpServletRequest request, ViewStateStore store)
+            throws IOException, ClassNotFoundException {
+        return decodeObjectFromBase64(encodedState, request, store);
+    }
+
+    /*
+     * Used by CompactViewStateCodec. Transient fields are not written, just like with Java serialization.
+     */
+    void writeTo(CompactViewStateCodec.Output output) throws IOException {
+        output.writeString(id);
+        output.writeString(layout);
+        output.writeSize(properties == null ? 0 : properties.size(), properties == null);
+        if (properties != null) {
+            for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+                output.writeValue(entry.getKey());
+                output.writeValue(entry.getValue());
+            }
+        }
+        output.writeSize(attributes == null ? 0 : attributes.size(), attributes == null);
+        if (attributes != null) {
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                output.writeString(entry.getKey());
+                output.writeValue(entry.getValue());
+            }
+        }
+        output.writeSize(hiddenSlots == null ? 0 : hiddenSlots.size(), hiddenSlots == null);
+        if (hiddenSlots != null) {
+            for (HiddenSlot slot : hiddenSlots) {
+                output.writeString(slot.getName());
+                output.writeValue(slot.getConverter());
+                output.writeValue(slot.getKey());
+                output.writeBoolean(slot.isMultiple());
+                output.writeVarInt(slot.getValues().size());
+                for (String value : slot.getValues()) {
+                    output.writeString(value);
+                }
+            }
+        }
+        writeDestination(output, inputDestination);
+        output.writeSize(destinations == null ? 0 : destinations.size(), destinations == null);
+        if (destinations != null) {
+            for (Map.Entry<String, ViewDestination> entry : destinations.entrySet()) {
+                output.writeString(entry.getKey());
+                writeDestination(output, entry.getValue());
+            }
+        }
+        writeDestination(output, currentDestination);
+        output.writeValue(user);
+        output.writeValue(metaObject);
+        output.writeBoolean(bindings != null);
+        if (bindings != null) {
+            bindings.writeTo(output);
+        }
+        output.writeByte((visible ? 1 : 0) | (valid ? 2 : 0) | (skipUpdate ? 4 : 0) | (skipValidation ? 8 : 0)
+                | (updateComponentTree ? 16 : 0) | (postBack ? 32 : 0));
+    }
+
+    private static void writeDestination(CompactViewStateCodec.Output output, ViewDestination destination) throws IOException {
+        output.writeBoolean(destination != null);
+        if (destination != null) {
+            output.writeString(destination.getPath());
+            output.writeString(destination.getModule());
+            output.writeBoolean(destination.getRedirect());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static ViewState readFrom(CompactViewStateCodec.Input input) throws IOException, ClassNotFoundException {
+        ViewState viewState = new ViewState(input.readString());
+        viewState.layout = input.readString();
+        int size = input.readSize();
+        if (size >= 0) {
+            viewState.properties = new Properties();
+            for (int i = 0; i < size; i++) {
+                viewState.properties.put(input.readValue(), input.readValue());
+            }
+        }
+        size = input.readSize();
+        if (size >= 0) {
+            viewState.attributes = new Hashtable<String, Object>();
+            for (int i = 0; i < size; i++) {
+                viewState.attributes.put(input.readString(), input.readValue());
+            }
+        }
+        size = input.readSize();
+        if (size >= 0) {
+            viewState.hiddenSlots = new ArrayList<HiddenSlot>(size);
+            for (int i = 0; i < size; i++) {
+                HiddenSlot slot = new HiddenSlot(input.readString(), (Class<Converter>) input.readValue());
+                slot.setKey((MetaSlotKey) input.readValue());
+                slot.setMultiple(input.readBoolean());
+                int values = input.readVarInt();
+                for (int j = 0; j < values; j++) {
+                    slot.addValue(input.readString());
+                }
+                viewState.hiddenSlots.add(slot);
+            }
+        }
+        viewState.inputDestination = readDestination(input);
+        size = input.readSize();
+        if (size >= 0) {
+            viewState.destinations = new Hashtable<String, ViewDestination>();
+            for (int i = 0; i < size; i++) {
+                viewState.destinations.put(input.readString(), readDestination(input));
+            }
+        }
+        viewState.currentDestination = readDestination(input);
+        viewState.user = (User) input.readValue();
+        viewState.metaObject = (MetaObject) input.readValue();
+        if (input.readBoolean()) {
+            viewState.bindings = ComponentBindings.readFrom(input);
+        }
+        int flags = input.readUnsignedByte();
+        viewState.visible = (flags & 1) != 0;
+        viewState.valid = (flags & 2) != 0;
+        viewState.skipUpdate = (flags & 4) != 0;
+        viewState.skipValidation = (flags & 8) != 0;
+        viewState.updateComponentTree = (flags & 16) != 0;
+        viewState.postBack = (flags & 32) != 0;
+        return viewState;
+    }
+
+    private static ViewDestination readDestination(CompactViewStateCodec.Input input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        return new ViewDestination(input.readString(), input.readString(), input.readBoolean());
     }
 
     @Override
@@ -0,0 +1,43 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Converts the view states of a page to and from the bytes carried by the
+ * {@link LifeCycleConstants#VIEWSTATE_PARAM_NAME} hidden field. Signing and text encoding of those bytes are done by
+ * {@link ViewState}, so a codec only needs to care about the representation of the view states.
+ * 
+ * Several codecs may be active at the same time (for instance while pages rendered with a previous codec are still being
+ * submitted), so each codec must be able to recognize its own payloads.
+ */
+public interface ViewStateCodec {
+
+    public byte[] encode(List<IViewState> viewStates) throws IOException;
+
+    public List<IViewState> decode(byte[] payload) throws IOException, ClassNotFoundException;
+
+    /**
+     * @return <code>true</code> if the given payload was produced by this codec
+     */
+    public boolean accepts(byte[] payload);
+
+}
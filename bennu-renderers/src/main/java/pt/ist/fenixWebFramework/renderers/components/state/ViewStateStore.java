@@ -0,0 +1,43 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Keeps encoded view states in the server, so that pages only need to carry a token referring to them. Implementations
+ * receive the bytes produced by the {@link ViewStateCodec}, which makes them suitable for off-heap or disk-backed storage.
+ * 
+ * Tokens are signed by {@link ViewState} before being sent to the browser, but a store should still only return payloads
+ * that were stored for the same user, typically by scoping them to the session.
+ */
+public interface ViewStateStore {
+
+    /**
+     * @return the token that identifies the stored payload, or <code>null</code> if it could not be stored, in which case the
+     *         view states are sent to the browser
+     */
+    public String store(HttpServletRequest request, byte[] payload);
+
+    /**
+     * @return the payload associated with the given token, or <code>null</code> if it is unknown or expired
+     */
+    public byte[] retrieve(HttpServletRequest request, String token);
+
+}
@@ -21,10 +21,8 @@ package pt.ist.fenixWebFramework.renderers.components.tags;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.servlet.jsp.PageContext;
 
@@ -38,8 +36,23 @@ public class HtmlTag {
     private String name;
     private String text;
 
-    private Map<String, String> attributes;
+    private static final String[] NO_ATTRIBUTES = new String[0];
 
+    private static final String[] INDENTS = new String[32];
+
+    static {
+        INDENTS[0] = "";
+        for (int i = 1; i < INDENTS.length; i++) {
+            INDENTS[i] = INDENTS[i - 1] + DEFAULT_INDENT;
+        }
+    }
+
+    // attribute names and values in insertion order
+    private String[] attributeNames;
+    private String[] attributeValues;
+    private int attributeCount;
+
+    // created on the first child
     private List<HtmlTag> children;
 
     private boolean visible;
@@ -47,8 +60,8 @@ public class HtmlTag {
     private String preprendedComment;
 
     private HtmlTag() {
-        this.attributes = new HashMap<String, String>();
-        this.children = new ArrayList<HtmlTag>();
+        this.attributeNames = NO_ATTRIBUTES;
+        this.attributeValues = NO_ATTRIBUTES;
         this.text = "";
         this.visible = true;
         this.indented = true;
@@ -99,13 +112,46 @@ public class HtmlTag {
     }
 
     public void copyAttributes(HtmlTag tag) {
-        this.attributes.putAll(tag.attributes);
+        for (int i = 0; i < tag.attributeCount; i++) {
+            putAttribute(tag.attributeNames[i], tag.attributeValues[i]);
+        }
     }
 
     public void setAttribute(String name, String value) {
         if (name != null && value != null) {
-            this.attributes.put(name, value);
+            putAttribute(name, value);
+        }
+    }
+
+    private void putAttribute(String name, String value) {
+        int index = indexOfAttribute(name);
+        if (index >= 0) {
+            this.attributeValues[index] = value;
+            return;
         }
+
+        if (this.attributeCount == this.attributeNames.length) {
+            int capacity = Math.max(4, this.attributeCount * 2);
+            this.attributeNames = Arrays.copyOf(this.attributeNames, capacity);
+            this.attributeValues = Arrays.copyOf(this.attributeValues, capacity);
+        }
+        this.attributeNames[this.attributeCount] = name;
+        this.attributeValues[this.attributeCount] = value;
+        this.attributeCount++;
+    }
+
+    private int indexOfAttribute(String name) {
+        for (int i = 0; i < this.attributeCount; i++) {
+            if (this.attributeNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String getAttribute(String name) {
+        int index = indexOfAttribute(name);
+        return index >= 0 ? this.attributeValues[index] : null;
     }
 
     public void setAttribute(String name, Boolean value) {
@@ -121,11 +167,19 @@ public class HtmlTag {
     }
 
     public void removeAttribute(String name) {
-        this.attributes.remove(name);
+        int index = indexOfAttribute(name);
+        if (index >= 0) {
+            int moved = this.attributeCount - index - 1;
+            System.arraycopy(this.attributeNames, index + 1, this.attributeNames, index, moved);
+            System.arraycopy(this.attributeValues, index + 1, this.attributeValues, index, moved);
+            this.attributeCount--;
+            this.attributeNames[this.attributeCount] = null;
+            this.attributeValues[this.attributeCount] = null;
+        }
     }
 
     public boolean hasVisibleAttributes() {
-        return this.attributes.keySet().size() > 0;
+        return this.attributeCount > 0;
     }
 
     public void setText(String text) {
@@ -137,13 +191,20 @@ public class HtmlTag {
     }
 
     public void addChild(HtmlTag tag) {
-        this.children.add(tag);
+        getChildren().add(tag);
     }
 
     public List<HtmlTag> getChildren() {
+        if (this.children == null) {
+            this.children = new ArrayList<HtmlTag>(4);
+        }
         return this.children;
     }
 
+    private boolean hasChildren() {
+        return this.children != null && !this.children.isEmpty();
+    }
+
     public void writeTag(PageContext context) throws IOException {
         writeTag(context.getOut());
     }
@@ -165,13 +226,17 @@ public class HtmlTag {
     }
 
     protected void writeBody(Writer writer, String indent) throws IOException {
-        if (getChildren().size() > 0 && isIndented()) {
+        if (!hasChildren()) {
+            return;
+        }
+
+        if (isIndented()) {
             writer.write('\n');
         }
 
         for (HtmlTag child : getChildren()) {
             if (isIndented()) {
-                child.writeTag(writer, indent + DEFAULT_INDENT);
+                child.writeTag(writer, nextIndent(indent));
                 writer.write('\n');
             } else {
                 child.writeTag(writer, NO_INDENT);
@@ -179,6 +244,17 @@ public class HtmlTag {
         }
     }
 
+    /**
+     * Returns the indentation of the children of a tag with the given indentation, reusing the common ones.
+     */
+    static String nextIndent(String indent) {
+        int level = indent.length() / DEFAULT_INDENT.length();
+        if (level + 1 < INDENTS.length && INDENTS[level] == indent) {
+            return INDENTS[level + 1];
+        }
+        return indent + DEFAULT_INDENT;
+    }
+
     protected void writeOpenTag(Writer writer, String indent) throws IOException {
         if (getPreprendedComment() != null) {
             writer.write(getPreprendedComment());
@@ -190,19 +266,7 @@ public class HtmlTag {
         if (name != null) {
             writer.write('<');
             writer.write(name);
-
-            for (final Entry<String, String> attributeEntry : attributes.entrySet()) {
-                final String attributeName = attributeEntry.getKey();
-                final String attributeValue = attributeEntry.getValue();
-                if (attributeValue != null) {
-                    writer.write(' ');
-                    writer.write(attributeName);
-                    writer.write("=\"");
-                    writer.write(attributeValue);
-                    writer.write('"');
-                }
-            }
-
+            writeAttributes(writer);
             writer.write('>');
         }
 
@@ -211,8 +275,18 @@ public class HtmlTag {
         }
     }
 
+    void writeAttributes(Writer writer) throws IOException {
+        for (int i = 0; i < this.attributeCount; i++) {
+            writer.write(' ');
+            writer.write(this.attributeNames[i]);
+            writer.write("=\"");
+            writer.write(this.attributeValues[i]);
+            writer.write('"');
+        }
+    }
+
     protected void writeCloseTag(Writer writer, String indent) throws IOException {
-        if (this.children.size() > 0 && isIndented()) {
+        if (hasChildren() && isIndented()) {
             writer.write(indent);
         }
 
@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.tags;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Streaming counterpart of {@link HtmlTag}: tags are written as they are
+ * opened and closed, so components can draw themselves without first building
+ * a tree of tags. The output, including indentation, is the same as the one of
+ * the equivalent tree written with {@link HtmlTag#writeTag(Writer)}.
+ * 
+ * Whole tags can be mixed in with {@link #writeTag(HtmlTag)}.
+ */
+public class HtmlWriter {
+
+    private final Writer writer;
+
+    private final boolean indentation;
+
+    // one entry per open tag
+    private String[] names = new String[16];
+    private String[] indents = new String[16];
+    private boolean[] indented = new boolean[16];
+    private boolean[] hasChildren = new boolean[16];
+    private int depth;
+
+    // number of open tags that are not visible, nothing is written while positive
+    private int hidden;
+
+    // the start tag was written without the closing '>'
+    private boolean startTagOpen;
+
+    public HtmlWriter(Writer writer) {
+        this(writer, true);
+    }
+
+    /**
+     * @param indentation
+     *            <code>false</code> to write everything without indentation
+     */
+    public HtmlWriter(Writer writer, boolean indentation) {
+        this.writer = writer;
+        this.indentation = indentation;
+    }
+
+    public Writer getWriter() {
+        return writer;
+    }
+
+    public void startTag(String name) throws IOException {
+        startTag(name, true, true, null);
+    }
+
+    /**
+     * Opens a tag with the name, attributes, comment and text of the given tag.
+     * Its children are not written, they are expected to be written before the
+     * matching {@link #endTag()}.
+     */
+    public void startTag(HtmlTag tag) throws IOException {
+        startTag(tag.getName(), tag.isVisible(), tag.isIndented(), tag.getPreprendedComment());
+
+        if (hidden == 0 && tag.getName() != null) {
+            tag.writeAttributes(writer);
+        }
+        text(tag.getText());
+    }
+
+    private void startTag(String name, boolean visible, boolean indentedTag, String comment) throws IOException {
+        String indent = childIndent();
+
+        if (depth == names.length) {
+            int capacity = depth * 2;
+            names = Arrays.copyOf(names, capacity);
+            indents = Arrays.copyOf(indents, capacity);
+            indented = Arrays.copyOf(indented, capacity);
+            hasChildren = Arrays.copyOf(hasChildren, capacity);
+        }
+
+        boolean isIndented = indentedTag && !HtmlTag.NO_INDENT.equals(indent);
+        names[depth] = name;
+        indents[depth] = indent;
+        indented[depth] = isIndented;
+        hasChildren[depth] = false;
+        depth++;
+
+        if (!visible || hidden > 0) {
+            hidden++;
+            return;
+        }
+
+        if (comment != null) {
+            writer.write(comment);
+        }
+        if (isIndented) {
+            writer.write(indent);
+        }
+        if (name != null) {
+            writer.write('<');
+            writer.write(name);
+            startTagOpen = true;
+        }
+    }
+
+    public void attribute(String name, String value) throws IOException {
+        if (name != null && value != null && hidden == 0 && startTagOpen) {
+            writer.write(' ');
+            writer.write(name);
+            writer.write("=\"");
+            writer.write(value);
+            writer.write('"');
+        }
+    }
+
+    public void attribute(String name, Boolean value) throws IOException {
+        if (value != null) {
+            attribute(name, value.toString().toLowerCase());
+        }
+    }
+
+    public void attribute(String name, Number value) throws IOException {
+        if (value != null) {
+            attribute(name, value.toString());
+        }
+    }
+
+    public void text(String text) throws IOException {
+        if (hidden > 0) {
+            return;
+        }
+        closeStartTag();
+        if (text != null) {
+            writer.write(text);
+        }
+    }
+
+    public void endTag() throws IOException {
+        depth--;
+
+        if (hidden > 0) {
+            hidden--;
+        } else {
+            closeStartTag();
+
+            if (hasChildren[depth] && indented[depth]) {
+                writer.write(indents[depth]);
+            }
+            if (names[depth] != null) {
+                writer.write("</");
+                writer.write(names[depth]);
+                writer.write('>');
+            }
+        }
+
+        names[depth] = null;
+        endChild();
+    }
+
+    /**
+     * Writes a whole tag, with its children, in the current position.
+     */
+    public void writeTag(HtmlTag tag) throws IOException {
+        String indent = childIndent();
+
+        if (hidden == 0) {
+            tag.writeTag(writer, indent);
+        }
+
+        endChild();
+    }
+
+    public void flush() throws IOException {
+        closeStartTag();
+        writer.flush();
+    }
+
+    /*
+     * Registers a new child of the current tag and returns the indentation it should use.
+     */
+    private String childIndent() throws IOException {
+        if (depth == 0) {
+            return indentation ? "" : HtmlTag.NO_INDENT;
+        }
+
+        int parent = depth - 1;
+        if (hidden == 0) {
+            closeStartTag();
+            if (!hasChildren[parent] && indented[parent]) {
+                writer.write('\n');
+            }
+        }
+        hasChildren[parent] = true;
+
+        return indented[parent] ? HtmlTag.nextIndent(indents[parent]) : HtmlTag.NO_INDENT;
+    }
+
+    private void endChild() throws IOException {
+        if (depth > 0 && indented[depth - 1] && hidden == 0) {
+            writer.write('\n');
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            writer.write('>');
+            startTagOpen = false;
+        }
+    }
+}
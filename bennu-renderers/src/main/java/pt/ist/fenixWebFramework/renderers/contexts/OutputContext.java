@@ -46,4 +46,24 @@ public final class OutputContext extends PresentationContext {
         return context;
     }
 
+    /**
+     * Creates a context configured like this one but presenting another
+     * object, so that several objects can be presented at the same time, as
+     * if each had been given to this context.
+     */
+    public OutputContext createCopy(MetaObject metaObject) {
+        OutputContext context = new OutputContext();
+
+        context.setParentContext(getParentContext());
+        context.setRenderMode(getRenderMode());
+        context.setSchema(getSchema());
+        context.setLayout(getLayout());
+        context.setProperties(getProperties());
+        context.setViewState(getViewState());
+        context.setRendererType(getRendererType());
+        context.setMetaObject(metaObject);
+
+        return context;
+    }
+
 }
@@ -23,6 +23,7 @@ import java.util.Properties;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderMode;
 
 public abstract class PresentationContext {
@@ -41,6 +42,8 @@ public abstract class PresentationContext {
 
     private MetaObject metaObject;
 
+    private Class<?> rendererType;
+
     public PresentationContext() {
         super();
 
@@ -125,5 +128,17 @@ public abstract class PresentationContext {
         this.metaObject = metaObject;
     }
 
+    /**
+     * The class of the first renderer that used this context. Only kept while
+     * {@link RenderKit#getMetrics() rendering metrics} are enabled.
+     */
+    public Class<?> getRendererType() {
+        return rendererType;
+    }
+
+    public void setRendererType(Class<?> rendererType) {
+        this.rendererType = rendererType;
+    }
+
     public abstract PresentationContext createSubContext(MetaObject metaObject);
 }
@@ -18,6 +18,9 @@
  */
 package pt.ist.fenixWebFramework.renderers.layouts;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +30,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell;
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableHeader;
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.utils.ParallelRendering;
 
 public abstract class TabularLayout extends Layout {
     protected static Logger logger = LoggerFactory.getLogger(TabularLayout.class);
@@ -39,6 +43,8 @@ public abstract class TabularLayout extends Layout {
 
     private HtmlTable table;
 
+    private boolean concurrentRows;
+
     public String getCaption() {
         return this.caption;
     }
@@ -148,36 +154,86 @@ public abstract class TabularLayout extends Layout {
             }
         }
 
-        for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
-            HtmlTableRow row = table.createRow();
+        concurrentRows = isParallelRowRendering(rowNumber);
+        if (concurrentRows) {
+            List<HtmlTableRow> rows = new ArrayList<HtmlTableRow>(rowNumber);
+            for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
+                rows.add(table.createRow());
+            }
 
-            try {
-                for (int columnIndex = 0; columnIndex < columnNumber; columnIndex++) {
-                    HtmlTableCell cell = row.createCell();
+            boolean[] created = new boolean[rowNumber];
+            ParallelRendering.forEach(rowNumber,
+                    rowIndex -> created[rowIndex] = createCells(rows.get(rowIndex), rowIndex, columnNumber));
 
-                    if (isHeader(rowIndex, columnIndex)) {
-                        cell.setType(HtmlTableCell.CellType.HEADER);
-                    }
-
-                    costumizeCell(cell, rowIndex, columnIndex);
-                    if (cell.getColspan() != null) {
-                        columnIndex += cell.getColspan() - 1;
-                    }
-                    if (getCellClasses(rowIndex, columnIndex) != null) {
-                        cell.addClass(getCellClasses(rowIndex, columnIndex));
-                    }
+            for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
+                if (!created[rowIndex]) {
+                    table.removeRow(rows.get(rowIndex));
+                }
+            }
+        } else {
+            for (int rowIndex = 0; rowIndex < rowNumber; rowIndex++) {
+                HtmlTableRow row = table.createRow();
 
-                    cell.setBody(getComponent(rowIndex, columnIndex));
+                if (!createCells(row, rowIndex, columnNumber)) {
+                    table.removeRow(row);
                 }
-            } catch (Exception e) {
-                logger.warn("while generating table row " + rowIndex + " catched exception ", e);
-                table.removeRow(row);
             }
         }
 
         return table;
     }
 
+    /**
+     * Fills the row with its cells.
+     * 
+     * @return <code>false</code> if the row could not be created and must be
+     *         left out of the table
+     */
+    protected boolean createCells(HtmlTableRow row, int rowIndex, int columnNumber) {
+        try {
+            for (int columnIndex = 0; columnIndex < columnNumber; columnIndex++) {
+                HtmlTableCell cell = row.createCell();
+
+                if (isHeader(rowIndex, columnIndex)) {
+                    cell.setType(HtmlTableCell.CellType.HEADER);
+                }
+
+                costumizeCell(cell, rowIndex, columnIndex);
+                if (cell.getColspan() != null) {
+                    columnIndex += cell.getColspan() - 1;
+                }
+                if (getCellClasses(rowIndex, columnIndex) != null) {
+                    cell.addClass(getCellClasses(rowIndex, columnIndex));
+                }
+
+                cell.setBody(getComponent(rowIndex, columnIndex));
+            }
+        } catch (Exception e) {
+            logger.warn("while generating table row " + rowIndex + " catched exception ", e);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Layouts whose cells can be created from several threads at the same time
+     * may return <code>true</code> to have the rows of large tables created
+     * concurrently, see {@link ParallelRendering}. Rows keep their order.
+     */
+    protected boolean isParallelRowRendering(int rowNumber) {
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if the rows of the table being created may be
+     *         created concurrently, as decided once by
+     *         {@link #isParallelRowRendering(int)} when the table was started
+     */
+    protected boolean isRenderingRowsConcurrently() {
+        return concurrentRows;
+    }
+
     protected boolean hasHeader() {
         return false;
     }
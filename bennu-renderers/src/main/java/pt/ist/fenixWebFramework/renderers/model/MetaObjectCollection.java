@@ -19,7 +19,10 @@
 package pt.ist.fenixWebFramework.renderers.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.fenixedu.bennu.core.domain.User;
 
@@ -55,6 +58,57 @@ public class MetaObjectCollection extends MetaObject {
         return this.metaObjects.remove(metaObject);
     }
 
+    /**
+     * Indexes the meta objects by the object they wrap. When several meta objects wrap equal objects the first one is kept.
+     */
+    private Map<Object, MetaObject> indexByObject() {
+        Map<Object, MetaObject> index = new HashMap<Object, MetaObject>(this.metaObjects.size() * 2);
+
+        for (MetaObject metaObject : this.metaObjects) {
+            Object object = metaObject.getObject();
+            if (object != null) {
+                index.putIfAbsent(object, metaObject);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Finds the meta objects that wrap each of the given objects, in the same order. Objects that are not wrapped by any
+     * meta object of this collection are skipped.
+     * 
+     * Each object is matched with the first meta object that wraps an equal object. Objects that are not found in the
+     * hash index are compared with <code>equals</code> against every wrapped object, so objects that override
+     * <code>equals</code> without <code>hashCode</code> are still found.
+     */
+    public List<MetaObject> getMetaObjectsFor(Collection<?> objects) {
+        Map<Object, MetaObject> index = indexByObject();
+        List<MetaObject> result = new ArrayList<MetaObject>(objects.size());
+
+        for (Object object : objects) {
+            MetaObject metaObject = index.get(object);
+            if (metaObject == null && object != null) {
+                metaObject = findEqual(object);
+            }
+            if (metaObject != null) {
+                result.add(metaObject);
+            }
+        }
+
+        return result;
+    }
+
+    private MetaObject findEqual(Object object) {
+        for (MetaObject metaObject : this.metaObjects) {
+            if (object.equals(metaObject.getObject())) {
+                return metaObject;
+            }
+        }
+
+        return null;
+    }
+
     @Override
     public void setUser(User user) {
         super.setUser(user);
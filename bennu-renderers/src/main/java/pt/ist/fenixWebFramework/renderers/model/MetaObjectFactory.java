@@ -22,14 +22,11 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.List;
 
 import pt.ist.fenixWebFramework.rendererExtensions.factories.CreationDomainMetaObject;
 import pt.ist.fenixWebFramework.rendererExtensions.factories.DomainMetaObject;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.schemas.SchemaSlotDescription;
-import pt.ist.fenixWebFramework.renderers.schemas.Signature;
-import pt.ist.fenixWebFramework.renderers.schemas.SignatureParameter;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixframework.DomainObject;
 
@@ -97,9 +94,10 @@ public final class MetaObjectFactory {
 
         metaObject.setSchema(schema);
 
-        addSlotDescriptions(schema, metaObject);
-        setInstanceCreator(type, schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
+        SchemaTemplate template = SchemaTemplate.of(schema);
+        MetaSlot[] slots = template.addSlots(metaObject);
+        template.setInstanceCreator(type, metaObject, slots);
+        template.addCompositeSlotSetters(metaObject, slots);
 
         return metaObject;
     }
@@ -109,62 +107,17 @@ public final class MetaObjectFactory {
 
         metaObject.setSchema(schema);
 
-        addSlotDescriptions(schema, metaObject);
-        setInstanceCreator(schema.getType(), schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
+        SchemaTemplate template = SchemaTemplate.of(schema);
+        MetaSlot[] slots = template.addSlots(metaObject);
+        template.setInstanceCreator(schema.getType(), metaObject, slots);
+        template.addCompositeSlotSetters(metaObject, slots);
 
         return metaObject;
     }
 
-    private static void setInstanceCreator(Class type, Schema schema, MetaObject metaObject) {
-        Signature signature = schema.getConstructor();
-
-        if (signature != null) {
-            InstanceCreator creator = new InstanceCreator(type);
-
-            for (SignatureParameter parameter : signature.getParameters()) {
-                SchemaSlotDescription description = parameter.getSlotDescription();
-
-                for (MetaSlot slot : metaObject.getAllSlots()) {
-                    if (slot.getName().equals(description.getSlotName())) {
-                        creator.addArgument(slot, parameter.getType());
-                    }
-                }
-            }
-
-            metaObject.setInstanceCreator(creator);
-        }
-    }
-
-    private static void addSlotDescriptions(Schema schema, MetaObject metaObject) {
-        List<SchemaSlotDescription> slotDescriptions = schema.getSlotDescriptions();
-        for (SchemaSlotDescription description : slotDescriptions) {
-            MetaSlot metaSlot = createMetaSlot(metaObject, description);
-
-            if (!description.isHidden()) {
-                metaObject.addSlot(metaSlot);
-            } else {
-                metaObject.addHiddenSlot(metaSlot);
-            }
-        }
-    }
-
-    private static void addCompositeSlotSetters(Schema schema, SimpleMetaObject metaObject) {
-        for (Signature setterSignature : schema.getSpecialSetters()) {
-            CompositeSlotSetter compositeSlotSetter = new CompositeSlotSetter(metaObject, setterSignature.getName());
-
-            for (SignatureParameter parameter : setterSignature.getParameters()) {
-                SchemaSlotDescription description = parameter.getSlotDescription();
-
-                for (MetaSlot slot : metaObject.getAllSlots()) {
-                    if (slot.getName().equals(description.getSlotName())) {
-                        compositeSlotSetter.addArgument(slot, parameter.getType());
-                    }
-                }
-            }
-
-            metaObject.addCompositeSetter(compositeSlotSetter);
-        }
+    private static void addSlotDescriptions(Schema schema, SimpleMetaObject metaObject) {
+        SchemaTemplate template = SchemaTemplate.of(schema);
+        template.addCompositeSlotSetters(metaObject, template.addSlots(metaObject));
     }
 
     private static MetaObject createOneMetaObject(Object object, Schema schema) {
@@ -178,13 +131,12 @@ public final class MetaObjectFactory {
             result = new PrimitiveMetaObject(object);
         } else if (object != null && !(object instanceof Serializable)) {
             TransientMetaObject metaObject = new TransientMetaObject(object);
-            addSlotDescriptions(schema, metaObject);
+            SchemaTemplate.of(schema).addSlots(metaObject);
             result = metaObject;
         } else {
             SimpleMetaObject metaObject = new SimpleMetaObject(object);
 
             addSlotDescriptions(schema, metaObject);
-            addCompositeSlotSetters(schema, metaObject);
 
             result = metaObject;
         }
@@ -199,7 +151,6 @@ public final class MetaObjectFactory {
         metaObject.setSchema(schema);
 
         addSlotDescriptions(schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
 
         return metaObject;
     }
@@ -222,6 +173,10 @@ public final class MetaObjectFactory {
     }
 
     private static MetaSlot createMetaSlot(MetaObject metaObject, SchemaSlotDescription slotDescription) {
+        return createMetaSlot(metaObject, slotDescription, RenderKit.getInstance().findSchema(slotDescription.getSchema()));
+    }
+
+    static MetaSlot createMetaSlot(MetaObject metaObject, SchemaSlotDescription slotDescription, Schema schema) {
         MetaSlot metaSlot;
 
         if (metaObject instanceof CreationMetaObject || metaObject instanceof CreationDomainMetaObject) {
@@ -235,7 +190,7 @@ public final class MetaObjectFactory {
         metaSlot.setLabelKey(slotDescription.getKey());
         metaSlot.setLabelArg0(slotDescription.getArg0());
         metaSlot.setBundle(slotDescription.getBundle());
-        metaSlot.setSchema(RenderKit.getInstance().findSchema(slotDescription.getSchema()));
+        metaSlot.setSchema(schema);
         metaSlot.setLayout(slotDescription.getLayout());
         metaSlot.setValidators(slotDescription.getValidators());
         metaSlot.setDefaultValue(slotDescription.getDefaultValue());
@@ -18,15 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.model;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.fenixedu.bennu.core.domain.User;
 
 import pt.ist.fenixWebFramework.rendererExtensions.validators.RequiredAutoCompleteSelectionValidator;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.renderers.utils.RendererPropertyUtils;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
@@ -224,7 +223,7 @@ public class MetaSlot extends MetaObject {
                 if (getName().equals("this")) {
                     return getMetaObject().getObject();
                 }
-                return PropertyUtils.getProperty(getMetaObject().getObject(), getName());
+                return PropertyAccessors.getProperty(getMetaObject().getObject(), getName());
             } catch (Exception e) {
                 throw new RuntimeException("could not read property '" + getName() + "' from object "
                         + getMetaObject().getObject(), e);
@@ -382,14 +381,8 @@ public class MetaSlot extends MetaObject {
     public List<HtmlValidator> getValidatorsList() {
         List<HtmlValidator> validators = new ArrayList<HtmlValidator>();
         for (ValidatorProperties validatorPair : this.validators) {
-            Constructor<HtmlValidator> constructor;
             try {
-                constructor = validatorPair.getType().getConstructor(new Class[] {});
-
-                HtmlValidator validator = constructor.newInstance();
-                RenderUtils.setProperties(validator, validatorPair.getProperties());
-
-                validators.add(validator);
+                validators.add(validatorPair.newValidator());
             } catch (Exception e) {
                 throw new RuntimeException("could not create validator '" + validatorPair.getType().getName() + "' for slot '"
                         + getName() + "': ", e);
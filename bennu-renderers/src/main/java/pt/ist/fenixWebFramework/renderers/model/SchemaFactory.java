@@ -35,6 +35,16 @@ import pt.ist.fenixframework.dml.Slot;
 
 public final class SchemaFactory {
 
+    /*
+     * Schemas generated from the type's properties or domain slots never change, so they are computed only once.
+     */
+    private static final ClassValue<Schema> schemas = new ClassValue<Schema>() {
+        @Override
+        protected Schema computeValue(Class<?> type) {
+            return DomainObject.class.isAssignableFrom(type) ? createSchemaForDomainObject(type) : createSchema(type);
+        }
+    };
+
     public static Schema create(Object object) {
         if (object instanceof DomainObject) {
             return getSchemaForDomainObject(object.getClass());
@@ -45,10 +55,10 @@ public final class SchemaFactory {
     }
 
     public static Schema create(Class<?> type) {
-        if (DomainObject.class.isAssignableFrom(type)) {
-            return getSchemaForDomainObject(type);
-        }
+        return schemas.get(type);
+    }
 
+    private static Schema createSchema(Class<?> type) {
         Schema schema = new Schema(type);
 
         if (Collection.class.isAssignableFrom(type)) {
@@ -77,6 +87,10 @@ public final class SchemaFactory {
     }
 
     private static Schema getSchemaForDomainObject(Class<?> type) {
+        return schemas.get(type);
+    }
+
+    private static Schema createSchemaForDomainObject(Class<?> type) {
         DomainClass domainClass = DomainModelUtil.getDomainClassFor((Class<? extends DomainObject>) type);
 
         Schema schema = new Schema(type);
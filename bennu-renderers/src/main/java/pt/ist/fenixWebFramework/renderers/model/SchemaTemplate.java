@@ -0,0 +1,179 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.schemas.SchemaSlotDescription;
+import pt.ist.fenixWebFramework.renderers.schemas.Signature;
+import pt.ist.fenixWebFramework.renderers.schemas.SignatureParameter;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The slot layout of a schema, computed once and shared by all the meta objects
+ * created with it: the slot descriptions in meta object order, the schemas of
+ * each slot, and the slots used by the constructor and by each special setter.
+ * 
+ * A template is rebuilt when its schema is modified or the render kit is reset.
+ */
+final class SchemaTemplate {
+
+    private static final Cache<Schema, SchemaTemplate> templates = CacheBuilder.newBuilder().weakKeys().build();
+
+    static SchemaTemplate of(Schema schema) {
+        SchemaTemplate template = templates.getIfPresent(schema);
+        if (template == null || !template.isCurrent(schema)) {
+            template = new SchemaTemplate(schema);
+            templates.put(schema, template);
+        }
+        return template;
+    }
+
+    private final int modifications;
+
+    private final RenderKit renderKit;
+
+    private final SchemaSlotDescription[] slots;
+
+    private final Schema[] slotSchemas;
+
+    private final int visibleSlots;
+
+    private final Binding constructor;
+
+    private final Binding[] setters;
+
+    private SchemaTemplate(Schema schema) {
+        this.modifications = schema.getModifications();
+        this.renderKit = RenderKit.getInstance();
+
+        List<SchemaSlotDescription> visible = new ArrayList<SchemaSlotDescription>();
+        List<SchemaSlotDescription> hidden = new ArrayList<SchemaSlotDescription>();
+        for (SchemaSlotDescription description : schema.getSlotDescriptions()) {
+            (description.isHidden() ? hidden : visible).add(description);
+        }
+
+        this.visibleSlots = visible.size();
+        visible.addAll(hidden);
+        this.slots = visible.toArray(new SchemaSlotDescription[visible.size()]);
+
+        this.slotSchemas = new Schema[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            slotSchemas[i] = renderKit.findSchema(slots[i].getSchema());
+        }
+
+        this.constructor = schema.getConstructor() != null ? bind(schema.getConstructor()) : null;
+
+        this.setters = new Binding[schema.getSpecialSetters().size()];
+        for (int i = 0; i < setters.length; i++) {
+            setters[i] = bind(schema.getSpecialSetters().get(i));
+        }
+    }
+
+    private boolean isCurrent(Schema schema) {
+        return modifications == schema.getModifications() && renderKit == RenderKit.getInstance();
+    }
+
+    private Binding bind(Signature signature) {
+        List<Integer> indexes = new ArrayList<Integer>();
+        List<Class> types = new ArrayList<Class>();
+
+        for (SignatureParameter parameter : signature.getParameters()) {
+            String slotName = parameter.getSlotDescription().getSlotName();
+
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i].getSlotName().equals(slotName)) {
+                    indexes.add(i);
+                    types.add(parameter.getType());
+                }
+            }
+        }
+
+        int[] slotIndexes = new int[indexes.size()];
+        for (int i = 0; i < slotIndexes.length; i++) {
+            slotIndexes[i] = indexes.get(i);
+        }
+        return new Binding(signature.getName(), slotIndexes, types.toArray(new Class[types.size()]));
+    }
+
+    /**
+     * Adds the slots of this template to the meta object and returns them in
+     * {@link MetaObject#getAllSlots()} order.
+     */
+    MetaSlot[] addSlots(MetaObject metaObject) {
+        MetaSlot[] metaSlots = new MetaSlot[slots.length];
+
+        for (int i = 0; i < slots.length; i++) {
+            MetaSlot metaSlot = MetaObjectFactory.createMetaSlot(metaObject, slots[i], slotSchemas[i]);
+
+            if (i < visibleSlots) {
+                metaObject.addSlot(metaSlot);
+            } else {
+                metaObject.addHiddenSlot(metaSlot);
+            }
+
+            metaSlots[i] = metaSlot;
+        }
+
+        return metaSlots;
+    }
+
+    void addCompositeSlotSetters(SimpleMetaObject metaObject, MetaSlot[] metaSlots) {
+        for (Binding setter : setters) {
+            CompositeSlotSetter compositeSlotSetter = new CompositeSlotSetter(metaObject, setter.name);
+
+            for (int i = 0; i < setter.slots.length; i++) {
+                compositeSlotSetter.addArgument(metaSlots[setter.slots[i]], setter.types[i]);
+            }
+
+            metaObject.addCompositeSetter(compositeSlotSetter);
+        }
+    }
+
+    void setInstanceCreator(Class type, MetaObject metaObject, MetaSlot[] metaSlots) {
+        if (constructor != null) {
+            InstanceCreator creator = new InstanceCreator(type);
+
+            for (int i = 0; i < constructor.slots.length; i++) {
+                creator.addArgument(metaSlots[constructor.slots[i]], constructor.types[i]);
+            }
+
+            metaObject.setInstanceCreator(creator);
+        }
+    }
+
+    private static final class Binding {
+        private final String name;
+
+        private final int[] slots;
+
+        private final Class[] types;
+
+        private Binding(String name, int[] slots, Class[] types) {
+            this.name = name;
+            this.slots = slots;
+            this.types = types;
+        }
+    }
+}
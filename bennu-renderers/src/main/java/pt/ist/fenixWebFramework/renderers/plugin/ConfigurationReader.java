@@ -266,7 +266,7 @@ public class ConfigurationReader {
                 NodeList setterElements = schemaElement.getElementsByTagName("setter");
 
                 if (setterElements.getLength() > 0) {
-                    schema.getSpecialSetters().clear();
+                    schema.clearSpecialSetters();
                 }
 
                 for (Element setterElement : iterable(setterElements)) {
@@ -19,8 +19,10 @@
 package pt.ist.fenixWebFramework.renderers.schemas;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Schema {
 
@@ -32,6 +34,8 @@ public class Schema {
     private Signature constructor;
     private final List<Signature> setters;
 
+    private final AtomicInteger modifications = new AtomicInteger();
+
     public Schema(String name, Class type) {
         this.name = name;
         this.type = type;
@@ -67,6 +71,7 @@ public class Schema {
 
     public void setType(Class type) {
         this.type = type;
+        this.modifications.incrementAndGet();
     }
 
     public Signature getConstructor() {
@@ -75,10 +80,11 @@ public class Schema {
 
     public void setConstructor(Signature constructor) {
         this.constructor = constructor;
+        this.modifications.incrementAndGet();
     }
 
     public List<SchemaSlotDescription> getSlotDescriptions() {
-        return slotDescriptions;
+        return Collections.unmodifiableList(slotDescriptions);
     }
 
     public SchemaSlotDescription getSlotDescription(String slotName) {
@@ -99,6 +105,7 @@ public class Schema {
         } else {
             this.slotDescriptions.add(slotDescription);
         }
+        this.modifications.incrementAndGet();
     }
 
     private int findSlotIndex(String name) {
@@ -116,7 +123,7 @@ public class Schema {
 
     public void removeSlotDescription(SchemaSlotDescription slotDescription) {
         if (this.slotDescriptions.remove(slotDescription)) {
-            for (Iterator<Signature> iter = getSpecialSetters().iterator(); iter.hasNext();) {
+            for (Iterator<Signature> iter = this.setters.iterator(); iter.hasNext();) {
                 Signature signature = iter.next();
 
                 for (SignatureParameter parameter : signature.getParameters()) {
@@ -126,14 +133,28 @@ public class Schema {
                     }
                 }
             }
+            this.modifications.incrementAndGet();
         }
     }
 
     public void addSpecialSetter(Signature setterSignature) {
         this.setters.add(setterSignature);
+        this.modifications.incrementAndGet();
+    }
+
+    public void clearSpecialSetters() {
+        this.setters.clear();
+        this.modifications.incrementAndGet();
     }
 
     public List<Signature> getSpecialSetters() {
-        return this.setters;
+        return Collections.unmodifiableList(this.setters);
+    }
+
+    /**
+     * @return a counter that changes whenever the slots, setters, constructor or type of this schema change
+     */
+    public int getModifications() {
+        return this.modifications.get();
     }
 }
@@ -19,6 +19,7 @@
 package pt.ist.fenixWebFramework.renderers.taglib;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.List;
@@ -30,7 +31,6 @@ import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.PageContext;
 import javax.servlet.jsp.tagext.TagSupport;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.fenixedu.bennu.core.security.Authenticate;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -38,8 +38,10 @@ import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.RenderingMetrics;
 
 public abstract class BaseRenderObjectTag extends TagSupport {
 
@@ -205,7 +207,7 @@ public abstract class BaseRenderObjectTag extends TagSupport {
     protected Object getTargetObjectByProperty(Object object) {
         if (object != null && getProperty() != null) {
             try {
-                return PropertyUtils.getProperty(object, getProperty());
+                return PropertyAccessors.getProperty(object, getProperty());
             } catch (Exception e) {
                 throw new RuntimeException("object '" + object + "' does not have property '" + getProperty() + "'", e);
             }
@@ -255,7 +257,12 @@ public abstract class BaseRenderObjectTag extends TagSupport {
         HtmlComponent component = renderObject(context, object);
 
         try {
-            drawComponent(context, component);
+            RenderingMetrics metrics = RenderKit.getMetrics();
+            if (metrics == null) {
+                drawComponent(context, component);
+            } else {
+                drawMeasuredComponent(metrics, context, component);
+            }
         } catch (IOException e) {
             e.printStackTrace();
             throw new JspException("failed to render component", e);
@@ -265,6 +272,59 @@ public abstract class BaseRenderObjectTag extends TagSupport {
         return EVAL_PAGE;
     }
 
+    private void drawMeasuredComponent(RenderingMetrics metrics, PresentationContext context, HtmlComponent component)
+            throws IOException, JspException {
+        CountingWriter writer = new CountingWriter(pageContext.getOut());
+
+        long start = System.nanoTime();
+        pageContext.pushBody(writer);
+        try {
+            drawComponent(context, component);
+        } finally {
+            pageContext.popBody();
+        }
+
+        metrics.written(context.getRendererType(), context.getLayout(), RenderKit.getSchemaName(context), System.nanoTime()
+                - start, writer.chars);
+    }
+
+    private static class CountingWriter extends Writer {
+        private final Writer writer;
+        private long chars;
+
+        public CountingWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            writer.write(c);
+            chars++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            writer.write(buffer, offset, length);
+            chars += length;
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            writer.write(string, offset, length);
+            chars += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // the page writer is closed by the container
+        }
+    }
+
     protected Schema getRealSchema() {
         Schema anonymousSchema = getAnonymousSchema();
         return anonymousSchema != null ? anonymousSchema : RenderKit.getInstance().findSchema(getSchema());
@@ -366,7 +426,7 @@ public abstract class BaseRenderObjectTag extends TagSupport {
             return bean;
         }
         try {
-            return PropertyUtils.getProperty(bean, property);
+            return PropertyAccessors.getProperty(bean, property);
         } catch (Exception e) {
             throw new JspException("Error while getting property '" + property + "' of " + bean, e);
         }
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 
@@ -72,7 +73,7 @@ public class ContextTag extends TagSupport {
     }
 
     private String encodeViewStates() throws IOException {
-        return ViewState.encodeToBase64(this.viewStates);
+        return ViewState.encodeToBase64(this.viewStates, (HttpServletRequest) this.pageContext.getRequest());
     }
 
     public void addViewState(IViewState viewState) {
@@ -21,10 +21,10 @@ package pt.ist.fenixWebFramework.renderers.taglib;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 
-import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.Constants;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyAccessors;
 
 public class DefineTag extends TagSupport {
 
@@ -77,7 +77,7 @@ public class DefineTag extends TagSupport {
             pageContext.setAttribute(getId(), object.getObject());
         } else {
             try {
-                pageContext.setAttribute(getId(), PropertyUtils.getProperty(object.getObject(), getProperty()));
+                pageContext.setAttribute(getId(), PropertyAccessors.getProperty(object.getObject(), getProperty()));
             } catch (Exception e) {
                 // print exception but keep going
                 e.printStackTrace();
@@ -40,6 +40,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlForm;
 import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.components.state.ComponentBindings;
 import pt.ist.fenixWebFramework.renderers.components.state.HiddenSlot;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
@@ -250,12 +251,16 @@ public class EditObjectTag extends BaseRenderObjectTag implements ValidatorConta
             viewState.addHiddenSlot(slot);
         }
 
+        if (viewState instanceof ViewState) {
+            ((ViewState) viewState).setBindings(ComponentBindings.of(component, viewState.getMetaObject()));
+        }
+
         if (hasParentForm()) {
             addViewStateToParentForm(viewState);
         } else {
             HtmlHiddenField htmlViewStateField =
-                    new HtmlHiddenField(LifeCycleConstants.VIEWSTATE_PARAM_NAME, ViewState.encodeToBase64(Collections
-                            .singletonList(viewState)));
+                    new HtmlHiddenField(LifeCycleConstants.VIEWSTATE_PARAM_NAME, ViewState.encodeToBase64(
+                            Collections.singletonList(viewState), (HttpServletRequest) pageContext.getRequest()));
             hiddenFields.add(htmlViewStateField);
         }
 
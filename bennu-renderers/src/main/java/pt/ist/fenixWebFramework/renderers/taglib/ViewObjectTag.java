@@ -18,24 +18,95 @@
  */
 package pt.ist.fenixWebFramework.renderers.taglib;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Properties;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
+
+import org.fenixedu.commons.i18n.I18N;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewState;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 import pt.ist.fenixWebFramework.renderers.contexts.OutputContext;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.FragmentCache;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+import pt.ist.fenixframework.DomainObject;
 
 public class ViewObjectTag extends BaseRenderObjectTag {
 
+    private boolean cached;
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * When <code>true</code> the html produced for a domain object is kept in the {@link FragmentCache} and shared by all
+     * users. Only use it for presentations that do not depend on the current user.
+     */
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    @Override
+    public void release() {
+        super.release();
+
+        this.cached = false;
+    }
+
     @Override
     protected HtmlComponent renderObject(PresentationContext context, Object object) throws JspException {
+        if (!isCacheable(object)) {
+            return renderObjectUncached(context, object);
+        }
+
+        FragmentCache.Key key =
+                FragmentCache.key((DomainObject) object, object.getClass(), getSchema(), getLayout(), getRenderProperties(),
+                        I18N.getLocale());
+        String html = FragmentCache.get(key);
+        if (html == null) {
+            html = drawToString(renderObjectUncached(context, object));
+            FragmentCache.put(key, html);
+        }
+        return new HtmlText(html, false, false);
+    }
+
+    /*
+     * The page output is redirected while drawing, so that included templates, which write to it, are part of the fragment.
+     */
+    private String drawToString(HtmlComponent component) throws JspException {
+        StringWriter writer = new StringWriter();
+        JspWriter out = pageContext.pushBody(writer);
+        try {
+            component.draw(new HtmlWriter(out), pageContext);
+            out.flush();
+        } catch (IOException e) {
+            throw new JspException("failed to render component", e);
+        } finally {
+            pageContext.popBody();
+        }
+        return writer.toString();
+    }
+
+    /*
+     * Anonymous schemas, explicit types and destinations are not part of the key, so they are never cached.
+     */
+    private boolean isCacheable(Object object) {
+        return isCached() && FragmentCache.isEnabled() && object instanceof DomainObject && getAnonymousSchema() == null
+                && getType() == null && getDestinations().isEmpty();
+    }
+
+    protected HtmlComponent renderObjectUncached(PresentationContext context, Object object) throws JspException {
         if (getType() == null) {
             return RenderKit.getInstance().render(context, object);
         } else {
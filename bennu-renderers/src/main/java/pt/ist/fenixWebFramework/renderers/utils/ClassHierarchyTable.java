@@ -18,21 +18,25 @@
  */
 package pt.ist.fenixWebFramework.renderers.utils;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.google.common.base.Predicate;
 
 public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
 
+    /*
+     * Types are registered at startup and read on every lookup, so readers iterate over a snapshot of the list instead of
+     * locking it.
+     */
     private final List<Class> classSort;
 
     public ClassHierarchyTable() {
         super();
 
-        this.classSort = new ArrayList<Class>();
+        this.classSort = new CopyOnWriteArrayList<Class>();
     }
 
     @Override
@@ -44,8 +48,11 @@ public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
         Class objectType = (Class) key;
 
         for (Class<? extends Object> type : this.classSort) {
-            if (type.isAssignableFrom(objectType) && predicate.apply(super.get(type))) {
-                return super.get(type);
+            if (type.isAssignableFrom(objectType)) {
+                T value = super.get(type);
+                if (value != null && predicate.apply(value)) {
+                    return value;
+                }
             }
         }
 
@@ -58,12 +65,14 @@ public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
 
     @Override
     public T put(Class key, T value) {
+        // the value must be visible before the type, so that readers never find a type without value
+        T previous = super.put(key, value);
         addType(key);
 
-        return super.put(key, value);
+        return previous;
     }
 
-    public int addType(Class type) {
+    public synchronized int addType(Class type) {
         int index = findIndex(type);
 
         addType(type, index);
@@ -1,7 +1,10 @@
 package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 
 import com.google.common.math.IntMath;
@@ -9,22 +12,42 @@ import com.google.common.math.IntMath;
 public class CollectionPager<T> {
 
     private final Collection<T> collection;
+    private final int size;
     private final int perPage;
 
     public CollectionPager(Collection<T> collection, int perPage) {
         super();
         this.collection = collection;
+        this.size = collection.size();
+        this.perPage = perPage;
+    }
+
+    /**
+     * Pages a sorted list that may only hold the first elements of a larger
+     * collection with <code>size</code> elements, as long as it covers the
+     * pages that will be requested.
+     */
+    public CollectionPager(List<T> sortedList, int size, int perPage) {
+        super();
+        this.collection = sortedList;
+        this.size = size;
         this.perPage = perPage;
     }
 
     public int getNumberOfPages() {
-        return IntMath.divide(collection.size(), perPage, RoundingMode.CEILING);
+        return IntMath.divide(size, perPage, RoundingMode.CEILING);
     }
 
     public Collection<T> getPage(int pageNum) {
         if (pageNum < 1) {
             pageNum = 1;
         }
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            List<T> list = (List<T>) collection;
+            int from = (int) Math.min((long) (pageNum - 1) * perPage, list.size());
+            int to = (int) Math.min((long) from + perPage, list.size());
+            return new ArrayList<T>(list.subList(from, to));
+        }
         return collection.stream().skip((pageNum - 1) * perPage).limit(perPage).collect(Collectors.toList());
     }
 }
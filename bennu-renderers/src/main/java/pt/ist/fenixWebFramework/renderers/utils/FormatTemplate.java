@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A format like <code>"${a.b} - ${c,-4.5tY}"</code>, as accepted by
+ * {@link RenderUtils#getFormattedProperties(String, Object)}, parsed once into
+ * its literal parts, properties and conversions. Plain <code>${a}</code>
+ * placeholders are appended directly and only the ones with a conversion go
+ * through a {@link Formatter}.
+ * 
+ * Formats whose literal parts contain a <code>%</code>, or with conversions
+ * that refer to other arguments, are still formatted as a whole with
+ * {@link String#format(Locale, String, Object...)}, since their parts depend
+ * on each other.
+ * 
+ * Parsed formats are kept in a cache bounded by the
+ * <code>formats.cache.maxSize</code> configuration property.
+ */
+final class FormatTemplate {
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().formatsCacheMaxSize();
+
+    private static final Cache<String, FormatTemplate> CACHE = CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0))
+            .build();
+
+    // the whole format as expected by String.format
+    private final String pattern;
+
+    private final String[] literals;
+
+    // null for the object itself
+    private final String[] properties;
+
+    // null for a plain %s
+    private final String[] conversions;
+
+    private final boolean separable;
+
+    private FormatTemplate(String pattern, String[] literals, String[] properties, String[] conversions, boolean separable) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.properties = properties;
+        this.conversions = conversions;
+        this.separable = separable;
+    }
+
+    static FormatTemplate get(String format) {
+        if (MAX_SIZE <= 0) {
+            return compile(format);
+        }
+        FormatTemplate template = CACHE.getIfPresent(format);
+        if (template == null) {
+            template = compile(format);
+            CACHE.put(format, template);
+        }
+        return template;
+    }
+
+    static FormatTemplate compile(String format) {
+        StringBuilder pattern = new StringBuilder();
+        List<String> literals = new ArrayList<>();
+        List<String> properties = new ArrayList<>();
+        List<String> conversions = new ArrayList<>();
+        boolean separable = true;
+
+        int lastIndex = 0, index;
+        while ((index = format.indexOf("${", lastIndex)) != -1) {
+            int end = format.indexOf("}", index + 2);
+
+            if (end == -1) {
+                throw new RuntimeException("'" + format + "':unmatched group at pos " + index);
+            }
+
+            String literal = format.substring(lastIndex, index);
+            literals.add(literal);
+            pattern.append(literal);
+            separable = separable && literal.indexOf('%') == -1;
+            lastIndex = end + 1;
+
+            if (end - index == 2) {
+                properties.add(null);
+                conversions.add(null);
+                pattern.append("%s");
+            } else {
+                String[] parts = format.substring(index + 2, end).split(",");
+
+                properties.add(parts[0]);
+                if (parts.length > 1) {
+                    String conversion = "%" + parts[1];
+                    conversions.add(conversion);
+                    pattern.append(conversion);
+                    separable = separable && isSeparable(conversion);
+                } else {
+                    conversions.add(null);
+                    pattern.append("%s");
+                }
+            }
+        }
+
+        String literal = format.substring(lastIndex);
+        literals.add(literal);
+        pattern.append(literal);
+        separable = separable && literal.indexOf('%') == -1;
+
+        return new FormatTemplate(pattern.toString(), literals.toArray(new String[literals.size()]),
+                properties.toArray(new String[properties.size()]), conversions.toArray(new String[conversions.size()]),
+                separable);
+    }
+
+    /*
+     * Conversions that use explicit or relative indexes, or that take no argument, change the arguments used by the
+     * following ones.
+     */
+    private static boolean isSeparable(String conversion) {
+        char last = conversion.charAt(conversion.length() - 1);
+        return conversion.indexOf('$') == -1 && conversion.indexOf('<') == -1 && last != 'n' && last != '%';
+    }
+
+    String format(Object object, Locale locale) {
+        Object[] args = new Object[properties.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = properties[i] == null ? object : RenderUtils.getFormatProperty(object, properties[i]);
+        }
+
+        if (!separable) {
+            return String.format(locale, pattern, args);
+        }
+
+        StringBuilder builder = new StringBuilder(pattern.length() + 16 * args.length);
+        Formatter formatter = null;
+        for (int i = 0; i < args.length; i++) {
+            builder.append(literals[i]);
+
+            Object value = args[i];
+            if (conversions[i] == null && !(value instanceof Formattable)) {
+                builder.append(value);
+            } else {
+                if (formatter == null) {
+                    formatter = new Formatter(builder, locale);
+                }
+                formatter.format(conversions[i] == null ? "%s" : conversions[i], value);
+            }
+        }
+        builder.append(literals[args.length]);
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixframework.DomainObject;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Bounded LRU cache of the html produced when presenting domain objects in output mode. Fragments are keyed by the external
+ * id of the object, a version token for it, the presented type, schema, layout, properties and locale, and are shared by all
+ * users, so it must only be used for presentations that do not depend on the current user or session.
+ * 
+ * The version token of an object changes whenever {@link #invalidate(String)} is called, which is done by the domain meta
+ * objects when changes are committed through the renderers. Changes made by other means are only seen once the entry
+ * expires, after <code>fragment.cache.timeToLive</code> seconds.
+ * 
+ * Entries are weighed by the approximate number of bytes they retain, and the total is bounded by the
+ * <code>fragment.cache.maxSize</code> configuration property.
+ */
+public final class FragmentCache {
+
+    /*
+     * Approximate overhead of an entry (key, properties and cache node), in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().fragmentCacheMaxSize();
+
+    private static final Cache<Key, String> CACHE = CacheBuilder.newBuilder().maximumWeight(Math.max(MAX_SIZE, 0))
+            .expireAfterWrite(RenderersConfigurationManager.getConfiguration().fragmentCacheTimeToLive(), TimeUnit.SECONDS)
+            .weigher((Key key, String html) -> ENTRY_OVERHEAD + 2 * html.length()).recordStats().build();
+
+    /*
+     * Only objects invalidated since the last epoch have a version. When there are too many of them everything is discarded
+     * and a new epoch starts, so that keys built in the previous one never match again.
+     */
+    private static final int MAX_VERSIONS = 65536;
+
+    private static final Map<String, Long> VERSIONS = new ConcurrentHashMap<String, Long>();
+
+    private static final AtomicLong EPOCH = new AtomicLong();
+
+    private FragmentCache() {
+    }
+
+    public static boolean isEnabled() {
+        return MAX_SIZE > 0;
+    }
+
+    public static Key key(DomainObject object, Class type, String schema, String layout, Properties properties, Locale locale) {
+        String externalId = object.getExternalId();
+        long epoch = EPOCH.get();
+        Long version = VERSIONS.get(externalId);
+        return new Key(epoch, externalId, version == null ? 0 : version, type, schema, layout, properties, locale);
+    }
+
+    public static String get(Key key) {
+        return isEnabled() ? CACHE.getIfPresent(key) : null;
+    }
+
+    /**
+     * Keeps the html produced for the given key, unless the object was invalidated since the key was created, as the html may
+     * then have been produced from its previous state.
+     */
+    public static void put(Key key, String html) {
+        if (isEnabled() && isCurrent(key)) {
+            CACHE.put(key, html);
+            if (!isCurrent(key)) {
+                CACHE.invalidate(key);
+            }
+        }
+    }
+
+    private static boolean isCurrent(Key key) {
+        Long version = VERSIONS.get(key.externalId);
+        return key.epoch == EPOCH.get() && key.version == (version == null ? 0 : version);
+    }
+
+    /**
+     * Discards every fragment of the object with the given external id.
+     */
+    public static void invalidate(String externalId) {
+        if (!isEnabled() || externalId == null) {
+            return;
+        }
+        VERSIONS.merge(externalId, 1L, Long::sum);
+        if (VERSIONS.size() > MAX_VERSIONS) {
+            invalidateAll();
+        }
+    }
+
+    public static void invalidateAll() {
+        EPOCH.incrementAndGet();
+        VERSIONS.clear();
+        CACHE.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return CACHE.stats();
+    }
+
+    public static long getSize() {
+        return CACHE.size();
+    }
+
+    public static final class Key {
+
+        private final long epoch;
+
+        private final String externalId;
+
+        private final long version;
+
+        private final Class type;
+
+        private final String schema;
+
+        private final String layout;
+
+        private final Map<Object, Object> properties;
+
+        private final Locale locale;
+
+        private final int hashCode;
+
+        private Key(long epoch, String externalId, long version, Class type, String schema, String layout,
+                Properties properties, Locale locale) {
+            this.epoch = epoch;
+            this.externalId = externalId;
+            this.version = version;
+            this.type = type;
+            this.schema = schema;
+            this.layout = layout;
+            this.properties = properties == null ? null : new HashMap<Object, Object>(properties);
+            this.locale = locale;
+            this.hashCode = Objects.hash(epoch, externalId, version, type, schema, layout, this.properties, locale);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return hashCode == other.hashCode && epoch == other.epoch && version == other.version
+                        && externalId.equals(other.externalId) && type == other.type && Objects.equals(schema, other.schema)
+                        && Objects.equals(layout, other.layout) && Objects.equals(properties, other.properties)
+                        && Objects.equals(locale, other.locale);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
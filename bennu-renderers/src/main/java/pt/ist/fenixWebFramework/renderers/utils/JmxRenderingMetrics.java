@@ -0,0 +1,246 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RenderingMetrics} that accumulates counters in memory and publishes
+ * them as the <code>pt.ist.fenixWebFramework.renderers:type=RenderingMetrics</code>
+ * MXBean. Renderers are grouped by renderer class, layout and schema.
+ */
+public class JmxRenderingMetrics implements RenderingMetrics, RenderingMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JmxRenderingMetrics.class);
+
+    private static final String OBJECT_NAME = "pt.ist.fenixWebFramework.renderers:type=RenderingMetrics";
+
+    /*
+     * Anonymous schemas get generated names, so the number of groups is bounded to keep them from growing forever.
+     */
+    private static final int MAX_GROUPS = 10000;
+
+    private final Map<List<String>, Counters> renderers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counters> phases = new ConcurrentHashMap<>();
+
+    public JmxRenderingMetrics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("Could not register rendering metrics in JMX", e);
+        }
+    }
+
+    @Override
+    public void rendered(Class<?> renderer, String layout, String schema, long nanos, int components) {
+        Counters counters = group(renderer, layout, schema);
+        if (counters != null) {
+            counters.add(nanos, components);
+        }
+    }
+
+    @Override
+    public void written(Class<?> renderer, String layout, String schema, long nanos, long chars) {
+        Counters counters = group(renderer, layout, schema);
+        if (counters != null) {
+            counters.writeNanos.add(nanos);
+            counters.written.add(chars);
+        }
+    }
+
+    @Override
+    public void phase(String phase, long nanos, long bytes) {
+        phases.computeIfAbsent(phase, key -> new Counters()).add(nanos, bytes);
+    }
+
+    private Counters group(Class<?> renderer, String layout, String schema) {
+        List<String> key = Arrays.asList(renderer == null ? null : renderer.getName(), layout, schema);
+        Counters counters = renderers.get(key);
+        if (counters == null && renderers.size() < MAX_GROUPS) {
+            counters = renderers.computeIfAbsent(key, k -> new Counters());
+        }
+        return counters;
+    }
+
+    @Override
+    public List<RendererStatistics> getRenderers() {
+        List<RendererStatistics> result = new ArrayList<>(renderers.size());
+        for (Map.Entry<List<String>, Counters> entry : renderers.entrySet()) {
+            List<String> key = entry.getKey();
+            result.add(new RendererStatistics(key.get(0), key.get(1), key.get(2), entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<PhaseStatistics> getPhases() {
+        List<PhaseStatistics> result = new ArrayList<>(phases.size());
+        for (Map.Entry<String, Counters> entry : phases.entrySet()) {
+            result.add(new PhaseStatistics(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        renderers.clear();
+        phases.clear();
+    }
+
+    private static class Counters {
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder sizes = new LongAdder();
+        private final LongAdder writeNanos = new LongAdder();
+        private final LongAdder written = new LongAdder();
+
+        public void add(long nanos, long size) {
+            this.invocations.increment();
+            this.nanos.add(nanos);
+            this.sizes.add(size);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public static class PhaseStatistics {
+        private final String name;
+        private final long invocations;
+        private final double totalMillis;
+        private final double maxMillis;
+        private final long bytes;
+
+        PhaseStatistics(String name, Counters counters) {
+            this.name = name;
+            this.invocations = counters.invocations.sum();
+            this.totalMillis = millis(counters.nanos.sum());
+            this.maxMillis = millis(counters.maxNanos.get());
+            this.bytes = counters.sizes.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    public static class RendererStatistics {
+        private final String renderer;
+        private final String layout;
+        private final String schema;
+        private final long invocations;
+        private final double totalMillis;
+        private final double maxMillis;
+        private final long components;
+        private final double writeMillis;
+        private final long outputChars;
+
+        RendererStatistics(String renderer, String layout, String schema, Counters counters) {
+            this.renderer = renderer;
+            this.layout = layout;
+            this.schema = schema;
+            this.invocations = counters.invocations.sum();
+            this.totalMillis = millis(counters.nanos.sum());
+            this.maxMillis = millis(counters.maxNanos.get());
+            this.components = counters.sizes.sum();
+            this.writeMillis = millis(counters.writeNanos.sum());
+            this.outputChars = counters.written.sum();
+        }
+
+        public String getRenderer() {
+            return renderer;
+        }
+
+        public String getLayout() {
+            return layout;
+        }
+
+        public String getSchema() {
+            return schema;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getComponents() {
+            return components;
+        }
+
+        public double getWriteMillis() {
+            return writeMillis;
+        }
+
+        public long getOutputChars() {
+            return outputChars;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A resource message with its <code>{n}</code> placeholders located once, so
+ * that it can be formatted without scanning the message for each argument.
+ */
+final class MessageTemplate {
+
+    private final String message;
+
+    private final String[] literals;
+
+    private final int[] indexes;
+
+    private MessageTemplate(String message, String[] literals, int[] indexes) {
+        this.message = message;
+        this.literals = literals;
+        this.indexes = indexes;
+    }
+
+    static MessageTemplate compile(String message) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        int last = 0;
+        int open = message.indexOf('{');
+        while (open >= 0) {
+            int close = message.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+
+            int index = parseIndex(message, open + 1, close);
+            if (index >= 0) {
+                literals.add(message.substring(last, open));
+                indexes.add(index);
+                last = close + 1;
+                open = message.indexOf('{', last);
+            } else {
+                open = message.indexOf('{', open + 1);
+            }
+        }
+        literals.add(message.substring(last));
+
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indexes.get(i);
+        }
+        return new MessageTemplate(message, literals.toArray(new String[literals.size()]), indexArray);
+    }
+
+    private static int parseIndex(String message, int start, int end) {
+        if (start == end || end - start > 9 || end - start > 1 && message.charAt(start) == '0') {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    String format(Object[] args) {
+        if (args == null || indexes.length == 0) {
+            return message;
+        }
+
+        StringBuilder builder = new StringBuilder(message.length() + 16 * indexes.length);
+        for (int i = 0; i < indexes.length; i++) {
+            builder.append(literals[i]);
+
+            int index = indexes[i];
+            if (index < args.length) {
+                if (args[index] != null) {
+                    builder.append(Objects.toString(args[index]));
+                }
+            } else {
+                builder.append('{').append(index).append('}');
+            }
+        }
+        builder.append(literals[indexes.length]);
+        return builder.toString();
+    }
+}
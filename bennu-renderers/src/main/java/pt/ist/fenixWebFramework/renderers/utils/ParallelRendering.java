@@ -0,0 +1,226 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.security.Authenticate;
+import org.fenixedu.commons.i18n.I18N;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+import pt.ist.fenixframework.FenixFramework;
+import pt.ist.fenixframework.Transaction;
+import pt.ist.fenixframework.txintrospector.TxIntrospector;
+
+/**
+ * Renders independent parts of a presentation, like the rows of a large table,
+ * in a pool of threads shared by all requests. The request, locale and user of
+ * the calling thread are made available to the workers, which run each part in
+ * their own read-only transaction, so rendering can never commit changes.
+ * 
+ * Only used when the <code>tables.parallel.minRows</code> configuration
+ * property is positive. Parts rendered by a worker are always rendered
+ * sequentially, so nested tables never wait for the pool they are running in,
+ * and so are the parts of a request whose transaction has changes that are not
+ * committed yet, since workers would not see them.
+ */
+public final class ParallelRendering {
+
+    private static volatile int minRows;
+
+    private static volatile int threads;
+
+    private static volatile ExecutorService executor;
+
+    private static volatile Consumer<Runnable> transaction;
+
+    private static volatile BooleanSupplier pendingWrites;
+
+    static {
+        configure(RenderersConfigurationManager.getConfiguration().tablesParallelMinRows(), RenderersConfigurationManager
+                .getConfiguration().tablesParallelThreads(), ParallelRendering::runReadOnly, ParallelRendering::hasPendingWrites);
+    }
+
+    private ParallelRendering() {
+    }
+
+    /*
+     * Also used by tests, which have no configuration nor transactions.
+     */
+    static synchronized void configure(int minRows, int threads, Consumer<Runnable> transaction, BooleanSupplier pendingWrites) {
+        if (executor != null) {
+            executor.shutdown();
+        }
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ParallelRendering.minRows = minRows;
+        ParallelRendering.threads = poolSize;
+        ParallelRendering.transaction = transaction;
+        ParallelRendering.pendingWrites = pendingWrites;
+        ParallelRendering.executor = minRows > 0 && poolSize > 1 ? createExecutor(poolSize) : null;
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Worker(runnable, "renderers-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class Worker extends Thread {
+        public Worker(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if that many parts would be rendered concurrently
+     */
+    public static boolean isParallel(int count) {
+        return executor != null && count >= minRows && count > 1 && !(Thread.currentThread() instanceof Worker)
+                && !pendingWrites.getAsBoolean();
+    }
+
+    /*
+     * When the changes can not be inspected they are assumed to exist.
+     */
+    private static boolean hasPendingWrites() {
+        Transaction current = FenixFramework.getTransaction();
+        if (current == null) {
+            return false;
+        }
+        try {
+            TxIntrospector introspector = current.getTxIntrospector();
+            return !introspector.getNewObjects().isEmpty() || !introspector.getModifiedObjects().isEmpty();
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private static void runReadOnly(Runnable runnable) {
+        runnable.run();
+    }
+
+    /**
+     * Invokes the task for every index from 0 to <code>count</code>, splitting
+     * them in ranges that are processed concurrently, one of them by the
+     * current thread. Returns when all of them are processed and rethrows the
+     * first failure.
+     */
+    public static void forEach(int count, IntConsumer task) {
+        if (!isParallel(count)) {
+            forRange(task, 0, count);
+            return;
+        }
+
+        ExecutorService executor = ParallelRendering.executor;
+        RequestContext context = new RequestContext(transaction);
+        int size = (count + threads - 1) / threads;
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int start = size; start < count; start += size) {
+                int from = start;
+                int to = Math.min(count, start + size);
+                futures.add(executor.submit(() -> context.run(() -> forRange(task, from, to))));
+            }
+
+            forRange(task, 0, Math.min(size, count));
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(
+                    "Could not render concurrently", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering concurrently", e);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private static void forRange(IntConsumer task, int from, int to) {
+        for (int index = from; index < to; index++) {
+            task.accept(index);
+        }
+    }
+
+    /*
+     * The thread bound state that renderers expect to find, captured in the request thread.
+     */
+    private static class RequestContext {
+        private final HttpServletRequest request = RenderersRequestProcessorImpl.getCurrentRequest();
+        private final Locale locale = I18N.getLocale();
+        private final User user = Authenticate.getUser();
+        private final Consumer<Runnable> transaction;
+
+        public RequestContext(Consumer<Runnable> transaction) {
+            this.transaction = transaction;
+        }
+
+        public void run(Runnable runnable) {
+            Locale previousLocale = I18N.getLocale();
+
+            RenderersRequestProcessorImpl.currentRequest.set(request);
+            I18N.setLocale(locale);
+            if (user != null) {
+                Authenticate.mock(user);
+            }
+            try {
+                transaction.accept(runnable);
+            } finally {
+                if (user != null) {
+                    Authenticate.unmock();
+                }
+                I18N.setLocale(previousLocale);
+                RenderersRequestProcessorImpl.currentRequest.remove();
+            }
+        }
+    }
+}
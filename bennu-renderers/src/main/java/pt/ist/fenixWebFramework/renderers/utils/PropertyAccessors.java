@@ -0,0 +1,318 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.NestedNullException;
+import org.apache.commons.beanutils.PropertyUtils;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Primitives;
+
+/**
+ * Drop-in replacement for {@link PropertyUtils#getProperty(Object, String)} and
+ * {@link PropertyUtils#setProperty(Object, String, Object)} that parses each
+ * property path once and resolves each of its segments, per class, to method
+ * handles.
+ * 
+ * Simple (<code>name</code>), mapped (<code>name(key)</code>) and indexed
+ * (<code>name[i]</code>) segments backed by plain bean getters are compiled;
+ * everything else (maps, dyna beans, indexed or mapped accessor methods) is
+ * delegated to {@link PropertyUtils}, one segment at a time.
+ * 
+ * The number of cached paths, and of cached segments for each class, is bounded
+ * by the <code>properties.cache.maxSize</code> configuration property.
+ */
+public final class PropertyAccessors {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().propertiesCacheMaxSize();
+
+    private static final Cache<String, String[]> paths = CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0)).build();
+
+    private static final ClassValue<Cache<String, Optional<Accessor>>> accessors =
+            new ClassValue<Cache<String, Optional<Accessor>>>() {
+                @Override
+                protected Cache<String, Optional<Accessor>> computeValue(Class<?> type) {
+                    return CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0)).build();
+                }
+            };
+
+    private PropertyAccessors() {
+    }
+
+    public static Object getProperty(Object bean, String name) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException {
+        checkArguments(bean, name);
+
+        String[] segments = segments(name);
+        Object current = bean;
+        for (int i = 0; i < segments.length; i++) {
+            if (current == null) {
+                throw nestedNull(bean, segments, i);
+            }
+            current = get(current, segments[i]);
+        }
+        return current;
+    }
+
+    public static void setProperty(Object bean, String name, Object value) throws IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        checkArguments(bean, name);
+
+        String[] segments = segments(name);
+        Object current = bean;
+        int last = segments.length - 1;
+        for (int i = 0; i < last; i++) {
+            current = get(current, segments[i]);
+            if (current == null) {
+                throw nestedNull(bean, segments, i + 1);
+            }
+        }
+        set(current, segments[last], value);
+    }
+
+    private static void checkArguments(Object bean, String name) {
+        if (bean == null) {
+            throw new IllegalArgumentException("No bean specified");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("No name specified for bean class '" + bean.getClass() + "'");
+        }
+    }
+
+    private static NestedNullException nestedNull(Object bean, String[] segments, int count) {
+        StringBuilder path = new StringBuilder(segments[0]);
+        for (int i = 1; i < count; i++) {
+            path.append('.').append(segments[i]);
+        }
+        return new NestedNullException("Null property value for '" + path + "' on bean class '" + bean.getClass() + "'");
+    }
+
+    private static Object get(Object bean, String segment) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException {
+        Accessor accessor = accessor(bean, segment);
+        return accessor != null ? accessor.get(bean) : PropertyUtils.getProperty(bean, segment);
+    }
+
+    private static void set(Object bean, String segment, Object value) throws IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
+        Accessor accessor = accessor(bean, segment);
+        if (accessor != null && accessor.setter != null) {
+            accessor.set(bean, value);
+        } else {
+            PropertyUtils.setProperty(bean, segment, value);
+        }
+    }
+
+    private static Accessor accessor(Object bean, String segment) {
+        if (bean instanceof Map || bean instanceof DynaBean) {
+            return null;
+        }
+
+        Cache<String, Optional<Accessor>> table = accessors.get(bean.getClass());
+        Optional<Accessor> accessor = table.getIfPresent(segment);
+        if (accessor == null) {
+            accessor = Optional.ofNullable(compile(bean.getClass(), segment));
+            table.put(segment, accessor);
+        }
+        return accessor.orElse(null);
+    }
+
+    /**
+     * Splits a property path on the dots that are not part of a mapped key or
+     * an index, like the bean utils resolver does.
+     */
+    static String[] segments(String name) {
+        String[] segments = paths.getIfPresent(name);
+        if (segments == null) {
+            List<String> result = new ArrayList<>();
+            int depth = 0;
+            int start = 0;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '(' || c == '[') {
+                    depth++;
+                } else if ((c == ')' || c == ']') && depth > 0) {
+                    depth--;
+                } else if (c == '.' && depth == 0) {
+                    result.add(name.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            result.add(name.substring(start));
+
+            segments = result.toArray(new String[result.size()]);
+            paths.put(name, segments);
+        }
+        return segments;
+    }
+
+    private static Accessor compile(Class<?> type, String segment) {
+        int open = segment.indexOf('(');
+        int bracket = segment.indexOf('[');
+        if (open >= 0 && bracket >= 0) {
+            return null;
+        }
+
+        String property = segment;
+        String key = null;
+        int index = -1;
+
+        if (open >= 0) {
+            if (!segment.endsWith(")")) {
+                return null;
+            }
+            property = segment.substring(0, open);
+            key = segment.substring(open + 1, segment.length() - 1);
+        } else if (bracket >= 0) {
+            if (!segment.endsWith("]")) {
+                return null;
+            }
+            property = segment.substring(0, bracket);
+            try {
+                index = Integer.parseInt(segment.substring(bracket + 1, segment.length() - 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        PropertyDescriptor descriptor = null;
+        for (PropertyDescriptor candidate : PropertyUtils.getPropertyDescriptors(type)) {
+            if (candidate.getName().equals(property)) {
+                descriptor = candidate;
+                break;
+            }
+        }
+        if (descriptor == null || descriptor instanceof IndexedPropertyDescriptor) {
+            return null;
+        }
+
+        Method read = PropertyUtils.getReadMethod(descriptor);
+        if (read == null) {
+            return null;
+        }
+
+        Class<?> propertyType = descriptor.getPropertyType();
+        if (key != null && !Map.class.isAssignableFrom(propertyType)) {
+            return null;
+        }
+        if (index >= 0 && !propertyType.isArray() && !List.class.isAssignableFrom(propertyType)) {
+            return null;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle getter = lookup.unreflect(read).asType(GETTER_TYPE);
+
+            MethodHandle setter = null;
+            Method write = PropertyUtils.getWriteMethod(descriptor);
+            if (key == null && index < 0 && write != null) {
+                setter = lookup.unreflect(write).asType(SETTER_TYPE);
+            }
+
+            return new Accessor(segment, property, key, index, propertyType, getter, setter);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class Accessor {
+        private final String segment;
+
+        private final String property;
+
+        private final String key;
+
+        private final int index;
+
+        private final Class<?> type;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private Accessor(String segment, String property, String key, int index, Class<?> type, MethodHandle getter,
+                MethodHandle setter) {
+            this.segment = segment;
+            this.property = property;
+            this.key = key;
+            this.index = index;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        Object get(Object bean) throws InvocationTargetException {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(bean);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+
+            if (key != null) {
+                return value instanceof Map ? ((Map<?, ?>) value).get(key) : null;
+            }
+            if (index >= 0) {
+                if (value instanceof List) {
+                    return ((List<?>) value).get(index);
+                }
+                if (value != null && value.getClass().isArray()) {
+                    return Array.get(value, index);
+                }
+                throw new IllegalArgumentException("Property '" + property + "' is not indexed on bean class '"
+                        + bean.getClass() + "'");
+            }
+            return value;
+        }
+
+        void set(Object bean, Object value) throws InvocationTargetException {
+            if (value == null ? type.isPrimitive() : !Primitives.wrap(type).isInstance(value)) {
+                throw new IllegalArgumentException("Cannot set property '" + segment + "' on bean class '" + bean.getClass()
+                        + "' - argument type mismatch");
+            }
+
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+}
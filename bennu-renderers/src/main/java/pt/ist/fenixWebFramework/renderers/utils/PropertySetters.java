@@ -0,0 +1,233 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.primitives.Primitives;
+
+/**
+ * Per class table of compiled property setters. Simple properties with a public
+ * write method of a string, primitive or wrapper type are written through a
+ * method handle, everything else (nested, indexed and mapped properties, custom
+ * types) goes through {@link RenderUtils#setProperty(Object, String, String)}.
+ * 
+ * Also creates instances through a constructor handle, which is what
+ * {@link RendererDescription} uses to create renderers without reflection.
+ */
+public final class PropertySetters {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertySetters.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<PropertySetters> SETTERS = new ClassValue<PropertySetters>() {
+        @Override
+        protected PropertySetters computeValue(Class<?> type) {
+            return new PropertySetters(type);
+        }
+    };
+
+    public static PropertySetters forType(Class<?> type) {
+        return SETTERS.get(type);
+    }
+
+    private final Class<?> type;
+
+    private final MethodHandle constructor;
+
+    private final Map<String, Optional<Setter>> setters = new ConcurrentHashMap<>();
+
+    private PropertySetters(Class<?> type) {
+        this.type = type;
+        this.constructor = findConstructor(type);
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public Object newInstance() {
+        try {
+            return constructor != null ? (Object) constructor.invokeExact() : type.newInstance();
+        } catch (Throwable e) {
+            throw new RuntimeException("Could not create an instance of " + type.getName(), e);
+        }
+    }
+
+    public void set(Object target, String propertyName, String value) {
+        Setter setter = getSetter(propertyName);
+        if (setter != null) {
+            Object converted;
+            try {
+                converted = setter.convert(value);
+            } catch (RuntimeException e) {
+                RenderUtils.setProperty(target, propertyName, value);
+                return;
+            }
+            setter.set(target, converted);
+        } else {
+            RenderUtils.setProperty(target, propertyName, value);
+        }
+    }
+
+    /**
+     * Resolves and converts the given properties once, so that they can be
+     * applied to many instances of this type.
+     */
+    public Plan prepare(Properties properties) {
+        List<Setter> compiled = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        Properties remaining = new Properties();
+
+        for (Object property : properties.keySet()) {
+            String propertyName = (String) property;
+            String value = properties.getProperty(propertyName);
+            Setter setter = getSetter(propertyName);
+            if (setter != null) {
+                try {
+                    values.add(setter.convert(value));
+                    compiled.add(setter);
+                    continue;
+                } catch (RuntimeException e) {
+                    // left to the reflective path, which reports it on each use
+                }
+            }
+            remaining.setProperty(propertyName, value);
+        }
+
+        return new Plan(compiled, values, remaining);
+    }
+
+    private Setter getSetter(String propertyName) {
+        Optional<Setter> setter = setters.get(propertyName);
+        if (setter == null) {
+            setter = Optional.ofNullable(compile(propertyName));
+            setters.put(propertyName, setter);
+        }
+        return setter.orElse(null);
+    }
+
+    private Setter compile(String propertyName) {
+        if (propertyName.indexOf('.') >= 0 || propertyName.indexOf('(') >= 0 || propertyName.indexOf('[') >= 0) {
+            return null;
+        }
+
+        for (PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors(type)) {
+            if (!descriptor.getName().equals(propertyName)) {
+                continue;
+            }
+
+            Class<?> propertyType = descriptor.getPropertyType();
+            Method method = PropertyUtils.getWriteMethod(descriptor);
+            if (method == null || propertyType == null || !isSimpleType(propertyType)) {
+                return null;
+            }
+
+            try {
+                return new Setter(propertyName, propertyType, MethodHandles.publicLookup().unreflect(method).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
+        return type == String.class || type.isPrimitive() || Primitives.isWrapperType(type);
+    }
+
+    private static final class Setter {
+        private final String name;
+
+        private final Class<?> type;
+
+        private final MethodHandle handle;
+
+        private Setter(String name, Class<?> type, MethodHandle handle) {
+            this.name = name;
+            this.type = type;
+            this.handle = handle;
+        }
+
+        Object convert(String value) {
+            if (type == String.class) {
+                return value;
+            }
+
+            Object converted = ConvertUtils.convert(value, type);
+            if (converted == null && type.isPrimitive() || converted != null && !Primitives.wrap(type).isInstance(converted)) {
+                throw new IllegalArgumentException("Cannot convert '" + value + "' to " + type.getName());
+            }
+            return converted;
+        }
+
+        void set(Object target, Object value) {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Throwable e) {
+                logger.warn("The object " + target + " does not support property '" + name + "'", e);
+            }
+        }
+    }
+
+    public static final class Plan {
+        private final Setter[] setters;
+
+        private final Object[] values;
+
+        private final Properties remaining;
+
+        private Plan(List<Setter> setters, List<Object> values, Properties remaining) {
+            this.setters = setters.toArray(new Setter[setters.size()]);
+            this.values = values.toArray();
+            this.remaining = remaining.isEmpty() ? null : remaining;
+        }
+
+        public void apply(Object target) {
+            for (int i = 0; i < setters.length; i++) {
+                setters[i].set(target, values[i]);
+            }
+            if (remaining != null) {
+                RenderUtils.setProperties(target, remaining);
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.OptionList;
 import pt.ist.fenixWebFramework.renderers.Renderer;
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
@@ -41,6 +43,9 @@ public class RenderKit {
 
     private static RenderKit instance = new RenderKit();
 
+    private static final RenderingMetrics METRICS = createMetrics(RenderersConfigurationManager.getConfiguration()
+            .renderingMetrics());
+
     private final RendererRegistry inputRenderers = new RendererRegistry();
     private final RendererRegistry outputRenderers = new RendererRegistry();
 
@@ -59,6 +64,27 @@ public class RenderKit {
      */
     public static void reset() {
         RenderKit.instance = new RenderKit();
+        ResourceStringCache.invalidateAll();
+        FragmentCache.invalidateAll();
+        OptionList.invalidateAll();
+    }
+
+    private static RenderingMetrics createMetrics(String className) {
+        if (className == null || className.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return (RenderingMetrics) Class.forName(className.trim()).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            throw new RuntimeException("Could not create rendering metrics " + className, e);
+        }
+    }
+
+    /**
+     * @return the configured metrics, or <code>null</code> if nothing should be measured
+     */
+    public static RenderingMetrics getMetrics() {
+        return METRICS;
     }
 
     /**
@@ -215,6 +241,38 @@ public class RenderKit {
     public HtmlComponent renderUsing(Renderer renderer, PresentationContext context, Object object, Class type) {
         prepareRenderer(renderer, context);
 
-        return renderer.render(object, type);
+        if (METRICS == null) {
+            return renderer.render(object, type);
+        }
+
+        if (context.getRendererType() == null) {
+            context.setRendererType(renderer.getClass());
+        }
+
+        long start = System.nanoTime();
+        HtmlComponent component = renderer.render(object, type);
+        long nanos = System.nanoTime() - start;
+
+        int components = context.getParentContext() == null ? countComponents(component) : 0;
+        METRICS.rendered(renderer.getClass(), context.getLayout(), getSchemaName(context), nanos, components);
+
+        return component;
+    }
+
+    public static String getSchemaName(PresentationContext context) {
+        Schema schema = context.getSchema();
+        return schema == null ? null : schema.getName();
+    }
+
+    private static int countComponents(HtmlComponent component) {
+        if (component == null) {
+            return 0;
+        }
+
+        int count = 1;
+        for (HtmlComponent child : component.getChildren()) {
+            count += countComponents(child);
+        }
+        return count;
     }
 }
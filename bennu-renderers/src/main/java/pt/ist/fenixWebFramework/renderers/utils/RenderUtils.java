@@ -20,25 +20,19 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
-import java.text.Collator;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.PageContext;
 
-import org.apache.commons.beanutils.BeanComparator;
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.fenixedu.commons.i18n.I18N;
@@ -74,10 +68,12 @@ public class RenderUtils {
 
     public static void setModuleResolver(ModuleResolver res) {
         moduleResolver = Objects.requireNonNull(res);
+        ResourceStringCache.invalidateAll();
     }
 
     public static void setBundleResolver(RenderersBundleResolver res) {
         resolver = Objects.requireNonNull(res);
+        ResourceStringCache.invalidateAll();
     }
 
     public static String RESOURCE_LABEL_PREFIX = "label";
@@ -88,55 +84,54 @@ public class RenderUtils {
      */
 
     public static String getSlotLabel(Class objectType, String slotName, String bundle, String key, String... args) {
-        String label = null;
+        Optional<SlotLabel> label =
+                ResourceStringCache.get(
+                        ResourceStringCache.key(SlotLabel.class, getModuleScope(), getLocale(), bundle, objectType, slotName, key),
+                        () -> Optional.ofNullable(resolveSlotLabel(objectType, slotName, bundle, key)));
+
+        return label.isPresent() ? label.get().format(args) : slotName;
+    }
+
+    private static SlotLabel resolveSlotLabel(Class objectType, String slotName, String bundle, String key) {
+        MessageTemplate label = null;
 
         if (key != null) {
-            label = RenderUtils.getResourceString(bundle, key, args);
+            label = getResourceTemplate(bundle, key);
         }
 
         if (label != null) {
-            return label;
+            return new SlotLabel(label, true);
         } else if (key != null) {
             logger.debug("Key specified for slot '{}' does not exist: {}", slotName, key);
         }
 
-        label = readClassResourceString(bundle, objectType, slotName, args);
+        label = readClassResourceString(bundle, objectType, slotName);
 
         if (label != null) {
-            return label;
+            return new SlotLabel(label, false);
         }
 
-        label = RenderUtils.getResourceString(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + slotName, args);
+        label = getResourceTemplate(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + slotName);
 
-        if (label != null) {
-            return label;
+        if (label == null) {
+            label = getResourceTemplate(bundle, slotName);
         }
 
-        label = RenderUtils.getResourceString(bundle, slotName, args);
-
-        if (label != null) {
-            return label;
-        }
-
-        if (slotName.contains(".")) {
-            label = RenderUtils.getResourceString(bundle, slotName.substring(slotName.lastIndexOf(".") + 1), args);
-        }
-
-        if (label != null) {
-            return label;
+        if (label == null && slotName.contains(".")) {
+            label = getResourceTemplate(bundle, slotName.substring(slotName.lastIndexOf(".") + 1));
         }
 
-        return slotName;
+        return label != null ? new SlotLabel(label, true) : null;
     }
 
-    static private String readClassResourceString(String bundle, Class objectType, String slotName, String... args) {
+    static private MessageTemplate readClassResourceString(String bundle, Class objectType, String slotName) {
 
         Class clazzIter = objectType;
-        String label = null;
+        MessageTemplate label = null;
 
         while (clazzIter != null && !Object.class.equals(clazzIter)) {
             label =
-                    RenderUtils.getResourceString(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + clazzIter.getName() + "."
+                    getResourceTemplate(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + clazzIter.getName() + "."
                             + slotName);
             if (label != null) {
                 return label;
@@ -148,6 +143,25 @@ public class RenderUtils {
         return null;
     }
 
+    /**
+     * A resolved slot label. Labels found through the class name are not
+     * formatted with the arguments.
+     */
+    private static final class SlotLabel {
+        private final MessageTemplate template;
+
+        private final boolean formatted;
+
+        private SlotLabel(MessageTemplate template, boolean formatted) {
+            this.template = template;
+            this.formatted = formatted;
+        }
+
+        private String format(Object[] args) {
+            return template.format(formatted ? args : null);
+        }
+    }
+
     public static String getResourceString(String key) {
         return getResourceString(null, key);
     }
@@ -226,37 +240,44 @@ public class RenderUtils {
     }
 
     public static String getResourceString(String bundle, String key, Object[] args) {
+        MessageTemplate template = getResourceTemplate(bundle, key);
+        return template != null ? template.format(args) : null;
+    }
+
+    private static MessageTemplate getResourceTemplate(String bundle, String key) {
+        Locale locale = getLocale();
+        return ResourceStringCache.get(ResourceStringCache.key(MessageTemplate.class, getModuleScope(), locale, bundle, key),
+                () -> Optional.ofNullable(resolveResourceString(locale, bundle, key)).map(MessageTemplate::compile)).orElse(null);
+    }
+
+    private static String resolveResourceString(Locale locale, String bundle, String key) {
         {
             RenderersMessageSource resources = getMessageResources(bundle);
 
-            Optional<String> message = resources.getMessage(I18N.getLocale(), key);
+            Optional<String> message = resources.getMessage(locale, key);
             if (message.isPresent()) {
-                return formatMessage(message.get(), args);
+                return message.get();
             }
         }
 
         {
             RenderersMessageSource rendererResources = getMessageResources("resources.RendererResources");
 
-            Optional<String> message = rendererResources.getMessage(I18N.getLocale(), key);
+            Optional<String> message = rendererResources.getMessage(locale, key);
             if (message.isPresent()) {
-                return formatMessage(message.get(), args);
+                return message.get();
             }
         }
 
         return null;
     }
 
-    private static final String formatMessage(String message, Object[] args) {
-        if (args == null) {
-            return message;
-        }
-        for (int i = 0; i < args.length; i++) {
-            message =
-                    message.replaceAll("\\{" + i + "\\}",
-                            args[i] == null ? "" : Matcher.quoteReplacement(Objects.toString(args[i])));
-        }
-        return message;
+    /*
+     * The bundles returned by the resolver may depend on the module of the current request.
+     */
+    private static String getModuleScope() {
+        HttpServletRequest request = RenderersRequestProcessorImpl.getCurrentRequest();
+        return request == null ? null : moduleResolver.maybeResolveModule(request);
     }
 
     private static Locale getLocale() {
@@ -297,59 +318,25 @@ public class RenderUtils {
         // TODO: use a separator different than ',' because the comma can be
         // used as a flag in the format
 
-        List<Object> args = new ArrayList<Object>();
-        StringBuilder builder = new StringBuilder();
-
-        if (format != null) {
-            int lastIndex = 0, index;
-
-            while ((index = format.indexOf("${", lastIndex)) != -1) {
-                int end = format.indexOf("}", index + 2);
-
-                if (end == -1) {
-                    throw new RuntimeException("'" + format + "':unmatched group at pos " + index);
-                }
-
-                builder.append(format.substring(lastIndex, index));
-                lastIndex = end + 1;
-
-                if (end - index == 2) {
-                    builder.append("%s");
-                    args.add(object);
-                } else {
-                    String spec = format.substring(index + 2, end);
-                    String[] parts = spec.split(",");
-
-                    String property = parts[0];
+        if (format == null) {
+            return "";
+        }
 
-                    if (parts.length > 1) {
-                        builder.append("%" + parts[1]);
-                    } else {
-                        builder.append("%s");
-                    }
+        return FormatTemplate.get(format).format(object, getLocale());
+    }
 
-                    try {
-                        Object value = PropertyUtils.getProperty(object, property);
-                        args.add(value);
-
-                    } catch (Exception e) {
-
-                        try {
-                            Object value = findPropertyFromRequest(property);
-                            args.add(value);
-                        } catch (RuntimeException rt) {
-                            throw rt;
-                        } catch (Exception e1) {
-                            throw new RuntimeException("could not retrieve property '" + property + "' for object " + object, e);
-                        }
-                    }
-                }
+    static Object getFormatProperty(Object object, String property) {
+        try {
+            return PropertyAccessors.getProperty(object, property);
+        } catch (Exception e) {
+            try {
+                return findPropertyFromRequest(property);
+            } catch (RuntimeException rt) {
+                throw rt;
+            } catch (Exception e1) {
+                throw new RuntimeException("could not retrieve property '" + property + "' for object " + object, e);
             }
-
-            builder.append(format.substring(lastIndex));
         }
-
-        return String.format(getLocale(), builder.toString(), args.toArray());
     }
 
     private static Object findPropertyFromRequest(String property) throws Exception {
@@ -360,20 +347,18 @@ public class RenderUtils {
             final String objectName = indexOfDot != -1 ? property.substring(0, indexOfDot) : property;
             final String propertyName = indexOfDot != -1 ? property.substring(indexOfDot + 1) : null;
 
-            Enumeration attributeNames = currentRequest.getAttributeNames();
-            while (attributeNames.hasMoreElements()) {
-                if (attributeNames.nextElement().equals(objectName)) {
-                    final Object objectFromRequest = currentRequest.getAttribute(objectName);
-                    if (objectFromRequest != null && propertyName != null) {
-                        try {
-                            return PropertyUtils.getProperty(objectFromRequest, propertyName);
-                        } catch (Exception e1) {
-                            throw new RuntimeException("could not retrieve property '" + propertyName + "' from request object "
-                                    + objectName, e1);
-                        }
+            // attributes can not hold null, so this is the same as looking for the name
+            final Object objectFromRequest = currentRequest.getAttribute(objectName);
+            if (objectFromRequest != null) {
+                if (propertyName != null) {
+                    try {
+                        return PropertyAccessors.getProperty(objectFromRequest, propertyName);
+                    } catch (Exception e1) {
+                        throw new RuntimeException("could not retrieve property '" + propertyName + "' from request object "
+                                + objectName, e1);
                     }
-                    return objectFromRequest;
                 }
+                return objectFromRequest;
             }
         }
 
@@ -385,31 +370,33 @@ public class RenderUtils {
             return;
         }
 
+        PropertySetters setters = PropertySetters.forType(target.getClass());
         for (Object property : properties.keySet()) {
-            String propertyName = null;
+            String propertyName = (String) property;
+            setters.set(target, propertyName, properties.getProperty(propertyName));
+        }
+    }
 
-            try {
-                propertyName = (String) property;
-
-                PropertyDescriptor desc = PropertyUtils.getPropertyDescriptor(target, propertyName);
-
-                if (desc != null) {
-                    if (desc.getWriteMethod() != null) {
-                        BeanUtils.copyProperty(target, propertyName, properties.getProperty(propertyName));
-                    } else {
-                        // even so try to write it because
-                        // PropertyUtils.isWriteable() does not work for mapped
-                        // items
-                        PropertyUtils.setProperty(target, propertyName, properties.getProperty(propertyName));
-                    }
+    static void setProperty(Object target, String propertyName, String value) {
+        try {
+            PropertyDescriptor desc = PropertyUtils.getPropertyDescriptor(target, propertyName);
+
+            if (desc != null) {
+                if (desc.getWriteMethod() != null) {
+                    BeanUtils.copyProperty(target, propertyName, value);
                 } else {
-                    logger.debug("Object {} does not support property '{}'. Descriptor not found.", target, propertyName);
+                    // even so try to write it because
+                    // PropertyUtils.isWriteable() does not work for mapped
+                    // items
+                    PropertyUtils.setProperty(target, propertyName, value);
                 }
-            } catch (Exception e) {
-                logger.warn("The object " + target + " does not support property '" + propertyName + "'", e);
-            } // IllegalAccessException, InvocationTargetException,
-              // NoSuchMethodException
-        }
+            } else {
+                logger.debug("Object {} does not support property '{}'. Descriptor not found.", target, propertyName);
+            }
+        } catch (Exception e) {
+            logger.warn("The object " + target + " does not support property '" + propertyName + "'", e);
+        } // IllegalAccessException, InvocationTargetException,
+          // NoSuchMethodException
     }
 
     public static String getModuleRelativePath(HttpServletRequest request, String path) {
@@ -463,47 +450,12 @@ public class RenderUtils {
             return null;
         }
 
-        List<T> result = new ArrayList<T>(collection);
-
-        if (criteria == null) {
-            return result;
-        }
-
-        String[] singleCriterias = criteria.split(",");
-
-        if (singleCriterias.length == 0) {
-            return result;
-        }
-
-        Comparator<Object> comparator = null; // TODO: change to a comparator
-        // chain
-
-        for (String singleCriteria2 : singleCriterias) {
-            String singleCriteria = singleCriteria2.trim();
-
-            if (singleCriteria.length() > 0) {
-                String slot;
-                String order;
-
-                int orderIndex = singleCriteria.indexOf("=");
-                if (orderIndex != -1) {
-                    slot = singleCriteria.substring(0, orderIndex);
-                    order = singleCriteria.substring(orderIndex + 1);
-                } else {
-                    slot = singleCriteria;
-                    order = null;
-                }
-
-                boolean ascending = order == null || order.startsWith("asc");
-                comparator = createCompositeComparator(comparator, slot, ascending);
-            }
+        SortCriteria sortCriteria = SortCriteria.parse(criteria);
+        if (sortCriteria == null) {
+            return new ArrayList<T>(collection);
         }
 
-        if (comparator != null) {
-            Collections.sort(result, comparator);
-        }
-
-        return result;
+        return sortCriteria.sort(collection);
     }
 
     /**
@@ -521,57 +473,6 @@ public class RenderUtils {
         return sortCollectionWithCriteria(result, criteria);
     }
 
-    private static Comparator<Object> createCompositeComparator(final Comparator<Object> comparator, final String slot,
-            final boolean ascending) {
-        return new Comparator<Object>() {
-
-            @Override
-            public int compare(Object o1, Object o2) {
-                int slotComparison;
-
-                if (comparator != null) {
-                    slotComparison = comparator.compare(o1, o2);;
-                } else {
-                    slotComparison = 0;
-                }
-
-                if (slotComparison != 0) {
-                    return slotComparison;
-                }
-
-                if (ascending) {
-                    slotComparison = compareSlots(o1, o2, slot);
-                } else {
-                    slotComparison = compareSlots(o2, o1, slot);
-                }
-
-                return slotComparison;
-            }
-
-            private int compareSlots(Object o1, Object o2, String slot) {
-                try {
-                    Object slotObj1 = PropertyUtils.getProperty(o1, slot);
-                    Object slotObj2 = PropertyUtils.getProperty(o2, slot);
-                    if (slotObj1 == null && slotObj2 == null) {
-                        return 0;
-                    } else if (slotObj1 == null) {
-                        return 1;
-                    } else if (slotObj2 == null) {
-                        return -1;
-                    } else if (String.class.isAssignableFrom(PropertyUtils.getPropertyType(o1, slot))) {
-                        return new BeanComparator(slot, Collator.getInstance()).compare(o1, o2);
-                    } else {
-                        return new BeanComparator(slot).compare(o1, o2);
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-
-            }
-
-        };
-    }
-
     //
     // ViewState related accessors to be used in actions
     // TODO: check the use of the methods for potential problems with the
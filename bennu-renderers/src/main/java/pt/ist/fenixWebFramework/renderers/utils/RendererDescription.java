@@ -33,6 +33,8 @@ public class RendererDescription {
 
     private Properties properties;
 
+    private volatile PropertySetters.Plan plan;
+
     public RendererDescription(Class<Renderer> renderer, Properties defaultProperties) {
         this.renderer = renderer;
         this.properties = defaultProperties;
@@ -47,20 +49,17 @@ public class RendererDescription {
     }
 
     public Renderer createRenderer() {
-        Renderer renderer = null;
-
-        try {
-            renderer = getRenderer().newInstance();
+        PropertySetters setters = PropertySetters.forType(getRenderer());
+        Renderer renderer = (Renderer) setters.newInstance();
 
-            if (properties != null) {
-                RenderUtils.setProperties(renderer, properties);
+        if (properties != null) {
+            PropertySetters.Plan plan = this.plan;
+            if (plan == null) {
+                this.plan = plan = setters.prepare(properties);
             }
-        } catch (InstantiationException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+            plan.apply(renderer);
         }
 
         return renderer;
     }
-}
\ No newline at end of file
+}
@@ -24,8 +24,22 @@ import java.lang.reflect.ParameterizedType;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class RendererPropertyUtils {
 
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().propertiesCacheMaxSize();
+
+    private static final ClassValue<Cache<String, Class<?>>> propertyTypes = new ClassValue<Cache<String, Class<?>>>() {
+        @Override
+        protected Cache<String, Class<?>> computeValue(Class<?> type) {
+            return CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0)).build();
+        }
+    };
+
     /**
      * Provides an alternative to the bean utils {@link PropertyUtils#getPropertyDescriptor(java.lang.Object, java.lang.String)} .
      * Nevertheless only simple properties are supported.
@@ -64,6 +78,16 @@ public class RendererPropertyUtils {
      * @return
      */
     static public Class getPropertyType(Class type, String name) {
+        Cache<String, Class<?>> types = propertyTypes.get(type);
+        Class<?> result = types.getIfPresent(name);
+        if (result == null) {
+            result = computePropertyType(type, name);
+            types.put(name, result);
+        }
+        return result;
+    }
+
+    private static Class<?> computePropertyType(Class<?> type, String name) {
         String firstPart;
         String remaining;
 
@@ -95,7 +119,7 @@ public class RendererPropertyUtils {
             property = type.newInstance(); // ASSUMPTION: type is a complex
             // value with a default
             // constructor
-            PropertyUtils.setProperty(object, name, property);
+            PropertyAccessors.setProperty(object, name, property);
         }
 
         return property;
@@ -122,7 +146,7 @@ public class RendererPropertyUtils {
         try {
             int index = name.indexOf(".");
             if (index == -1) {
-                return PropertyUtils.getProperty(object, name);
+                return PropertyAccessors.getProperty(object, name);
             }
 
             String firstPart = name.substring(0, index);
@@ -159,7 +183,7 @@ public class RendererPropertyUtils {
         try {
             int index = name.lastIndexOf(".");
             if (index == -1) {
-                PropertyUtils.setProperty(object, name, value);
+                PropertyAccessors.setProperty(object, name, value);
                 return;
             }
 
@@ -168,7 +192,7 @@ public class RendererPropertyUtils {
 
             Object target = getCreatedProperty(object, firstPart, create);
             if (target != null) {
-                PropertyUtils.setProperty(target, remaining, value);
+                PropertyAccessors.setProperty(target, remaining, value);
             }
         } catch (IllegalAccessException e) {
             throw new RuntimeException(message, e);
@@ -20,39 +20,69 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import pt.ist.fenixWebFramework.renderers.exceptions.NoRendererException;
 
 public class RendererRegistry {
 
+    /*
+     * Used in the lookup cache instead of the null layout, which concurrent maps do not accept.
+     */
+    private static final String DEFAULT_LAYOUT = "\u0000";
+
     private final ClassHierarchyTable<Map<String, RendererDescription>> renderersTable;
 
+    /*
+     * Result of getRenderDescription for each concrete type and layout, including misses. Cleared whenever a renderer is
+     * registered; RenderKit.reset() discards the whole registry.
+     */
+    private final Map<Class, Map<String, Optional<RendererDescription>>> resolved = new ConcurrentHashMap<>();
+
     public RendererRegistry() {
         super();
 
         this.renderersTable = new ClassHierarchyTable<Map<String, RendererDescription>>();
     }
 
-    public void registerRenderer(Class type, String layout, Class renderer, Properties defaultProperties) {
-        Map<String, RendererDescription> layoutsTable = this.renderersTable.getUnspecific(type);
+    /*
+     * Layout tables are replaced instead of changed, so that concurrent lookups never read a table while it changes. The
+     * cached lookups are only cleared once the new table is visible.
+     */
+    public synchronized void registerRenderer(Class type, String layout, Class renderer, Properties defaultProperties) {
+        Map<String, RendererDescription> layoutsTable = new HashMap<String, RendererDescription>();
+        Map<String, RendererDescription> current = this.renderersTable.getUnspecific(type);
 
-        if (layoutsTable == null) {
-            this.renderersTable.put(type, new HashMap<String, RendererDescription>());
-            layoutsTable = this.renderersTable.getUnspecific(type);
+        if (current != null) {
+            layoutsTable.putAll(current);
         }
-
         layoutsTable.put(layout, new RendererDescription(renderer, defaultProperties));
+
+        this.renderersTable.put(type, layoutsTable);
+        this.resolved.clear();
     }
 
     public RendererDescription getRenderDescription(Class objectType, final String layout) {
-        Map<String, RendererDescription> layoutsTable = renderersTable.get(objectType, table -> table.get(layout) != null);
+        Map<String, Optional<RendererDescription>> byLayout = this.resolved.get(objectType);
+        if (byLayout == null) {
+            byLayout = this.resolved.computeIfAbsent(objectType, type -> new ConcurrentHashMap<>());
+        }
 
-        if (layoutsTable == null) {
+        String key = layout == null ? DEFAULT_LAYOUT : layout;
+        Optional<RendererDescription> description = byLayout.get(key);
+        if (description == null) {
+            Map<String, RendererDescription> layoutsTable = renderersTable.get(objectType, table -> table.get(layout) != null);
+            description = Optional.ofNullable(layoutsTable == null ? null : layoutsTable.get(layout));
+            byLayout.put(key, description);
+        }
+
+        if (!description.isPresent()) {
             throw new NoRendererException(objectType, layout);
         }
 
-        return layoutsTable.get(layout);
+        return description.get();
     }
 
     public RendererDescription getExactRenderDescription(Class objectType, String layout) {
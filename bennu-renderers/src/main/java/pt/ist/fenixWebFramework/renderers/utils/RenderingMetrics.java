@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+/**
+ * Receives the timings and sizes of the rendering of objects and of the
+ * processing of submitted forms. The implementation is chosen with the
+ * <code>rendering.metrics</code> configuration property and, when it is empty,
+ * nothing is measured at all.
+ * 
+ * Implementations are called by every request that renders something, so they
+ * must be thread safe and should never block.
+ * 
+ * @see JmxRenderingMetrics
+ */
+public interface RenderingMetrics {
+
+    public static final String DECODE = "decode";
+    public static final String RESTORE = "restore";
+    public static final String UPDATE = "update";
+    public static final String CONTROLLERS = "controllers";
+    public static final String VALIDATE = "validate";
+    public static final String COMMIT = "commit";
+    public static final String VIEWSTATE_ENCODE = "viewstate.encode";
+    public static final String VIEWSTATE_DECODE = "viewstate.decode";
+
+    /**
+     * A renderer produced a component. The time includes the renderers used
+     * for the slots of the object. Components are only counted for top level
+     * renders, <code>components</code> is 0 for the others.
+     */
+    public void rendered(Class<?> renderer, String layout, String schema, long nanos, int components);
+
+    /**
+     * The component of a rendering tag was written to the page. The size is the
+     * number of characters written, before they are encoded by the response.
+     */
+    public void written(Class<?> renderer, String layout, String schema, long nanos, long chars);
+
+    /**
+     * A phase of the processing of submitted view states. Only the view state
+     * phases report the size of the encoded view states, the others report 0.
+     */
+    public void phase(String phase, long nanos, long bytes);
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded cache of resolved resource strings and slot labels, including the
+ * ones that could not be found. Keys always include the locale and the module
+ * of the current request, since both decide which bundle is used.
+ * 
+ * The size is bounded by the <code>labels.cache.maxSize</code> configuration
+ * property. The cache is cleared by {@link RenderKit#reset()} and whenever the
+ * bundle or module resolver are replaced.
+ */
+final class ResourceStringCache {
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().labelsCacheMaxSize();
+
+    private static final Cache<List<Object>, Optional<?>> CACHE = CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0))
+            .build();
+
+    private ResourceStringCache() {
+    }
+
+    static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    static <T> Optional<T> get(List<Object> key, Supplier<Optional<T>> loader) {
+        if (MAX_SIZE <= 0) {
+            return loader.get();
+        }
+        Optional<T> value = (Optional<T>) CACHE.getIfPresent(key);
+        if (value == null) {
+            value = loader.get();
+            CACHE.put(key, value);
+        }
+        return value;
+    }
+
+    static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+}
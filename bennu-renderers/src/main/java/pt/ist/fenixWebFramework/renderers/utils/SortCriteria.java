@@ -0,0 +1,237 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sort criteria in the form accepted by
+ * {@link RenderUtils#sortCollectionWithCriteria(Collection, String)}.
+ * 
+ * Sorting extracts the slot values of each element once, with collation keys
+ * for strings, and then sorts those keys instead of reading the slots on every
+ * comparison.
+ */
+public class SortCriteria {
+
+    private static final int PARALLEL_SORT_THRESHOLD = 8192;
+
+    private final String[] slots;
+
+    private final boolean[] ascending;
+
+    private SortCriteria(String[] slots, boolean[] ascending) {
+        this.slots = slots;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @return the parsed criteria or <code>null</code> if no slot is given
+     */
+    public static SortCriteria parse(String criteria) {
+        if (criteria == null) {
+            return null;
+        }
+
+        List<String> slots = new ArrayList<>();
+        List<Boolean> ascending = new ArrayList<>();
+
+        for (String singleCriteria : criteria.split(",")) {
+            singleCriteria = singleCriteria.trim();
+
+            if (singleCriteria.length() > 0) {
+                String slot;
+                String order;
+
+                int orderIndex = singleCriteria.indexOf("=");
+                if (orderIndex != -1) {
+                    slot = singleCriteria.substring(0, orderIndex);
+                    order = singleCriteria.substring(orderIndex + 1);
+                } else {
+                    slot = singleCriteria;
+                    order = null;
+                }
+
+                slots.add(slot);
+                ascending.add(order == null || order.startsWith("asc"));
+            }
+        }
+
+        if (slots.isEmpty()) {
+            return null;
+        }
+
+        boolean[] orders = new boolean[ascending.size()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = ascending.get(i);
+        }
+        return new SortCriteria(slots.toArray(new String[slots.size()]), orders);
+    }
+
+    public <T> List<T> sort(Collection<? extends T> collection) {
+        List<T> result = new ArrayList<T>(collection);
+        if (result.size() < 2) {
+            return result;
+        }
+
+        SortKey[] keys = extractKeys(result);
+        if (keys.length >= PARALLEL_SORT_THRESHOLD && hasPlainValues(keys)) {
+            Arrays.parallelSort(keys, keyComparator());
+        } else {
+            Arrays.sort(keys, keyComparator());
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            result.set(i, (T) keys[i].element);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first <code>count</code> elements of the sorted collection,
+     * in order, without sorting the remaining ones. Uses a bounded heap, so the
+     * cost is O(n log count) instead of a full sort.
+     */
+    public <T> List<T> selectFirst(Collection<? extends T> collection, int count) {
+        if (count >= collection.size()) {
+            return sort(collection);
+        }
+
+        List<T> result = new ArrayList<T>(Math.max(count, 0));
+        if (count <= 0) {
+            return result;
+        }
+
+        Comparator<SortKey> comparator = keyComparator();
+        PriorityQueue<SortKey> heap = new PriorityQueue<SortKey>(count, comparator.reversed());
+        for (SortKey key : extractKeys(collection)) {
+            if (heap.size() < count) {
+                heap.add(key);
+            } else if (comparator.compare(key, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(key);
+            }
+        }
+
+        SortKey[] keys = heap.toArray(new SortKey[heap.size()]);
+        Arrays.sort(keys, comparator);
+        for (SortKey key : keys) {
+            result.add((T) key.element);
+        }
+        return result;
+    }
+
+    SortKey[] extractKeys(Collection<?> collection) {
+        Collator collator = Collator.getInstance();
+        SortKey[] keys = new SortKey[collection.size()];
+
+        int index = 0;
+        for (Object element : collection) {
+            keys[index] = new SortKey(element, index, extractValues(element, collator));
+            index++;
+        }
+        return keys;
+    }
+
+    private Object[] extractValues(Object element, Collator collator) {
+        Object[] values = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            Object value;
+            try {
+                value = PropertyAccessors.getProperty(element, slots[i]);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            values[i] = value instanceof String ? collator.getCollationKey((String) value) : value;
+        }
+        return values;
+    }
+
+    Comparator<SortKey> keyComparator() {
+        return new Comparator<SortKey>() {
+            @Override
+            public int compare(SortKey key1, SortKey key2) {
+                for (int i = 0; i < slots.length; i++) {
+                    int comparison =
+                            ascending[i] ? compareValues(key1.values[i], key2.values[i]) : compareValues(key2.values[i],
+                                    key1.values[i]);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return Integer.compare(key1.index, key2.index);
+            }
+        };
+    }
+
+    /*
+     * Large collections are sorted in the common fork join pool, whose threads have no transaction, locale or request, so
+     * that is only done when comparing the values never runs application code.
+     */
+    private static boolean hasPlainValues(SortKey[] keys) {
+        for (SortKey key : keys) {
+            for (Object value : key.values) {
+                if (value != null && !isPlainValue(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPlainValue(Object value) {
+        return value instanceof CollationKey || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum;
+    }
+
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null && value2 == null) {
+            return 0;
+        } else if (value1 == null) {
+            return 1;
+        } else if (value2 == null) {
+            return -1;
+        } else if (value1 instanceof CollationKey && value2 instanceof CollationKey) {
+            return ((CollationKey) value1).compareTo((CollationKey) value2);
+        } else {
+            return ((Comparable<Object>) value1).compareTo(value2);
+        }
+    }
+
+    static final class SortKey {
+        final Object element;
+
+        final int index;
+
+        final Object[] values;
+
+        SortKey(Object element, int index, Object[] values) {
+            this.element = element;
+            this.index = index;
+            this.values = values;
+        }
+    }
+}
@@ -146,7 +146,7 @@ public class FileValidator extends HtmlValidator {
         long value;
         long multiplier = 1;
 
-        if (maxSize.matches("[0-9]+(m|k)?b")) {
+        if (ValidatorPatterns.matches("[0-9]+(m|k)?b", maxSize)) {
             int index;
 
             index = maxSize.indexOf("mb");
@@ -240,7 +240,7 @@ public class FileValidator extends HtmlValidator {
                 accepted = accepted.replace("*", ".*");
             }
 
-            if (contentType.matches(accepted)) {
+            if (ValidatorPatterns.matches(accepted, contentType)) {
                 return true;
             }
         }
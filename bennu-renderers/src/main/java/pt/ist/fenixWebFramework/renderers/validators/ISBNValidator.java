@@ -31,7 +31,7 @@ public class ISBNValidator extends HtmlValidator {
 
     @Override
     public void performValidation() {
-        boolean valid = new org.apache.commons.validator.routines.ISBNValidator().isValid(getComponent().getValue());
+        boolean valid = org.apache.commons.validator.routines.ISBNValidator.getInstance().isValid(getComponent().getValue());
         setValid(valid);
 
     }
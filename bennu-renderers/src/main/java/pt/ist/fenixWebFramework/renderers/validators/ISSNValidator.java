@@ -49,7 +49,7 @@ public class ISSNValidator extends RegexpValidator {
     }
 
     private boolean isCheckSumValid(String value) {
-        value = value.replaceAll("-", "");
+        value = value.replace("-", "");
         int res = 0;
         for (int i = 0; i < 7; i++) {
             res += (8 - i) * (value.charAt(i) - '0');
@@ -69,7 +69,7 @@ public class RegexpValidator extends HtmlValidator {
     @Override
     public void performValidation() {
         String text = getValue();
-        setValid(text.matches(getRegexp()));
+        setValid(ValidatorPatterns.matches(getRegexp(), text));
     }
 
     @Override
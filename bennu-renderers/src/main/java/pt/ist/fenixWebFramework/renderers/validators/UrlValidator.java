@@ -22,6 +22,9 @@ public class UrlValidator extends HtmlValidator {
 
     private static final String[] validSchemes = new String[] { "http", "https" };
 
+    private static final org.apache.commons.validator.routines.UrlValidator URL_VALIDATOR =
+            new org.apache.commons.validator.routines.UrlValidator(validSchemes);
+
     private static final String DEFAULT_SCHEME = "http";
 
     private boolean required;
@@ -55,9 +58,7 @@ public class UrlValidator extends HtmlValidator {
     @Override
     public void performValidation() {
         if (hasValue()) {
-            org.apache.commons.validator.routines.UrlValidator urlValidator =
-                    new org.apache.commons.validator.routines.UrlValidator(validSchemes);
-            setValid(urlValidator.isValid(buildUrlForValidation()));
+            setValid(URL_VALIDATOR.isValid(buildUrlForValidation()));
         } else {
             setValid(!isRequired());
         }
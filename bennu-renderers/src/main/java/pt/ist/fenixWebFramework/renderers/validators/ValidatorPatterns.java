@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.validators;
+
+import java.util.regex.Pattern;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Compiled regular expressions shared by all validators, since the expressions
+ * come from the configuration and are the same for every request.
+ * 
+ * The size is bounded by the <code>validators.patterns.maxSize</code>
+ * configuration property.
+ */
+final class ValidatorPatterns {
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().validatorPatternsMaxSize();
+
+    private static final Cache<String, Pattern> CACHE = CacheBuilder.newBuilder().maximumSize(Math.max(MAX_SIZE, 0)).build();
+
+    private ValidatorPatterns() {
+    }
+
+    static Pattern compile(String regex) {
+        if (MAX_SIZE <= 0) {
+            return Pattern.compile(regex);
+        }
+        Pattern pattern = CACHE.getIfPresent(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            CACHE.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    static boolean matches(String regex, CharSequence text) {
+        return compile(regex).matcher(text).matches();
+    }
+}
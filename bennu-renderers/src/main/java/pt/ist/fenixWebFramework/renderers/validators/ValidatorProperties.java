@@ -3,6 +3,8 @@ package pt.ist.fenixWebFramework.renderers.validators;
 import java.io.Serializable;
 import java.util.Properties;
 
+import pt.ist.fenixWebFramework.renderers.utils.PropertySetters;
+
 public class ValidatorProperties implements Serializable {
 
     private static final long serialVersionUID = -928420849795251675L;
@@ -10,6 +12,8 @@ public class ValidatorProperties implements Serializable {
     private final Class<HtmlValidator> type;
     private final Properties properties;
 
+    private transient volatile PropertySetters.Plan plan;
+
     public ValidatorProperties(Class<HtmlValidator> type, Properties properties) {
         super();
         this.type = type;
@@ -24,4 +28,24 @@ public class ValidatorProperties implements Serializable {
         return properties;
     }
 
+    /**
+     * Creates a new validator of this type with these properties. Validators
+     * keep per component state so each slot gets its own instance, but the
+     * constructor and the property conversions are only resolved once.
+     */
+    public HtmlValidator newValidator() {
+        PropertySetters setters = PropertySetters.forType(type);
+        HtmlValidator validator = (HtmlValidator) setters.newInstance();
+
+        if (properties != null) {
+            PropertySetters.Plan plan = this.plan;
+            if (plan == null) {
+                this.plan = plan = setters.prepare(properties);
+            }
+            plan.apply(validator);
+        }
+
+        return validator;
+    }
+
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.ajax;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.StreamingAutoCompleteProvider;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+/**
+ * The searches of an auto complete field of a page. Only the latest query of a field is executed: queries that arrive
+ * while a search is running wait for it, and the ones superseded meanwhile, as well as the running search, are abandoned.
+ * Their responses are empty, and ignored by the script of the field, which only shows the response to its latest request.
+ * 
+ * When a search finds all its results within the requested page, and there are at most
+ * <code>autocomplete.cache.maxResults</code>, they are kept for <code>autocomplete.cache.timeToLive</code> seconds and the
+ * provider may answer the following queries by filtering them. Searches never fetch more than the requested page to fill
+ * the cache, so only the queries that follow a selective one are narrowed.
+ * 
+ * Each session keeps the fields of its <code>autocomplete.cache.maxFields</code> most recently used pages. The session
+ * attribute is set again after every change, so that replicated and persistent sessions see it.
+ */
+final class AutoCompleteField implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SESSION_ATTRIBUTE = AutoCompleteField.class.getName();
+
+    private static final int MAX_RESULTS = RenderersConfigurationManager.getConfiguration().autoCompleteCacheMaxResults();
+
+    private static final int MAX_FIELDS = RenderersConfigurationManager.getConfiguration().autoCompleteCacheMaxFields();
+
+    private static final long TIME_TO_LIVE = TimeUnit.SECONDS.toNanos(RenderersConfigurationManager.getConfiguration()
+            .autoCompleteCacheTimeToLive());
+
+    private final AtomicLong latest = new AtomicLong();
+
+    private transient String cachedValue;
+
+    private transient List<Object> cachedResults;
+
+    private transient long cachedAt;
+
+    static AutoCompleteField get(HttpServletRequest request, String key) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+
+        Fields fields = getFields(session);
+        if (fields == null) {
+            synchronized (AutoCompleteField.class) {
+                fields = getFields(session);
+                if (fields == null) {
+                    fields = new Fields();
+                    session.setAttribute(SESSION_ATTRIBUTE, fields);
+                }
+            }
+        }
+        AutoCompleteField field = fields.get(key, MAX_FIELDS);
+        session.setAttribute(SESSION_ATTRIBUTE, fields);
+        return field;
+    }
+
+    private static Fields getFields(HttpSession session) {
+        Object fields = session.getAttribute(SESSION_ATTRIBUTE);
+        return fields instanceof Fields ? (Fields) fields : null;
+    }
+
+    /**
+     * The first <code>maxCount</code> results of the provider, or none if a newer query for this field arrived meanwhile.
+     */
+    @SuppressWarnings("unchecked")
+    <T> Collection<T> search(StreamingAutoCompleteProvider<T> provider, Map<String, String> argsMap, String value, int maxCount) {
+        long query = latest.incrementAndGet();
+
+        synchronized (this) {
+            if (latest.get() != query) {
+                return Collections.emptyList();
+            }
+
+            Stream<T> results = narrow(provider, argsMap, value);
+            if (results == null) {
+                results = provider.streamSearchResults(argsMap, value, maxCount);
+            }
+
+            int count = maxCount < 0 ? Integer.MAX_VALUE : maxCount;
+
+            List<T> found = new ArrayList<T>();
+            Iterator<T> iterator = results.iterator();
+            while (found.size() < count && iterator.hasNext()) {
+                if (latest.get() != query) {
+                    return Collections.emptyList();
+                }
+                found.add(iterator.next());
+            }
+
+            if (MAX_RESULTS > 0 && found.size() <= MAX_RESULTS && !iterator.hasNext()) {
+                cachedValue = value;
+                cachedResults = Collections.unmodifiableList((List<Object>) (List<?>) found);
+                cachedAt = System.nanoTime();
+            }
+
+            return found;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Stream<T> narrow(StreamingAutoCompleteProvider<T> provider, Map<String, String> argsMap, String value) {
+        if (cachedResults == null || System.nanoTime() - cachedAt > TIME_TO_LIVE) {
+            cachedValue = null;
+            cachedResults = null;
+            return null;
+        }
+        return provider.narrowSearchResults(argsMap, value, cachedValue, (List<T>) (List<?>) cachedResults);
+    }
+
+    /*
+     * The fields of a session, the least recently used are discarded first.
+     */
+    static final class Fields implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LinkedHashMap<String, AutoCompleteField> fields = new LinkedHashMap<String, AutoCompleteField>(16,
+                0.75f, true);
+
+        synchronized AutoCompleteField get(String key, int maxFields) {
+            AutoCompleteField field = fields.get(key);
+            if (field == null) {
+                field = new AutoCompleteField();
+                fields.put(key, field);
+                Iterator<AutoCompleteField> iterator = fields.values().iterator();
+                while (fields.size() > maxFields && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            return field;
+        }
+    }
+}
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -32,6 +34,7 @@ import javax.servlet.http.HttpSession;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.AutoCompleteProvider;
+import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.StreamingAutoCompleteProvider;
 
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
@@ -60,6 +63,19 @@ public class AutoCompleteServlet extends HttpServlet {
 
     private static final int DEFAULT_MAX_COUNT = 20;
 
+    /*
+     * Sent by the script of the field, identifies it among the ones of the page.
+     */
+    private static final String INPUT_NAME = "inputName";
+
+    /*
+     * Generated by the script of the field, identifies the page among the ones of the session that show the same field.
+     */
+    private static final String FIELD_ID = "fieldId";
+
+    private static final ConcurrentMap<String, AutoCompleteProvider<?>> PROVIDERS =
+            new ConcurrentHashMap<String, AutoCompleteProvider<?>>();
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         process(request, response);
@@ -88,7 +104,7 @@ public class AutoCompleteServlet extends HttpServlet {
         Map<String, String> argsMap = getArgsMap(request.getParameter("args"));
         int maxCount = getNumber(request.getParameter(MAX_COUNT), DEFAULT_MAX_COUNT);
 
-        Collection<?> result = getSearchResult(argsMap, value, maxCount);
+        Collection<?> result = getCoalescedSearchResult(request, argsMap, value, maxCount);
 
         String labelField = request.getParameter(LABEL_FIELD);
         String format = request.getParameter(FORMAT);
@@ -111,19 +127,25 @@ public class AutoCompleteServlet extends HttpServlet {
     private boolean isValidChecksum(final HttpServletRequest request, final String checksum) {
         //let's just extract the meaningful/important parameters. i.e. the ones
         //parsed to the getResponseHtml
-        String checksumRelevantString = "";
-        checksumRelevantString += request.getParameter(MAX_COUNT);
-        checksumRelevantString += request.getParameter(LABEL_FIELD);
-        checksumRelevantString += request.getParameter(FORMAT);
-        checksumRelevantString += request.getParameter(VALUE_FIELD);
-        checksumRelevantString += request.getParameter(STYLE_CLASS);
+        if (checksum == null || checksum.isEmpty()) {
+            return false;
+        }
+
+        String checksumRelevantString =
+                new StringBuilder().append(request.getParameter(MAX_COUNT)).append(request.getParameter(LABEL_FIELD))
+                        .append(request.getParameter(FORMAT)).append(request.getParameter(VALUE_FIELD))
+                        .append(request.getParameter(STYLE_CLASS)).toString();
 
         HttpSession session = request.getSession(false);
 
-        return checksum.length() > 0
-                && (checksum.equals(GenericChecksumRewriter.calculateChecksum(checksumRelevantString, session)) || checksum
-                        .equals(GenericChecksumRewriter.calculateChecksum(
-                                RequestChecksumFilter.decodeURL(checksumRelevantString, JAVASCRIPT_LIBRARY_ENCODING), session)));
+        if (checksum.equals(GenericChecksumRewriter.calculateChecksum(checksumRelevantString, session))) {
+            return true;
+        }
+
+        // the decoded parameters only need to be checked when decoding changes them
+        String decodedString = RequestChecksumFilter.decodeURL(checksumRelevantString, JAVASCRIPT_LIBRARY_ENCODING);
+        return !decodedString.equals(checksumRelevantString)
+                && checksum.equals(GenericChecksumRewriter.calculateChecksum(decodedString, session));
     }
 
     private int getNumber(String parameter, int defaultValue) {
@@ -138,27 +160,69 @@ public class AutoCompleteServlet extends HttpServlet {
         }
     }
 
+    /*
+     * Searches of streaming providers only execute the latest query of each field of a page, see AutoCompleteField. Requests
+     * without a field id, from older scripts, are not coalesced.
+     */
+    private Collection<?> getCoalescedSearchResult(HttpServletRequest request, Map<String, String> argsMap, String value,
+            int maxCount) {
+        AutoCompleteProvider<?> provider = getProvider(argsMap.get("provider"));
+        String fieldId = request.getParameter(FIELD_ID);
+        if (provider instanceof StreamingAutoCompleteProvider && fieldId != null && !fieldId.isEmpty()) {
+            AutoCompleteField field =
+                    AutoCompleteField.get(request,
+                            request.getParameter("args") + "|" + request.getParameter(INPUT_NAME) + "|" + fieldId);
+            if (field != null) {
+                return field.search((StreamingAutoCompleteProvider<?>) provider, argsMap, value, maxCount);
+            }
+        }
+        return getSearchResult(argsMap, value, maxCount);
+    }
+
     protected Collection<?> getSearchResult(Map<String, String> argsMap, String value, int maxCount) {
         AutoCompleteProvider<?> provider = getProvider(argsMap.get("provider"));
         return provider.getSearchResults(argsMap, value, maxCount);
     }
 
-    private AutoCompleteProvider<?> getProvider(String providerClass) {
-        try {
-            Class<?> provider = Class.forName(providerClass);
-            return (AutoCompleteProvider<?>) provider.newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("cannot find provider " + providerClass);
+    /*
+     * Providers are stateless, so a single instance of each class is shared by all requests.
+     */
+    private static AutoCompleteProvider<?> getProvider(String providerClass) {
+        AutoCompleteProvider<?> provider = PROVIDERS.get(providerClass);
+        if (provider == null) {
+            try {
+                provider = (AutoCompleteProvider<?>) Class.forName(providerClass).newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException("cannot find provider " + providerClass, e);
+            }
+            AutoCompleteProvider<?> previous = PROVIDERS.putIfAbsent(providerClass, provider);
+            if (previous != null) {
+                provider = previous;
+            }
         }
+        return provider;
     }
 
     private Map<String, String> getArgsMap(String encodedServiceArgs) {
-        String[] serviceArgsArray = encodedServiceArgs.split(",");
         Map<String, String> serviceArgsMap = new HashMap<String, String>();
 
-        for (String serviceArg : serviceArgsArray) {
-            String[] argNameArgValue = serviceArg.split("=");
-            serviceArgsMap.put(argNameArgValue[0], argNameArgValue[1]);
+        int start = 0;
+        while (start < encodedServiceArgs.length()) {
+            int end = encodedServiceArgs.indexOf(',', start);
+            if (end == -1) {
+                end = encodedServiceArgs.length();
+            }
+
+            int separator = encodedServiceArgs.indexOf('=', start);
+            if (separator != -1 && separator < end) {
+                int valueEnd = encodedServiceArgs.indexOf('=', separator + 1);
+                if (valueEnd == -1 || valueEnd > end) {
+                    valueEnd = end;
+                }
+                serviceArgsMap.put(encodedServiceArgs.substring(start, separator),
+                        encodedServiceArgs.substring(separator + 1, valueEnd));
+            }
+            start = end + 1;
         }
 
         return serviceArgsMap;
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import pt.ist.fenixWebFramework.renderers.components.state.EditRequest.ViewStateExpiredException;
+
+/**
+ * Shows the form expired page when the view states submitted to a servlet that is not handled by the struts request
+ * processor are no longer in the view state store, instead of answering with an internal error.
+ */
+public class ViewStateExpiredFilter implements Filter {
+
+    public static final String EXPIRED_PAGE = "/bennu-renderers/expired.jsp";
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!isViewStateExpired(e) || response.isCommitted()) {
+                throw e;
+            }
+            response.resetBuffer();
+            request.getRequestDispatcher(EXPIRED_PAGE).forward(request, response);
+        }
+    }
+
+    private static boolean isViewStateExpired(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ViewStateExpiredException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
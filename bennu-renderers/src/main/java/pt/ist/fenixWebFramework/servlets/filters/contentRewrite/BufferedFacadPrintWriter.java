@@ -18,10 +18,16 @@
  */
 package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 
 import javax.servlet.http.HttpSession;
 
+/**
+ * @deprecated Buffers the whole page in memory before rewriting it. {@link ResponseWrapper} now uses a
+ *             {@link ChecksumRewritingWriter} when the request is available.
+ */
+@Deprecated
 public class BufferedFacadPrintWriter extends PrintWriter {
 
     final StringBuilder stringBuilder = new StringBuilder();
@@ -67,8 +73,13 @@ public class BufferedFacadPrintWriter extends PrintWriter {
     }
 
     public void writeRealResponse(HttpSession session) {
-        printWriter.write(new GenericChecksumRewriter(session).rewrite(this.stringBuilder.toString()));
-        printWriter.flush();
+        final ChecksumRewritingWriter writer = new ChecksumRewritingWriter(printWriter, new GenericChecksumRewriter(session));
+        try {
+            writer.write(this.stringBuilder.toString());
+            writer.finish();
+        } catch (IOException e) {
+            setError();
+        }
         printWriter.close();
     }
 
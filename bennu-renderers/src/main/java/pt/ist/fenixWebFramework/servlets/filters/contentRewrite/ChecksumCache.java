@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.util.Objects;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Bounded LRU cache of url checksums, keyed by session secret and url, consulted both when rewriting links and when validating
+ * requests. Menus, pagers and row actions repeat the same urls on every page of a session, so most checksums are computed
+ * only once.
+ * 
+ * Entries are weighed by the approximate number of bytes they retain, and the total is bounded by the
+ * <code>checksum.cache.maxSize</code> configuration property.
+ */
+public final class ChecksumCache {
+
+    /*
+     * Approximate overhead of an entry (key, strings and cache node), in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private static final int MAX_SIZE = RenderersConfigurationManager.getConfiguration().checksumCacheMaxSize();
+
+    private static final Cache<Key, String> CACHE = CacheBuilder.newBuilder().maximumWeight(MAX_SIZE)
+            .weigher((Key key, String checksum) -> key.weight() + 2 * checksum.length()).recordStats().build();
+
+    private ChecksumCache() {
+    }
+
+    /**
+     * Returns the checksum of the url contained in <code>source</code> between <code>start</code> (inclusive) and
+     * <code>end</code> (exclusive), computing it only if it is not already cached.
+     */
+    public static String get(final String source, final int start, final int end, final String sessionSecret) {
+        if (MAX_SIZE <= 0) {
+            return ChecksumEngine.calculate(source, start, end, sessionSecret);
+        }
+        final Key key = new Key(sessionSecret, normalize(source, start, end));
+        String checksum = CACHE.getIfPresent(key);
+        if (checksum == null) {
+            checksum = ChecksumEngine.calculate(key.url, sessionSecret);
+            CACHE.put(key, checksum);
+        }
+        return checksum;
+    }
+
+    public static String get(final String url, final String sessionSecret) {
+        return get(url, 0, url.length(), sessionSecret);
+    }
+
+    /*
+     * The fragment does not take part in the checksum, so links differing only in it share the entry.
+     */
+    private static String normalize(final String source, final int start, int end) {
+        final int indexOfLastCardinal = source.lastIndexOf('#', end - 1);
+        if (indexOfLastCardinal >= start) {
+            end = indexOfLastCardinal;
+        }
+        return start == 0 && end == source.length() ? source : source.substring(start, end);
+    }
+
+    public static CacheStats getStats() {
+        return CACHE.stats();
+    }
+
+    public static long getHitCount() {
+        return CACHE.stats().hitCount();
+    }
+
+    public static long getMissCount() {
+        return CACHE.stats().missCount();
+    }
+
+    public static long getSize() {
+        return CACHE.size();
+    }
+
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final String secret;
+
+        private final String url;
+
+        private final int hashCode;
+
+        Key(final String secret, final String url) {
+            this.secret = secret;
+            this.url = url;
+            this.hashCode = 31 * Objects.hashCode(secret) + url.hashCode();
+        }
+
+        int weight() {
+            return ENTRY_OVERHEAD + 2 * url.length() + (secret == null ? 0 : 2 * secret.length());
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key other = (Key) obj;
+                return hashCode == other.hashCode && url.equals(other.url) && Objects.equals(secret, other.secret);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Computes the checksum of a url, as used by {@link GenericChecksumRewriter} and {@link RequestChecksumFilter}.
+ * 
+ * The url is split into path, parameter names and parameter values (separated by <code>?</code>, <code>&amp;amp;</code> or
+ * <code>&amp;</code>), those tokens are sorted and de-duplicated and the result is signed with HmacSHA256, keyed by the
+ * session secret. Tokens are kept as offsets into the original string and sorted in place, and all buffers, as well as the
+ * {@link Mac} itself, are reused by each thread, so computing a checksum does not allocate anything but the resulting string.
+ */
+public final class ChecksumEngine {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /*
+     * Used when there is no session secret (i.e. anonymous requests), as HMAC does not accept empty keys.
+     */
+    private static final String ANONYMOUS_SECRET = GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME;
+
+    private static final String[] IGNORED_PREFIXES = { GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME, "page=",
+            "org.apache.struts.action.LOCALE", "javax.servlet.request.", "ok" };
+
+    private static final String ENCODED_AMPERSAND = "&amp;";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int INSERTION_SORT_THRESHOLD = 12;
+
+    private static final ThreadLocal<ChecksumEngine> ENGINE = ThreadLocal.withInitial(ChecksumEngine::new);
+
+    private final Mac mac;
+
+    private String key = null;
+
+    private String source;
+
+    private int[] starts = new int[32];
+
+    private int[] ends = new int[32];
+
+    private int size;
+
+    private final byte[] bytes = new byte[256];
+
+    private final char[] hex = new char[64];
+
+    private ChecksumEngine() {
+        try {
+            this.mac = Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not create checksum engine!", e);
+        }
+    }
+
+    public static String calculate(final String url, final String sessionSecret) {
+        return calculate(url, 0, url.length(), sessionSecret);
+    }
+
+    /**
+     * Computes the checksum of the url contained in <code>source</code> between <code>start</code> (inclusive) and
+     * <code>end</code> (exclusive).
+     */
+    public static String calculate(final String source, final int start, final int end, final String sessionSecret) {
+        final ChecksumEngine engine = ENGINE.get();
+        try {
+            return engine.compute(source, start, end, sessionSecret == null ? ANONYMOUS_SECRET : sessionSecret);
+        } finally {
+            engine.source = null;
+        }
+    }
+
+    private String compute(final String source, final int start, int end, final String secret) {
+        this.source = source;
+        this.size = 0;
+
+        final int indexOfLastCardinal = source.lastIndexOf('#', end - 1);
+        if (indexOfLastCardinal >= start) {
+            end = indexOfLastCardinal;
+        }
+        tokenize(start, end);
+        sort(0, size - 1);
+
+        init(secret);
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || compare(i - 1, i) != 0) {
+                update(starts[i], ends[i]);
+            }
+        }
+        final byte[] digest = mac.doFinal();
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex, 0, 2 * digest.length);
+    }
+
+    private void init(final String secret) {
+        if (!secret.equals(key)) {
+            try {
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            } catch (InvalidKeyException e) {
+                throw new RuntimeException("Could not compute checksum!", e);
+            }
+            key = secret;
+        }
+    }
+
+    private void tokenize(final int start, final int end) {
+        int partStart = start;
+        int i = start;
+        while (i < end) {
+            final char c = source.charAt(i);
+            if (c == '?') {
+                addPart(partStart, i);
+                partStart = ++i;
+            } else if (c == '&') {
+                addPart(partStart, i);
+                i += source.startsWith(ENCODED_AMPERSAND, i) && i + ENCODED_AMPERSAND.length() <= end ? ENCODED_AMPERSAND
+                        .length() : 1;
+                partStart = i;
+            } else {
+                i++;
+            }
+        }
+        addPart(partStart, end);
+    }
+
+    private void addPart(final int start, final int end) {
+        if (start >= end) {
+            return;
+        }
+        for (final String prefix : IGNORED_PREFIXES) {
+            if (end - start >= prefix.length() && source.startsWith(prefix, start)) {
+                return;
+            }
+        }
+        final int indexOfEquals = source.indexOf('=', start);
+        if (indexOfEquals >= 0 && indexOfEquals < end) {
+            addToken(start, indexOfEquals);
+            addToken(indexOfEquals + 1, end);
+        } else {
+            addToken(start, end);
+        }
+    }
+
+    private void addToken(final int start, final int end) {
+        if (size == starts.length) {
+            final int[] newStarts = new int[size * 2];
+            final int[] newEnds = new int[size * 2];
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            starts = newStarts;
+            ends = newEnds;
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /*
+     * Same ordering as String.compareTo, without extracting the substrings.
+     */
+    private int compare(final int a, final int b) {
+        final int aStart = starts[a];
+        final int bStart = starts[b];
+        final int aLength = ends[a] - aStart;
+        final int bLength = ends[b] - bStart;
+        final int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            final char x = source.charAt(aStart + i);
+            final char y = source.charAt(bStart + i);
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private void swap(final int a, final int b) {
+        final int start = starts[a];
+        final int end = ends[a];
+        starts[a] = starts[b];
+        ends[a] = ends[b];
+        starts[b] = start;
+        ends[b] = end;
+    }
+
+    private void sort(int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            final int middle = (low + high) >>> 1;
+            if (compare(middle, low) < 0) {
+                swap(middle, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(high, middle) < 0) {
+                swap(high, middle);
+            }
+            swap(middle, high - 1);
+            final int pivot = high - 1;
+            int i = low;
+            int j = high - 1;
+            while (true) {
+                while (compare(++i, pivot) < 0) {
+                }
+                while (compare(--j, pivot) > 0) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(i, j);
+            }
+            swap(i, pivot);
+            if (i - low < high - i) {
+                sort(low, i - 1);
+                low = i + 1;
+            } else {
+                sort(i + 1, high);
+                high = i - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    /*
+     * Feeds the UTF-8 encoding of the token to the mac, followed by a separator, so that different token boundaries
+     * produce different checksums.
+     */
+    private void update(final int start, final int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            if (length + 5 > bytes.length) {
+                mac.update(bytes, 0, length);
+                length = 0;
+            }
+            final char c = source.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(source.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, source.charAt(++i));
+                bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = (byte) '?';
+            } else {
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        bytes[length++] = 0;
+        mac.update(bytes, 0, length);
+    }
+
+}
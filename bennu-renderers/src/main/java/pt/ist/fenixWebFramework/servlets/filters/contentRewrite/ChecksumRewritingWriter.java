@@ -0,0 +1,299 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Writer that injects request checksums in links and forms as the page is being written, instead of buffering the whole page
+ * before rewriting it.
+ * 
+ * Text is forwarded to the underlying writer as soon as it is known not to belong to an <code>&lt;a </code> or
+ * <code>&lt;form </code> tag, so only the tag currently being written is kept in memory. Once the tag is closed it is handed
+ * to {@link GenericChecksumRewriter#rewriteTag(String, StringBuilder)} and the result is forwarded. Tags longer than
+ * {@value #MAX_TAG_LENGTH} characters, usually an attribute with an unterminated quote, are cut at their first
+ * <code>&gt;</code> and rewritten, as if quotes were ignored, and the remaining text is written again. When there is no
+ * <code>&gt;</code> to cut at, they are forwarded unchanged.
+ * 
+ * Flushing this writer does not flush the underlying writer, so that the response is only committed when the container's
+ * buffer fills up or when {@link #finish()} is invoked.
+ */
+public class ChecksumRewritingWriter extends Writer {
+
+    private static final char OPEN = '<';
+    private static final char CLOSE = '>';
+
+    private static final int MAX_TAG_LENGTH = 8192;
+
+    private static final int LENGTH_OF_NO_CHECKSUM_PREFIX = GenericChecksumRewriter.NO_CHECKSUM_PREFIX.length();
+
+    private final Writer writer;
+
+    private final HttpServletRequest request;
+
+    private GenericChecksumRewriter rewriter;
+
+    private final StringBuilder tag = new StringBuilder();
+
+    private final StringBuilder rewritten = new StringBuilder();
+
+    private final char[] chunk = new char[1024];
+
+    private final char[] pending = new char[1024];
+
+    private final char[] trail = new char[LENGTH_OF_NO_CHECKSUM_PREFIX];
+
+    private int trailPosition = 0;
+
+    private boolean insideTag = false;
+
+    private char quote = 0;
+
+    private char previous = 0;
+
+    public ChecksumRewritingWriter(final Writer writer, final GenericChecksumRewriter rewriter) {
+        this.writer = writer;
+        this.request = null;
+        this.rewriter = rewriter;
+    }
+
+    /**
+     * The session secret is only resolved when the first checksum is computed, so pages rendered after the session has been
+     * created (e.g. right after login) are still signed with the right secret.
+     */
+    public ChecksumRewritingWriter(final Writer writer, final HttpServletRequest request) {
+        this.writer = writer;
+        this.request = request;
+        this.rewriter = null;
+    }
+
+    private GenericChecksumRewriter getRewriter() {
+        if (rewriter == null) {
+            rewriter = new GenericChecksumRewriter(request.getSession(false));
+        }
+        return rewriter;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        final int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (tag.length() == 0) {
+                final int indexOfOpen = indexOfOpen(cbuf, i, end);
+                if (indexOfOpen < 0) {
+                    emit(cbuf, i, end - i);
+                    return;
+                }
+                emit(cbuf, i, indexOfOpen - i);
+                openTag();
+                i = indexOfOpen + 1;
+            } else {
+                consume(cbuf[i++]);
+            }
+        }
+    }
+
+    @Override
+    public void write(final String str, int off, int len) throws IOException {
+        while (len > 0) {
+            final int length = Math.min(len, chunk.length);
+            str.getChars(off, off + length, chunk, 0);
+            write(chunk, 0, length);
+            off += length;
+            len -= length;
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (tag.length() == 0) {
+            if (c == OPEN) {
+                openTag();
+            } else {
+                emit((char) c);
+            }
+        } else {
+            consume((char) c);
+        }
+    }
+
+    private static int indexOfOpen(final char[] cbuf, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (cbuf[i] == OPEN) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void openTag() throws IOException {
+        if (isPrefixed()) {
+            emit(OPEN);
+        } else {
+            tag.append(OPEN);
+        }
+    }
+
+    private void consume(final char c) throws IOException {
+        tag.append(c);
+        if (!insideTag) {
+            if (isOpening(GenericChecksumRewriter.OPEN_A) || isOpening(GenericChecksumRewriter.OPEN_FORM)) {
+                insideTag = isOpened(GenericChecksumRewriter.OPEN_A) || isOpened(GenericChecksumRewriter.OPEN_FORM);
+            } else {
+                tag.setLength(tag.length() - 1);
+                discardTag();
+                write(c);
+            }
+        } else if (quote != 0) {
+            if (c == quote) {
+                quote = 0;
+            }
+        } else if ((c == '"' || c == '\'') && previous == '=') {
+            quote = c;
+        } else if (c == CLOSE) {
+            rewritten.setLength(0);
+            getRewriter().rewriteTag(tag.toString(), rewritten);
+            emit(rewritten);
+            reset();
+        } else if (c == OPEN) {
+            tag.setLength(tag.length() - 1);
+            discardTag();
+            openTag();
+        }
+        if (tag.length() > MAX_TAG_LENGTH) {
+            cutTag();
+        } else {
+            previous = c;
+        }
+    }
+
+    private boolean isOpening(final String opening) {
+        final int length = tag.length();
+        if (length > opening.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (tag.charAt(i) != opening.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isOpened(final String opening) {
+        return tag.length() == opening.length() && isOpening(opening);
+    }
+
+    private boolean isPrefixed() {
+        for (int i = 0; i < LENGTH_OF_NO_CHECKSUM_PREFIX; i++) {
+            if (trail[(trailPosition + i) % LENGTH_OF_NO_CHECKSUM_PREFIX] != GenericChecksumRewriter.NO_CHECKSUM_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void cutTag() throws IOException {
+        final int indexOfClose = tag.indexOf(">");
+        if (indexOfClose < 0) {
+            discardTag();
+            return;
+        }
+        final char[] remainder = new char[tag.length() - indexOfClose - 1];
+        tag.getChars(indexOfClose + 1, tag.length(), remainder, 0);
+        tag.setLength(indexOfClose + 1);
+        rewritten.setLength(0);
+        getRewriter().rewriteTag(tag.toString(), rewritten);
+        emit(rewritten);
+        reset();
+        write(remainder, 0, remainder.length);
+    }
+
+    private void discardTag() throws IOException {
+        emit(tag);
+        reset();
+    }
+
+    private void reset() {
+        tag.setLength(0);
+        insideTag = false;
+        quote = 0;
+        previous = 0;
+    }
+
+    private void emit(final char c) throws IOException {
+        writer.write(c);
+        remember(c);
+    }
+
+    private void emit(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len > 0) {
+            writer.write(cbuf, off, len);
+            for (int i = Math.max(off, off + len - LENGTH_OF_NO_CHECKSUM_PREFIX); i < off + len; i++) {
+                remember(cbuf[i]);
+            }
+        }
+    }
+
+    private void emit(final StringBuilder builder) throws IOException {
+        final int length = builder.length();
+        int i = 0;
+        while (i < length) {
+            final int count = Math.min(length - i, pending.length);
+            builder.getChars(i, i + count, pending, 0);
+            emit(pending, 0, count);
+            i += count;
+        }
+    }
+
+    private void remember(final char c) {
+        trail[trailPosition] = c;
+        trailPosition = (trailPosition + 1) % LENGTH_OF_NO_CHECKSUM_PREFIX;
+    }
+
+    /**
+     * Writes any pending (unterminated) tag as is and flushes the underlying writer.
+     */
+    public void finish() throws IOException {
+        if (tag.length() > 0) {
+            discardTag();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Drops the tag currently being buffered, if any. Text already forwarded to the underlying writer is not affected.
+     */
+    public void resetBuffer() {
+        reset();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -18,29 +18,26 @@
  */
 package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
 
-import java.util.TreeSet;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 
 import javax.servlet.http.HttpSession;
 
-import com.google.common.hash.Hashing;
-
 public final class GenericChecksumRewriter {
 
     public static final String CHECKSUM_ATTRIBUTE_NAME = "_request_checksum_";
 
     public static final String NO_CHECKSUM_PREFIX = "<!-- NO_CHECKSUM -->";
 
-    private static final int LENGTH_OF_NO_CHECKSUM_PREFIX = NO_CHECKSUM_PREFIX.length();
-
-    private static final String OPEN_A = "<a ";
-    private static final String OPEN_FORM = "<form ";
+    static final String OPEN_A = "<a ";
+    static final String OPEN_FORM = "<form ";
 
     private static final String PREFIX_JAVASCRIPT = "javascript:";
     private static final String PREFIX_MAILTO = "mailto:";
     private static final String PREFIX_HTTP = "http://";
     private static final String PREFIX_HTTPS = "https://";
 
-    private static final char CLOSE = '>';
     private static final char CARDINAL = '#';
     private static final char QUESTION_MARK = '?';
 
@@ -51,52 +48,11 @@ public final class GenericChecksumRewriter {
     }
 
     private String calculateChecksum(final String source, final int start, final int end) {
-        return calculateChecksum(source.substring(start, end), sessionSecret);
-    }
-
-    private static boolean isRelevantPart(final String part) {
-        return part.length() > 0 && !part.startsWith(CHECKSUM_ATTRIBUTE_NAME) && !part.startsWith("page=")
-                && !part.startsWith("org.apache.struts.action.LOCALE") && !part.startsWith("javax.servlet.request.")
-                && !part.startsWith("ok");
-    }
-
-    private static String calculateChecksum(final TreeSet<String> strings, String sessionSecret) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        for (final String string : strings) {
-            stringBuilder.append(string);
-        }
-
-        if (sessionSecret != null) {
-            stringBuilder.append(sessionSecret);
-        }
-        final String checksum = new String(Hashing.sha1().hashBytes(stringBuilder.toString().getBytes()).toString());
-        // System.out.println("Generating checksum for: " +
-        // stringBuilder.toString() + " --> " + checksum);
-        return checksum;
+        return ChecksumCache.get(source, start, end, sessionSecret);
     }
 
     public static String calculateChecksum(final String requestString, HttpSession session) {
-        return calculateChecksum(requestString, RenderersSessionSecret.computeSecretFromSession(session));
-    }
-
-    private static String calculateChecksum(final String requestString, String sessionSecret) {
-        final int indexLastCardinal = requestString.lastIndexOf('#');
-        final String string = indexLastCardinal >= 0 ? requestString.substring(0, indexLastCardinal) : requestString;
-        final String[] parts = string.split("\\?|&amp;|&");
-
-        final TreeSet<String> strings = new TreeSet<String>();
-        for (final String part : parts) {
-            if (isRelevantPart(part)) {
-                final int indexOfEquals = part.indexOf('=');
-                if (indexOfEquals >= 0) {
-                    strings.add(part.substring(0, indexOfEquals));
-                    strings.add(part.substring(indexOfEquals + 1, part.length()));
-                } else {
-                    strings.add(part);
-                }
-            }
-        }
-        return calculateChecksum(strings, sessionSecret);
+        return ChecksumCache.get(requestString, RenderersSessionSecret.computeSecretFromSession(session));
     }
 
     public static String injectChecksumInUrl(final String contextPath, final String url, HttpSession session) {
@@ -105,152 +61,99 @@ public final class GenericChecksumRewriter {
     }
 
     public String rewrite(String source) {
-        int iOffset = 0;
-
-        final StringBuilder response = new StringBuilder();
-
-        while (true) {
-
-            final int indexOfAopen = source.indexOf(OPEN_A, iOffset);
-            final int indexOfFormOpen = source.indexOf(OPEN_FORM, iOffset);
-            if (indexOfAopen >= 0 && (indexOfFormOpen < 0 || indexOfAopen < indexOfFormOpen)) {
-                if (!isPrefixed(source, indexOfAopen)) {
-                    final int indexOfAclose = source.indexOf(CLOSE, indexOfAopen);
-                    if (indexOfAclose >= 0) {
-                        final int indexOfHrefBodyStart = findHrefBodyStart(source, indexOfAopen, indexOfAclose);
-                        if (indexOfHrefBodyStart >= 0) {
-                            final char hrefBodyStartChar = source.charAt(indexOfHrefBodyStart - 1);
-                            final int indexOfHrefBodyEnd = findHrefBodyEnd(source, indexOfHrefBodyStart, hrefBodyStartChar);
-                            if (indexOfHrefBodyEnd >= 0) {
-
-                                int indexOfJavaScript = source.indexOf(PREFIX_JAVASCRIPT, indexOfHrefBodyStart);
-                                int indexOfMailto = source.indexOf(PREFIX_MAILTO, indexOfHrefBodyStart);
-                                int indexOfHttp = source.indexOf(PREFIX_HTTP, indexOfHrefBodyStart);
-                                int indexOfHttps = source.indexOf(PREFIX_HTTPS, indexOfHrefBodyStart);
-                                if ((indexOfJavaScript < 0 || indexOfJavaScript > indexOfHrefBodyEnd)
-                                        && (indexOfMailto < 0 || indexOfMailto > indexOfHrefBodyEnd)
-                                        && (indexOfHttp < 0 || indexOfHttp > indexOfHrefBodyEnd)
-                                        && (indexOfHttps < 0 || indexOfHttps > indexOfHrefBodyEnd)) {
-
-                                    final int indexOfCardinal = source.indexOf(CARDINAL, indexOfHrefBodyStart);
+        final StringWriter response = new StringWriter(source.length());
+        final ChecksumRewritingWriter writer = new ChecksumRewritingWriter(response, this);
+        try {
+            writer.write(source);
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return response.toString();
+    }
 
-                                    // For hash-based URLs
-                                    if (indexOfCardinal == indexOfHrefBodyStart) {
-                                        iOffset = continueToNextToken(response, source, iOffset, indexOfAclose);
-                                        continue;
-                                    }
+    /**
+     * Rewrites a single, complete <code>&lt;a </code> or <code>&lt;form </code> tag (from the opening <code>&lt;</code> up to
+     * and including the closing <code>&gt;</code>), appending the result to the given builder.
+     */
+    void rewriteTag(final String tag, final StringBuilder response) {
+        if (tag.startsWith(OPEN_A)) {
+            rewriteLink(tag, response);
+        } else if (tag.startsWith(OPEN_FORM)) {
+            rewriteForm(tag, response);
+        } else {
+            response.append(tag);
+        }
+    }
 
-                                    boolean hasCardinal =
-                                            indexOfCardinal > indexOfHrefBodyStart && indexOfCardinal < indexOfHrefBodyEnd;
-                                    if (hasCardinal) {
-                                        response.append(source, iOffset, indexOfCardinal);
-                                    } else {
-                                        response.append(source, iOffset, indexOfHrefBodyEnd);
-                                    }
+    private void rewriteLink(final String tag, final StringBuilder response) {
+        final int indexOfAclose = tag.length() - 1;
+        final int indexOfHrefBodyStart = findHrefBodyStart(tag, 0, indexOfAclose);
+        if (indexOfHrefBodyStart < 0) {
+            response.append(tag);
+            return;
+        }
+        final char hrefBodyStartChar = tag.charAt(indexOfHrefBodyStart - 1);
+        final int indexOfHrefBodyEnd = findHrefBodyEnd(tag, indexOfHrefBodyStart, hrefBodyStartChar);
+        if (indexOfHrefBodyEnd < 0 || isExternal(tag, indexOfHrefBodyStart, indexOfHrefBodyEnd)) {
+            response.append(tag);
+            return;
+        }
 
-                                    final String checksum = calculateChecksum(source, indexOfHrefBodyStart, indexOfHrefBodyEnd);
-                                    final int indexOfQmark = source.indexOf(QUESTION_MARK, indexOfHrefBodyStart);
-                                    if (indexOfQmark == -1 || indexOfQmark > indexOfHrefBodyEnd) {
-                                        response.append('?');
-                                    } else {
-                                        response.append("&amp;");
-                                    }
-                                    response.append(CHECKSUM_ATTRIBUTE_NAME);
-                                    response.append("=");
-                                    response.append(checksum);
+        final int indexOfCardinal = tag.indexOf(CARDINAL, indexOfHrefBodyStart);
 
-                                    if (hasCardinal) {
-                                        response.append(source, indexOfCardinal, indexOfHrefBodyEnd);
-                                    }
+        // For hash-based URLs
+        if (indexOfCardinal == indexOfHrefBodyStart) {
+            response.append(tag);
+            return;
+        }
 
-                                    final int nextChar = indexOfAclose + 1;
-                                    response.append(source, indexOfHrefBodyEnd, nextChar);
-                                    // rewrite(response, source, nextChar);
-                                    // return;
-                                    iOffset = nextChar;
-                                    continue;
-                                } else {
-                                    final int nextIndex;
+        boolean hasCardinal = indexOfCardinal > indexOfHrefBodyStart && indexOfCardinal < indexOfHrefBodyEnd;
+        response.append(tag, 0, hasCardinal ? indexOfCardinal : indexOfHrefBodyEnd);
 
-                                    if (indexOfJavaScript < 0) {
-                                        indexOfJavaScript = Integer.MAX_VALUE;
-                                    }
-                                    if (indexOfMailto < 0) {
-                                        indexOfMailto = Integer.MAX_VALUE;
-                                    }
-                                    if (indexOfHttp < 0) {
-                                        indexOfHttp = Integer.MAX_VALUE;
-                                    }
-                                    if (indexOfHttps < 0) {
-                                        indexOfHttps = Integer.MAX_VALUE;
-                                    }
+        final String checksum = calculateChecksum(tag, indexOfHrefBodyStart, indexOfHrefBodyEnd);
+        final int indexOfQmark = tag.indexOf(QUESTION_MARK, indexOfHrefBodyStart);
+        if (indexOfQmark == -1 || indexOfQmark > indexOfHrefBodyEnd) {
+            response.append('?');
+        } else {
+            response.append("&amp;");
+        }
+        response.append(CHECKSUM_ATTRIBUTE_NAME);
+        response.append("=");
+        response.append(checksum);
 
-                                    nextIndex =
-                                            Math.min(Math.min(indexOfJavaScript, indexOfMailto),
-                                                    Math.min(indexOfHttps, indexOfHttp));
+        if (hasCardinal) {
+            response.append(tag, indexOfCardinal, indexOfHrefBodyEnd);
+        }
+        response.append(tag, indexOfHrefBodyEnd, tag.length());
+    }
 
-                                    response.append(source, iOffset, nextIndex);
-                                    iOffset = nextIndex;
-                                    continue;
-                                }
-                            }
-                        } else {
-                            iOffset = continueToNextToken(response, source, iOffset, indexOfAopen);
-                            continue;
-                        }
-                    }
-                } else {
-                    iOffset = continueToNextToken(response, source, iOffset, indexOfAopen);
-                    continue;
-                }
-            } else if (indexOfFormOpen >= 0) {
-                if (!isPrefixed(source, indexOfFormOpen)) {
-                    final int indexOfFormClose = source.indexOf(CLOSE, indexOfFormOpen);
-                    if (indexOfFormClose >= 0) {
-                        final int indexOfFormActionBodyStart = findFormActionBodyStart(source, indexOfFormOpen, indexOfFormClose);
-                        if (indexOfFormActionBodyStart >= 0) {
-                            final int indexOfFormActionBodyEnd = findFormActionBodyEnd(source, indexOfFormActionBodyStart);
-                            if (indexOfFormActionBodyEnd >= 0) {
-                                final int nextChar = indexOfFormClose + 1;
-                                response.append(source, iOffset, nextChar);
-                                final String checksum =
-                                        calculateChecksum(source, indexOfFormActionBodyStart, indexOfFormActionBodyEnd);
-                                response.append("<input type=\"hidden\" name=\"");
-                                response.append(CHECKSUM_ATTRIBUTE_NAME);
-                                response.append("\" value=\"");
-                                response.append(checksum);
-                                response.append("\"/>");
-                                // rewrite(response, source, nextChar);
-                                // return;
-                                iOffset = nextChar;
-                                continue;
-                            }
-                        } else {
-                            iOffset = continueToNextToken(response, source, iOffset, indexOfFormOpen);
-                            continue;
-                        }
-                    }
-                } else {
-                    iOffset = continueToNextToken(response, source, iOffset, indexOfFormOpen);
-                    continue;
-                }
+    private void rewriteForm(final String tag, final StringBuilder response) {
+        response.append(tag);
+        final int indexOfFormActionBodyStart = findFormActionBodyStart(tag, 0, tag.length() - 1);
+        if (indexOfFormActionBodyStart >= 0) {
+            final int indexOfFormActionBodyEnd = findFormActionBodyEnd(tag, indexOfFormActionBodyStart);
+            if (indexOfFormActionBodyEnd >= 0) {
+                final String checksum = calculateChecksum(tag, indexOfFormActionBodyStart, indexOfFormActionBodyEnd);
+                response.append("<input type=\"hidden\" name=\"");
+                response.append(CHECKSUM_ATTRIBUTE_NAME);
+                response.append("\" value=\"");
+                response.append(checksum);
+                response.append("\"/>");
             }
-            response.append(source, iOffset, source.length());
-            break;
         }
-
-        return response.toString();
     }
 
-    private boolean isPrefixed(final String source, final int indexOfTagOpen) {
-        return NO_CHECKSUM_PREFIX.regionMatches(0, source, indexOfTagOpen - LENGTH_OF_NO_CHECKSUM_PREFIX,
-                LENGTH_OF_NO_CHECKSUM_PREFIX);
+    private static boolean isExternal(final String tag, final int indexOfHrefBodyStart, final int indexOfHrefBodyEnd) {
+        return contains(tag, PREFIX_JAVASCRIPT, indexOfHrefBodyStart, indexOfHrefBodyEnd)
+                || contains(tag, PREFIX_MAILTO, indexOfHrefBodyStart, indexOfHrefBodyEnd)
+                || contains(tag, PREFIX_HTTP, indexOfHrefBodyStart, indexOfHrefBodyEnd)
+                || contains(tag, PREFIX_HTTPS, indexOfHrefBodyStart, indexOfHrefBodyEnd);
     }
 
-    private int continueToNextToken(final StringBuilder response, final String source, final int iOffset, final int indexOfTag) {
-        final int nextOffset = indexOfTag + 1;
-        response.append(source, iOffset, nextOffset);
-        return nextOffset;
+    private static boolean contains(final String tag, final String prefix, final int start, final int end) {
+        final int index = tag.indexOf(prefix, start);
+        return index >= 0 && index <= end;
     }
 
     private int findFormActionBodyEnd(final String source, final int offset) {
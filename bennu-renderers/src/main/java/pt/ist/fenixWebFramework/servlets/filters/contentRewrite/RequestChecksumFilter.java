@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.servlet.Filter;
@@ -70,7 +71,7 @@ public class RequestChecksumFilter implements Filter {
                 return;
             }
         }
-        ResponseWrapper responseWrapper = new ResponseWrapper((HttpServletResponse) servletResponse);
+        ResponseWrapper responseWrapper = new ResponseWrapper(request, (HttpServletResponse) servletResponse);
         filterChain.doFilter(servletRequest, responseWrapper);
         responseWrapper.writeRealResponse(request.getSession(false));
     }
@@ -114,8 +115,10 @@ public class RequestChecksumFilter implements Filter {
     private boolean isValidChecksum(final HttpServletRequest httpServletRequest, final String checksum) {
         final HttpSession session = httpServletRequest.getSession(false);
         final String uri = decodeURL(httpServletRequest.getRequestURI(), ENCODING);
-        return isValidChecksum(uri, decodeURL(httpServletRequest.getQueryString(), ENCODING), checksum, session)
-                || isValidChecksum(uri, httpServletRequest.getQueryString(), checksum, session);
+        final String queryString = httpServletRequest.getQueryString();
+        final String decodedQueryString = decodeURL(queryString, ENCODING);
+        return isValidChecksum(uri, decodedQueryString, checksum, session)
+                || (!Objects.equals(queryString, decodedQueryString) && isValidChecksum(uri, queryString, checksum, session));
     }
 
     private boolean isValidChecksum(String uri, String queryString, String checksum, HttpSession session) {
@@ -21,24 +21,50 @@ package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 import javax.servlet.http.HttpSession;
 
 public class ResponseWrapper extends HttpServletResponseWrapper {
 
+    private final HttpServletRequest request;
+
     protected BufferedFacadPrintWriter bufferedFacadPrintWriter = null;
 
-    public ResponseWrapper(final HttpServletResponse httpServletResponse) throws IOException {
+    protected ChecksumRewritingWriter checksumRewritingWriter = null;
+
+    private PrintWriter writer = null;
+
+    /**
+     * Creates a wrapper that rewrites the response as it is written, keeping only the tag being rewritten in memory.
+     */
+    public ResponseWrapper(final HttpServletRequest request, final HttpServletResponse httpServletResponse) throws IOException {
         super(httpServletResponse);
+        this.request = request;
+    }
+
+    /**
+     * @deprecated Buffers the whole response until {@link #writeRealResponse(HttpSession)} is invoked. Use
+     *             {@link #ResponseWrapper(HttpServletRequest, HttpServletResponse)} instead.
+     */
+    @Deprecated
+    public ResponseWrapper(final HttpServletResponse httpServletResponse) throws IOException {
+        this(null, httpServletResponse);
     }
 
     @Override
     public PrintWriter getWriter() throws IOException {
-        if (bufferedFacadPrintWriter == null) {
-            bufferedFacadPrintWriter = new BufferedFacadPrintWriter(getResponse().getWriter());
+        if (writer == null) {
+            if (request != null) {
+                checksumRewritingWriter = new ChecksumRewritingWriter(getResponse().getWriter(), request);
+                writer = new PrintWriter(checksumRewritingWriter);
+            } else {
+                bufferedFacadPrintWriter = new BufferedFacadPrintWriter(getResponse().getWriter());
+                writer = bufferedFacadPrintWriter;
+            }
         }
-        return bufferedFacadPrintWriter;
+        return writer;
     }
 
     @Override
@@ -50,6 +76,9 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
     }
 
     public void writeRealResponse(HttpSession session) throws IOException {
+        if (checksumRewritingWriter != null) {
+            checksumRewritingWriter.finish();
+        }
         if (bufferedFacadPrintWriter != null) {
             bufferedFacadPrintWriter.writeRealResponse(session);
         }
@@ -66,6 +95,9 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
     @Override
     public void resetBuffer() {
         super.resetBuffer();
+        if (checksumRewritingWriter != null) {
+            checksumRewritingWriter.resetBuffer();
+        }
         if (bufferedFacadPrintWriter != null) {
             bufferedFacadPrintWriter.resetBuffer();
         }
@@ -41,6 +41,7 @@ jQuery.fn.autocomplete = function(url, settings )
 		var typingTimeout;
 		var size = 0;
 		var selected = -1;
+		var requests = 0;
 
 		settings = jQuery.extend(//provide default settings
 		{
@@ -53,7 +54,8 @@ jQuery.fn.autocomplete = function(url, settings )
 			error: null,
 			cleanSelection: null,
 			validSelection : true,
-			parameters : {'inputName' : valueInput.attr('name'), 'inputId' : textInput.attr('id')}
+			//fieldId tells apart the same field shown in several pages of the session, whose requests must not supersede each other
+			parameters : {'inputName' : valueInput.attr('name'), 'inputId' : textInput.attr('id'), 'fieldId' : new Date().getTime().toString(36) + Math.random().toString(36).substring(2)}
 		} , settings);
 
 		function getData(text)
@@ -70,11 +72,16 @@ jQuery.fn.autocomplete = function(url, settings )
 				}
 				textInput.addClass('autocomplete-loading');
 				settings.parameters.value = text;
+				//only the response to the latest request is shown, older ones may arrive after it
+				var request = ++requests;
 				jQuery.ajax({ 
                     url: url, 
                     data: settings.parameters,
                     dataType: 'json', 
                     success: function(data) { 
+							if (request != requests) {
+								return;
+							}
 							
         					var items = '';
         					if (data)
@@ -110,6 +117,9 @@ jQuery.fn.autocomplete = function(url, settings )
         					textInput.removeClass('autocomplete-loading');
 					}, 
 					error: function (XMLHttpRequest, textStatus, errorThrown) { 
+						if (request != requests) {
+							return;
+						}
 						textInput.removeClass('autocomplete-loading');
 						if (settings.error != null) {
 							settings.error(textInput,text);
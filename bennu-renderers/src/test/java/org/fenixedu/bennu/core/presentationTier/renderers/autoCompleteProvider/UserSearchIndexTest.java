@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.UserSearchIndex.Entry;
+import org.fenixedu.commons.StringNormalizer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class UserSearchIndexTest {
+
+    private static final List<Entry> ENTRIES = Arrays.asList(new Entry(null, "ist12345", "João Manuel Silva"), new Entry(
+            null, "ist54321", "Maria João Gonçalves"), new Entry(null, "joaos", "Ana Sofia Santos"), new Entry(null,
+            "ana", "Ana Li"), new Entry(null, "ist100", null), new Entry(null, "MSilva", "Manuel Silva Rocha"));
+
+    private static final UserSearchIndex INDEX = UserSearchIndex.create(ENTRIES);
+
+    @Test
+    public void singlePartMatchesUsernameOrFullName() {
+        assertSameAsLinearSearch("ist1");
+        assertSameAsLinearSearch("joao");
+        assertSameAsLinearSearch("João");
+        assertSameAsLinearSearch("msilva");
+        assertSameAsLinearSearch("ist100");
+        Assert.assertEquals(Arrays.asList("ist12345", "ist100"), usernames("ist1"));
+    }
+
+    @Test
+    public void severalPartsOnlyMatchFullName() {
+        assertSameAsLinearSearch("joao silva");
+        assertSameAsLinearSearch("silva manuel");
+        assertSameAsLinearSearch("ist ana");
+        assertSameAsLinearSearch("ana santos");
+        Assert.assertEquals(Arrays.asList("ist12345", "MSilva"), usernames("silva manuel"));
+        Assert.assertEquals(Arrays.asList(), usernames("joaos ana"));
+    }
+
+    @Test
+    public void partsShorterThanAGramAreMatched() {
+        assertSameAsLinearSearch("a");
+        assertSameAsLinearSearch("li");
+        assertSameAsLinearSearch("ma jo");
+        assertSameAsLinearSearch("an li");
+        assertSameAsLinearSearch("ana li");
+        assertSameAsLinearSearch("");
+        Assert.assertEquals(Arrays.asList("ana"), usernames("an li"));
+    }
+
+    @Test
+    public void unknownPartsMatchNothing() {
+        assertSameAsLinearSearch("xyz");
+        assertSameAsLinearSearch("silva xyz");
+        Assert.assertEquals(Arrays.asList(), usernames("silva xyz"));
+    }
+
+    @Test
+    public void entriesMatchAsTheLinearSearch() {
+        for (String value : Arrays.asList("ist1", "joao", "silva manuel", "a", "an li", "ist ana", "xyz")) {
+            String[] input = normalize(value);
+            for (Entry entry : ENTRIES) {
+                Assert.assertEquals(value + " / " + entry.username, match(input, entry), entry.matches(input));
+            }
+        }
+    }
+
+    private static void assertSameAsLinearSearch(String value) {
+        String[] input = normalize(value);
+        List<String> expected = new ArrayList<String>();
+        for (Entry entry : ENTRIES) {
+            if (match(input, entry)) {
+                expected.add(entry.username);
+            }
+        }
+        List<String> found = usernames(value);
+        Assert.assertEquals(value, expected.stream().sorted().collect(Collectors.toList()), found.stream().sorted()
+                .collect(Collectors.toList()));
+    }
+
+    private static List<String> usernames(String value) {
+        return INDEX.find(normalize(value)).map(entry -> entry.username).collect(Collectors.toList());
+    }
+
+    private static String[] normalize(String value) {
+        return StringNormalizer.normalize(value.trim()).split(" ");
+    }
+
+    // the rules used by UserAutoComplete before the index
+    private static boolean match(String[] values, Entry entry) {
+        return (values.length == 1 && hasMatch(values, StringNormalizer.normalize(entry.username)))
+                || (entry.fullName != null && hasMatch(values, StringNormalizer.normalize(entry.fullName).toLowerCase()));
+    }
+
+    private static boolean hasMatch(String[] input, String string) {
+        for (String namePart : input) {
+            if (string.indexOf(namePart) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -21,10 +21,15 @@ package org.fenixedu.bennu.renderers.test;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ChecksumEngine;
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ChecksumRewritingWriter;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
 
 @RunWith(JUnit4.class)
@@ -40,7 +45,7 @@ public class CheckRewriterTest {
     @Test
     public void hashtagIsNotOverwritten() {
         assertThat(EMPTY_REWRITER.rewrite("<a href=\"xpto#x\">X</a>"),
-                is("<a href=\"xpto?_request_checksum_=7788b911f74d17e780634c375a45a007beaeae27#x\">X</a>"));
+                is("<a href=\"xpto?_request_checksum_=45d18caeb2ac4ae92e68ec2f74c4abda0eefb76809f78b0d38ada71e976fc2ef#x\">X</a>"));
     }
 
     @Test
@@ -66,7 +71,7 @@ public class CheckRewriterTest {
     @Test
     public void linkTagWithoutHrefDoesntPreventFurtherInjection() {
         assertThat(EMPTY_REWRITER.rewrite("<a>X</a> <a href=\"xpto\">x</a>"),
-                is("<a>X</a> <a href=\"xpto?_request_checksum_=7788b911f74d17e780634c375a45a007beaeae27\">x</a>"));
+                is("<a>X</a> <a href=\"xpto?_request_checksum_=45d18caeb2ac4ae92e68ec2f74c4abda0eefb76809f78b0d38ada71e976fc2ef\">x</a>"));
     }
 
     @Test
@@ -82,7 +87,7 @@ public class CheckRewriterTest {
     @Test
     public void imgTagWithoutSrcDoesntPreventFurtherInjection() {
         assertThat(EMPTY_REWRITER.rewrite("<img alt=\"\" /> <a href=\"xpto\">x</a>"),
-                is("<img alt=\"\" /> <a href=\"xpto?_request_checksum_=7788b911f74d17e780634c375a45a007beaeae27\">x</a>"));
+                is("<img alt=\"\" /> <a href=\"xpto?_request_checksum_=45d18caeb2ac4ae92e68ec2f74c4abda0eefb76809f78b0d38ada71e976fc2ef\">x</a>"));
     }
 
     @Test
@@ -94,14 +99,14 @@ public class CheckRewriterTest {
     public void formTagWithoutActionDoesntPreventFurtherInjection() {
         assertThat(
                 EMPTY_REWRITER.rewrite("<form method=\"POST\"></form> <a href=\"xpto\">x</a>"),
-                is("<form method=\"POST\"></form> <a href=\"xpto?_request_checksum_=7788b911f74d17e780634c375a45a007beaeae27\">x</a>"));
+                is("<form method=\"POST\"></form> <a href=\"xpto?_request_checksum_=45d18caeb2ac4ae92e68ec2f74c4abda0eefb76809f78b0d38ada71e976fc2ef\">x</a>"));
     }
 
     @Test
     public void malformedATagDoesntPreventFurtherInjection() {
         assertThat(
                 EMPTY_REWRITER.rewrite("<a <form action=\"xpto\">x</form>"),
-                is("<a <form action=\"xpto\"><input type=\"hidden\" name=\"_request_checksum_\" value=\"7788b911f74d17e780634c375a45a007beaeae27\"/>x</form>"));
+                is("<a <form action=\"xpto\"><input type=\"hidden\" name=\"_request_checksum_\" value=\"45d18caeb2ac4ae92e68ec2f74c4abda0eefb76809f78b0d38ada71e976fc2ef\"/>x</form>"));
     }
 
     @Test
@@ -118,6 +123,56 @@ public class CheckRewriterTest {
         checkNoChange("<a href=\"#/system/info\">xpto</a>");
     }
 
+    @Test
+    public void streamedChunksAreRewrittenLikeWholePage() throws IOException {
+        String page =
+                "<p><!-- NO_CHECKSUM --><a href=\"x\">a</a> <a href='y?a=1&amp;b=2'>b</a> <a <form action=\"f\">"
+                        + "<a href=z>c</a></form></p>";
+        StringWriter streamed = new StringWriter();
+        ChecksumRewritingWriter writer = new ChecksumRewritingWriter(streamed, EMPTY_REWRITER);
+        for (int i = 0; i < page.length(); i += 3) {
+            writer.write(page, i, Math.min(3, page.length() - i));
+        }
+        writer.finish();
+        assertThat(streamed.toString(), is(EMPTY_REWRITER.rewrite(page)));
+    }
+
+    @Test
+    public void unterminatedTagIsWrittenOnFinish() {
+        checkNoChange("<p>x</p><a href=\"xpto");
+    }
+
+    @Test
+    public void unterminatedQuoteDoesntPreventFurtherInjection() {
+        String text = "x</a><p>" + new String(new char[10000]).replace('\0', 'z');
+        String links = "<a href=\"xpto\">x</a> <form action=\"xpto\">x</form>";
+        String rewritten = EMPTY_REWRITER.rewrite(links);
+        assertThat(rewritten.equals(links), is(false));
+
+        String link = EMPTY_REWRITER.rewrite("<a href=\"x\">");
+        String rewrittenLink = link.substring(0, link.length() - 1) + " title=\"y>";
+        assertThat(EMPTY_REWRITER.rewrite("<a href=\"x\" title=\"y>" + text + links), is(rewrittenLink + text + rewritten));
+    }
+
+    @Test
+    public void unterminatedTagIsWrittenUnchanged() {
+        String unterminated = "<a href=\"x" + new String(new char[10000]).replace('\0', 'z');
+        String links = "<a href=\"xpto\">x</a> <form action=\"xpto\">x</form>";
+        assertThat(EMPTY_REWRITER.rewrite(unterminated + links), is(unterminated + EMPTY_REWRITER.rewrite(links)));
+    }
+
+    @Test
+    public void checksumIgnoresParameterOrder() {
+        assertThat(ChecksumEngine.calculate("/x.do?a=1&amp;b=2#top", "secret"),
+                is(ChecksumEngine.calculate("/x.do?b=2&a=1", "secret")));
+    }
+
+    @Test
+    public void checksumDependsOnSessionSecret() {
+        assertThat(ChecksumEngine.calculate("/x.do?a=1", "secret").equals(ChecksumEngine.calculate("/x.do?a=1", "other")),
+                is(false));
+    }
+
     private void checkNoChange(String value) {
         assertThat(EMPTY_REWRITER.rewrite(value), is(value));
     }
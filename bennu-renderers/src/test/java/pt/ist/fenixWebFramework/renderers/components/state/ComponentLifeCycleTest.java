@@ -0,0 +1,362 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTextInput;
+import pt.ist.fenixWebFramework.renderers.components.converters.ConversionException;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.ResourceBundleMessageSource;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlChainValidator;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
+import pt.ist.fenixWebFramework.renderers.validators.RequiredValidator;
+import pt.ist.fenixWebFramework.renderers.validators.StringLengthValidator;
+import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
+
+/**
+ * Submits the same forms through the view state bindings and through the rendered components, which must give the same
+ * results.
+ */
+@RunWith(JUnit4.class)
+public class ComponentLifeCycleTest {
+
+    @BeforeClass
+    public static void setupBundles() {
+        // forms ask for labels in the default bundle, which is only known when running with struts
+        RenderUtils.setBundleResolver(bundle -> new ResourceBundleMessageSource(bundle == null ? "resources.RendererResources"
+                : bundle));
+    }
+
+    @Test
+    public void validInput() throws Exception {
+        Outcome outcome = submitBothWays(Collections.singletonList(form("Maria", "42")), 2);
+
+        Assert.assertEquals("/success.do", outcome.destination);
+        Assert.assertTrue(outcome.committed);
+        Assert.assertEquals(Arrays.asList("valid [] name=Maria age=42"), outcome.viewStates);
+    }
+
+    @Test
+    public void validationErrors() throws Exception {
+        Outcome outcome = submitBothWays(Collections.singletonList(form("", "42")), 2);
+
+        Assert.assertEquals("/invalid.do", outcome.destination);
+        Assert.assertFalse(outcome.committed);
+        Assert.assertEquals(Arrays.asList("invalid [ValidationMessage: name is required] name=null age=null"),
+                outcome.viewStates);
+    }
+
+    @Test
+    public void validationErrorsOfValidatorProperties() throws Exception {
+        Outcome outcome = submitBothWays(Collections.singletonList(form("M", "42")), 2);
+
+        Assert.assertEquals("/invalid.do", outcome.destination);
+        Assert.assertEquals(Arrays.asList("invalid [ValidationMessage: name is too short] name=null age=null"),
+                outcome.viewStates);
+    }
+
+    @Test
+    public void conversionErrors() throws Exception {
+        Outcome outcome = submitBothWays(Collections.singletonList(form("Maria", "forty")), 2);
+
+        Assert.assertEquals("/invalid.do", outcome.destination);
+        Assert.assertFalse(outcome.committed);
+        Assert.assertEquals(Arrays.asList("invalid [ConversionMessage: not a number: forty] name=Maria age=null"),
+                outcome.viewStates);
+    }
+
+    @Test
+    public void multipleViewStates() throws Exception {
+        Outcome outcome = submitBothWays(Arrays.asList(form("Maria", "42"), form("Joao", "x"), form("", "7")), 2);
+
+        Assert.assertFalse(outcome.committed);
+        Assert.assertEquals(Arrays.asList("valid [] name=Maria age=42",
+                "invalid [ConversionMessage: not a number: x] name=Joao age=null",
+                "invalid [ValidationMessage: name is required] name=null age=null"), outcome.viewStates);
+
+        outcome = submitBothWays(Arrays.asList(form("Maria", "42"), form("Joao", "7")), 2);
+        Assert.assertTrue(outcome.committed);
+        Assert.assertEquals(Arrays.asList("valid [] name=Maria age=42", "valid [] name=Joao age=7"), outcome.viewStates);
+    }
+
+    @Test
+    public void bindingsAreDisabledByDefault() {
+        MetaObject metaObject = createMetaObject(new Person());
+        Assert.assertNull(ComponentBindings.of(render(metaObject, 2), metaObject));
+    }
+
+    @Test
+    public void validatorsWithOtherPropertiesAreNotBound() {
+        MetaObject metaObject = createMetaObject(new Person());
+
+        Assert.assertNotNull(ComponentBindings.describe(render(metaObject, 2), metaObject));
+        Assert.assertNull(ComponentBindings.describe(render(metaObject, 3), metaObject));
+    }
+
+    /*
+     * Submits the forms with and without bindings, checking that both give the same outcome.
+     */
+    private static Outcome submitBothWays(List<Map<String, String>> forms, int minLength) throws Exception {
+        Outcome bound = submit(forms, minLength, true);
+        Outcome rendered = submit(forms, minLength, false);
+
+        Assert.assertEquals(rendered.destination, bound.destination);
+        Assert.assertEquals(rendered.committed, bound.committed);
+        Assert.assertEquals(rendered.viewStates, bound.viewStates);
+        return bound;
+    }
+
+    private static Outcome submit(List<Map<String, String>> forms, int minLength, boolean useBindings) throws Exception {
+        Map<String, String[]> parameters = new HashMap<String, String[]>();
+        List<String> encoded = new ArrayList<String>();
+
+        for (Map<String, String> form : forms) {
+            MetaObject metaObject = createMetaObject(new Person());
+            HtmlComponent component = render(metaObject, minLength);
+
+            ViewState viewState = new ViewState("person");
+            viewState.setMetaObject(metaObject);
+            viewState.addDestination("success", new ViewDestination("/success.do", "", false));
+            viewState.addDestination("invalid", new ViewDestination("/invalid.do", "", false));
+            viewState.setInputDestination(new ViewDestination("/input.do", "", false));
+            if (useBindings) {
+                ComponentBindings bindings = ComponentBindings.describe(component, metaObject);
+                Assert.assertNotNull(bindings);
+                viewState.setBindings(bindings);
+            }
+            encoded.add(ViewState.encodeToBase64(Collections.<IViewState> singletonList(viewState)));
+
+            // the components are rendered in the order of the form's values
+            List<String> values = new ArrayList<String>(form.values());
+            for (HtmlComponent child : component.getChildren()) {
+                parameters.put(((HtmlFormComponent) child).getName(), new String[] { values.remove(0) });
+            }
+        }
+        parameters.put(LifeCycleConstants.VIEWSTATE_PARAM_NAME, encoded.toArray(new String[0]));
+
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        RenderingLifeCycle lifeCycle = new RenderingLifeCycle(minLength);
+        ViewDestination destination = lifeCycle.doLifeCycle(request(parameters, attributes));
+
+        @SuppressWarnings("unchecked")
+        List<IViewState> viewStates = (List<IViewState>) attributes.get(LifeCycleConstants.VIEWSTATE_PARAM_NAME);
+        List<String> results = new ArrayList<String>();
+        for (IViewState viewState : viewStates) {
+            List<String> messages = new ArrayList<String>();
+            for (Message message : viewState.getMessages()) {
+                messages.add(message.getClass().getSimpleName() + ": " + message.getMessage());
+            }
+            results.add((viewState.isValid() ? "valid " : "invalid ") + messages + " name="
+                    + value(viewState.getMetaObject(), "name") + " age=" + value(viewState.getMetaObject(), "age"));
+        }
+
+        return new Outcome(destination == null ? null : destination.getPath(), lifeCycle.committed, results);
+    }
+
+    private static Map<String, String> form(String name, String age) {
+        Map<String, String> form = new LinkedHashMap<String, String>();
+        form.put("name", name);
+        form.put("age", age);
+        return form;
+    }
+
+    private static Object value(MetaObject metaObject, String slot) {
+        return metaObject.getSlot(slot).getObject();
+    }
+
+    private static MetaObject createMetaObject(Person person) {
+        SimpleMetaObject metaObject = new SimpleMetaObject(person);
+
+        MetaSlot name = new MetaSlot(metaObject, "name");
+        Properties required = new Properties();
+        required.setProperty("key", "false");
+        required.setProperty("message", "name is required");
+        Properties length = new Properties();
+        length.setProperty("key", "false");
+        length.setProperty("message", "name is too short");
+        length.setProperty("min", "2");
+        name.setValidators(Arrays.asList(validator(RequiredValidator.class, required),
+                validator(StringLengthValidator.class, length)));
+        metaObject.addSlot(name);
+
+        metaObject.addSlot(new MetaSlot(metaObject, "age"));
+        return metaObject;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValidatorProperties validator(Class<? extends HtmlValidator> type, Properties properties) {
+        return new ValidatorProperties((Class<HtmlValidator>) type, properties);
+    }
+
+    /*
+     * Renders the meta object like an input renderer would, the name with its slot's validators and the age with a
+     * converter. The length validator is created with the given minimum, while the slot declares 2.
+     */
+    private static HtmlComponent render(MetaObject metaObject, int minLength) {
+        HtmlBlockContainer container = new HtmlBlockContainer();
+
+        MetaSlot nameSlot = metaObject.getSlot("name");
+        HtmlTextInput name = new HtmlTextInput();
+        name.bind(nameSlot);
+        HtmlChainValidator chainValidator = new HtmlChainValidator(name);
+        for (HtmlValidator validator : nameSlot.getValidatorsList()) {
+            if (validator instanceof StringLengthValidator) {
+                ((StringLengthValidator) validator).setMin(minLength);
+            }
+            chainValidator.addValidator(validator);
+        }
+        container.addChild(name);
+
+        HtmlTextInput age = new HtmlTextInput();
+        age.bind(metaObject.getSlot("age"));
+        age.setConverter(new AgeConverter());
+        container.addChild(age);
+
+        return container;
+    }
+
+    private static HttpServletRequest request(Map<String, String[]> parameters, Map<String, Object> attributes) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getParameter":
+                        String[] values = parameters.get(args[0]);
+                        return values == null ? null : values[0];
+                    case "getParameterValues":
+                        return parameters.get(args[0]);
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        return null;
+                    case "getContextPath":
+                        return "";
+                    case "getRequestURI":
+                        return "/form.do";
+                    case "getSession":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static class Outcome {
+        private final String destination;
+        private final boolean committed;
+        private final List<String> viewStates;
+
+        Outcome(String destination, boolean committed, List<String> viewStates) {
+            this.destination = destination;
+            this.committed = committed;
+            this.viewStates = viewStates;
+        }
+    }
+
+    /*
+     * Renders view states without a render kit and records the commit instead of running it in a transaction.
+     */
+    private static class RenderingLifeCycle extends ComponentLifeCycle {
+        private final int minLength;
+        private boolean committed;
+
+        RenderingLifeCycle(int minLength) {
+            this.minLength = minLength;
+        }
+
+        @Override
+        public HtmlComponent restoreComponent(IViewState viewState) {
+            viewState.setPostBack(true);
+            viewState.setComponent(render(viewState.getMetaObject(), minLength));
+            return viewState.getComponent();
+        }
+
+        @Override
+        protected void updateDomain(List<IViewState> viewStates) {
+            committed = true;
+        }
+    }
+
+    public static class AgeConverter extends Converter {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object convert(Class type, Object value) {
+            String text = ((String) value).trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw new ConversionException("not a number: " + text);
+            }
+        }
+    }
+
+    public static class Person implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private Integer age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InMemoryViewStateStoreTest {
+
+    private long now;
+    private int attributeChanges;
+    private HttpServletRequest request;
+
+    @Before
+    public void setup() {
+        this.now = 0;
+        this.attributeChanges = 0;
+        this.request = requestWithSession(new HashMap<String, Object>(), () -> attributeChanges++);
+    }
+
+    @Test
+    public void retrievesStoredPayloads() {
+        InMemoryViewStateStore store = store(10, 1000);
+        String first = store.store(request, bytes("first"));
+        String second = store.store(request, bytes("second"));
+
+        Assert.assertNotEquals(first, second);
+        Assert.assertArrayEquals(bytes("first"), store.retrieve(request, first));
+        Assert.assertArrayEquals(bytes("second"), store.retrieve(request, second));
+        Assert.assertNull(store.retrieve(request, "unknown"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        InMemoryViewStateStore store = store(2, 1000);
+        String first = store.store(request, bytes("first"));
+        String second = store.store(request, bytes("second"));
+        store.retrieve(request, first);
+        String third = store.store(request, bytes("third"));
+
+        Assert.assertArrayEquals(bytes("first"), store.retrieve(request, first));
+        Assert.assertNull(store.retrieve(request, second));
+        Assert.assertArrayEquals(bytes("third"), store.retrieve(request, third));
+    }
+
+    @Test
+    public void discardsExpiredPayloads() {
+        InMemoryViewStateStore store = store(10, 1000);
+        String first = store.store(request, bytes("first"));
+        now = 600;
+        String second = store.store(request, bytes("second"));
+
+        now = 1000;
+        Assert.assertArrayEquals(bytes("first"), store.retrieve(request, first));
+        now = 1001;
+        Assert.assertNull(store.retrieve(request, first));
+        Assert.assertArrayEquals(bytes("second"), store.retrieve(request, second));
+        now = 1601;
+        Assert.assertNull(store.retrieve(request, second));
+    }
+
+    @Test
+    public void setsTheSessionAttributeAfterEveryChange() {
+        InMemoryViewStateStore store = store(10, 1000);
+        String token = store.store(request, bytes("first"));
+        int changes = attributeChanges;
+        store.store(request, bytes("second"));
+        Assert.assertEquals(changes + 1, attributeChanges);
+        store.retrieve(request, token);
+        Assert.assertEquals(changes + 2, attributeChanges);
+    }
+
+    @Test
+    public void survivesTheSerializationOfTheSession() throws IOException, ClassNotFoundException {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        HttpServletRequest request = requestWithSession(attributes, () -> {
+        });
+        InMemoryViewStateStore store = store(2, 1000);
+        String first = store.store(request, bytes("first"));
+        String second = store.store(request, bytes("second"));
+
+        HttpServletRequest restored = requestWithSession(copy(attributes), () -> {
+        });
+        Assert.assertArrayEquals(bytes("first"), store.retrieve(restored, first));
+        String third = store.store(restored, bytes("third"));
+        Assert.assertNull(store.retrieve(restored, second));
+        Assert.assertArrayEquals(bytes("third"), store.retrieve(restored, third));
+    }
+
+    @Test
+    public void requestsWithoutSessionAreNotStored() {
+        HttpServletRequest request = requestWithSession(null, () -> {
+        });
+        Assert.assertNull(store(10, 1000).store(request, bytes("first")));
+    }
+
+    private InMemoryViewStateStore store(int maxEntries, long timeToLive) {
+        return new InMemoryViewStateStore(maxEntries, timeToLive) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copy(Map<String, Object> attributes) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(attributes);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            return (Map<String, Object>) input.readObject();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a request whose session keeps its attributes in the given map, or a request without a session if it is
+     *         <code>null</code>
+     */
+    static HttpServletRequest requestWithSession(Map<String, Object> attributes, Runnable onSetAttribute) {
+        HttpSession session = attributes == null ? null : (HttpSession) Proxy.newProxyInstance(
+                HttpSession.class.getClassLoader(), new Class<?>[] { HttpSession.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        onSetAttribute.run();
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getSession")) {
+                        return session;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+}
@@ -6,11 +6,13 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -49,6 +51,38 @@ public class ViewStateTest {
         Assert.assertEquals("layout", state.getLayout());
     }
 
+    @Test
+    public void compactCodecPreservesViewState() throws IOException, ClassNotFoundException {
+        ViewState state = new ViewState("id");
+        state.setLayout("tabular");
+        state.setAttribute("count", 42);
+        state.addDestination("postback", new ViewDestination("/path.do", "/module", false));
+        state.setCurrentDestination("postback");
+        state.addHiddenSlot(new HiddenSlot("slot", "value", null));
+        state.setSkipValidation(true);
+
+        CompactViewStateCodec codec = new CompactViewStateCodec();
+        byte[] payload = codec.encode(Collections.singletonList(state));
+        Assert.assertTrue(codec.accepts(payload));
+        Assert.assertFalse(new JavaSerializationViewStateCodec().accepts(payload));
+
+        IViewState other = codec.decode(payload).get(0);
+        Assert.assertEquals("id", other.getId());
+        Assert.assertEquals("tabular", other.getLayout());
+        Assert.assertEquals(42, other.getAttribute("count"));
+        Assert.assertEquals("/module", other.getCurrentDestination().getModule());
+        Assert.assertEquals(Collections.singletonList("value"), other.getHiddenSlots().get(0).getValues());
+        Assert.assertTrue(other.skipValidation());
+        Assert.assertTrue(other.isValid());
+    }
+
+    @Test
+    public void javaSerializedPayloadsAreRecognized() throws IOException {
+        byte[] payload = new JavaSerializationViewStateCodec().encode(Collections.singletonList(viewState));
+        Assert.assertTrue(new JavaSerializationViewStateCodec().accepts(payload));
+        Assert.assertFalse(new CompactViewStateCodec().accepts(payload));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void rejectsInvalidViewState() throws ClassNotFoundException, IOException {
         ViewState.decodeFromBase64(serialized.substring(0, serialized.indexOf("_")));
@@ -62,6 +96,50 @@ public class ViewStateTest {
         ViewState.decodeFromBase64(serializedPart + "_" + signed);
     }
 
+    @Test
+    public void storedViewStatesAreReferredByToken() throws IOException, ClassNotFoundException {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(10, 60000);
+        HttpServletRequest request = InMemoryViewStateStoreTest.requestWithSession(new HashMap<String, Object>(), () -> {
+        });
+        String token = ViewState.encodeToBase64(Collections.singletonList(viewState), request, store);
+
+        Assert.assertTrue(token.startsWith("~"));
+        Assert.assertEquals("layout", ViewState.decodeFromBase64(token, request, store).get(0).getLayout());
+    }
+
+    @Test(expected = EditRequest.ViewStateExpiredException.class)
+    public void evictedViewStatesHaveExpired() throws IOException, ClassNotFoundException {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(1, 60000);
+        HttpServletRequest request = InMemoryViewStateStoreTest.requestWithSession(new HashMap<String, Object>(), () -> {
+        });
+        String token = ViewState.encodeToBase64(Collections.singletonList(viewState), request, store);
+        ViewState.encodeToBase64(Collections.singletonList(new ViewState()), request, store);
+
+        ViewState.decodeFromBase64(token, request, store);
+    }
+
+    @Test(expected = EditRequest.ViewStateExpiredException.class)
+    public void tokensFromAnotherSessionHaveExpired() throws IOException, ClassNotFoundException {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(10, 60000);
+        String token = ViewState.encodeToBase64(Collections.singletonList(viewState),
+                InMemoryViewStateStoreTest.requestWithSession(new HashMap<String, Object>(), () -> {
+                }), store);
+
+        ViewState.decodeFromBase64(token, InMemoryViewStateStoreTest.requestWithSession(new HashMap<String, Object>(), () -> {
+        }), store);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTamperedToken() throws IOException, ClassNotFoundException {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(10, 60000);
+        HttpServletRequest request = InMemoryViewStateStoreTest.requestWithSession(new HashMap<String, Object>(), () -> {
+        });
+        String token = ViewState.encodeToBase64(Collections.singletonList(viewState), request, store);
+        char changed = token.charAt(1) == 'A' ? 'B' : 'A';
+
+        ViewState.decodeFromBase64("~" + changed + token.substring(2), request, store);
+    }
+
     private byte[] sign(String serializedPart) throws InvalidKeyException, NoSuchAlgorithmException {
         Mac mac = Mac.getInstance("HmacSHA256");
         mac.init(new SecretKeySpec(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
@@ -0,0 +1,213 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.tags;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.servlet.jsp.PageContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTable;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+
+/**
+ * Checks that drawing components with a {@link HtmlWriter} gives the same output as writing the tree of tags returned by
+ * {@link HtmlComponent#getOwnTag(PageContext)}.
+ */
+@RunWith(JUnit4.class)
+public class HtmlWriterTest {
+
+    @Test
+    public void simpleTable() throws IOException {
+        HtmlTable table = table(3);
+        table.setCaption("caption");
+        table.setSummary("summary");
+        table.createHeader().createRow().createCell("header");
+        assertSameOutput(table);
+    }
+
+    @Test
+    public void emptyTable() throws IOException {
+        assertSameOutput(new HtmlTable());
+    }
+
+    @Test
+    public void nestedTables() throws IOException {
+        HtmlTable table = table(2);
+        HtmlTableCell cell = table.createRow().createCell();
+        HtmlTable inner = table(2);
+        inner.createRow().createCell().setBody(table(1));
+        cell.setBody(inner);
+        assertSameOutput(table);
+    }
+
+    @Test
+    public void invisibleComponents() throws IOException {
+        HtmlTable table = table(3);
+        table.getRows().get(0).setVisible(false);
+        table.getRows().get(1).getCells().get(0).setVisible(false);
+        HtmlTableCell cell = table.getRows().get(2).createCell();
+        HtmlTable inner = table(2);
+        inner.setVisible(false);
+        cell.setBody(inner);
+        assertSameOutput(table);
+
+        HtmlTable invisible = table(2);
+        invisible.setVisible(false);
+        assertSameOutput(invisible);
+    }
+
+    @Test
+    public void componentsWithoutIndentation() throws IOException {
+        HtmlTable table = table(3);
+        table.getRows().get(1).setIndented(false);
+        table.getRows().get(2).getCells().get(0).setBody(table(2));
+        assertSameOutput(table);
+
+        HtmlTable notIndented = table(2);
+        notIndented.setIndented(false);
+        assertSameOutput(notIndented);
+    }
+
+    @Test
+    public void subclassesOverridingOwnTagAreKept() throws IOException {
+        HtmlTable table = table(2);
+        HtmlTableRow row = new CommentedRow();
+        row.createCell("commented");
+        table.getRows().add(row);
+        table.createRow().createCell().setBody(new CommentedTable());
+        assertSameOutput(table);
+        Assert.assertTrue(draw(table, true).contains("<!-- row -->"));
+
+        assertSameOutput(new CommentedTable());
+    }
+
+    @Test
+    public void streamedTagsAreWrittenLikeTrees() throws IOException {
+        HtmlTag tag = new HtmlTag("div");
+        tag.setPreprendedComment("<!-- div -->");
+        tag.setAttribute("id", "x");
+        HtmlTag child = new HtmlTag("p", "text");
+        child.setPreprendedComment("<!-- p -->");
+        tag.addChild(child);
+        HtmlTag invisible = new HtmlTag("span", "hidden");
+        invisible.setVisible(false);
+        invisible.addChild(new HtmlTag("b"));
+        tag.addChild(invisible);
+        HtmlTag notIndented = new HtmlTag("ul");
+        notIndented.setIndented(false);
+        notIndented.addChild(new HtmlTag("li", "item"));
+        tag.addChild(notIndented);
+        tag.addChild(new HtmlTag(null, "plain"));
+
+        for (boolean indentation : new boolean[] { true, false }) {
+            StringWriter expected = new StringWriter();
+            copy(tag).writeTag(expected, indentation ? "" : HtmlTag.NO_INDENT);
+
+            StringWriter streamed = new StringWriter();
+            HtmlWriter writer = new HtmlWriter(streamed, indentation);
+            stream(writer, copy(tag));
+            writer.flush();
+
+            Assert.assertEquals(expected.toString(), streamed.toString());
+        }
+    }
+
+    private static HtmlTable table(int rows) {
+        HtmlTable table = new HtmlTable();
+        table.setClasses("list");
+        for (int i = 0; i < rows; i++) {
+            HtmlTableRow row = table.createRow();
+            row.createCell("cell " + i);
+            row.createCell().setBody(new HtmlText("<b>" + i + "</b>", false));
+        }
+        return table;
+    }
+
+    private static void assertSameOutput(HtmlComponent component) throws IOException {
+        for (boolean indentation : new boolean[] { true, false }) {
+            StringWriter expected = new StringWriter();
+            component.getOwnTag(null).writeTag(expected, indentation ? "" : HtmlTag.NO_INDENT);
+
+            Assert.assertEquals(expected.toString(), draw(component, indentation));
+        }
+    }
+
+    private static String draw(HtmlComponent component, boolean indentation) throws IOException {
+        StringWriter drawn = new StringWriter();
+        HtmlWriter writer = new HtmlWriter(drawn, indentation);
+        component.draw(writer, null);
+        writer.flush();
+        return drawn.toString();
+    }
+
+    private static void stream(HtmlWriter writer, HtmlTag tag) throws IOException {
+        writer.startTag(tag);
+        for (HtmlTag child : tag.getChildren()) {
+            if (child.getChildren().isEmpty()) {
+                writer.writeTag(child);
+            } else {
+                stream(writer, child);
+            }
+        }
+        writer.endTag();
+    }
+
+    private static HtmlTag copy(HtmlTag tag) {
+        HtmlTag copy = new HtmlTag(tag.getName(), tag.getText());
+        copy.setPreprendedComment(tag.getPreprendedComment());
+        copy.setVisible(tag.isVisible());
+        copy.setIndented(tag.isIndented());
+        copy.copyAttributes(tag);
+        for (HtmlTag child : tag.getChildren()) {
+            copy.addChild(copy(child));
+        }
+        return copy;
+    }
+
+    private static class CommentedRow extends HtmlTableRow {
+        @Override
+        public HtmlTag getOwnTag(PageContext context) {
+            HtmlTag tag = super.getOwnTag(context);
+            tag.setPreprendedComment("<!-- row -->");
+            return tag;
+        }
+    }
+
+    private static class CommentedTable extends HtmlTable {
+        public CommentedTable() {
+            createRow().createCell("commented");
+        }
+
+        @Override
+        public HtmlTag getOwnTag(PageContext context) {
+            HtmlTag tag = super.getOwnTag(context);
+            tag.setPreprendedComment("<!-- table -->");
+            return tag;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.model;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MetaObjectCollectionTest {
+
+    @Test
+    public void objectsAreMatchedInTheGivenOrder() {
+        MetaObject a = new SimpleMetaObject("a");
+        MetaObject b = new SimpleMetaObject("b");
+        MetaObjectCollection collection = collection(a, b);
+
+        Assert.assertEquals(Arrays.asList(b, a), collection.getMetaObjectsFor(Arrays.asList("b", "c", null, "a")));
+    }
+
+    @Test
+    public void theFirstMetaObjectWrappingAnEqualObjectWins() {
+        String first = new String("a");
+        String second = new String("a");
+        MetaObject firstMetaObject = new SimpleMetaObject(first);
+        MetaObjectCollection collection = collection(firstMetaObject, new SimpleMetaObject(second));
+
+        Assert.assertEquals(Arrays.asList(firstMetaObject), collection.getMetaObjectsFor(Arrays.asList(second)));
+    }
+
+    @Test
+    public void objectsWithoutHashCodeAreFoundByEquals() {
+        MetaObject metaObject = new SimpleMetaObject(new Bean("a"));
+        MetaObjectCollection collection = collection(new SimpleMetaObject(new Bean("b")), metaObject);
+
+        Assert.assertEquals(Arrays.asList(metaObject), collection.getMetaObjectsFor(Arrays.asList(new Bean("a"))));
+    }
+
+    private static MetaObjectCollection collection(MetaObject... metaObjects) {
+        MetaObjectCollection collection = new MetaObjectCollection();
+        for (MetaObject metaObject : metaObjects) {
+            collection.add(metaObject);
+        }
+        return collection;
+    }
+
+    private static final class Bean {
+        private final String name;
+
+        private Bean(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Bean && ((Bean) other).name.equals(name);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.schemas;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SchemaTest {
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void slotDescriptionsCannotBeChangedBehindTheSchema() {
+        Schema schema = new Schema(String.class);
+        schema.getSlotDescriptions().add(new SchemaSlotDescription("bytes"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void specialSettersCannotBeChangedBehindTheSchema() {
+        Schema schema = new Schema(String.class);
+        schema.addSpecialSetter(new Signature("setBytes"));
+        schema.getSpecialSetters().clear();
+    }
+
+    @Test
+    public void everyChangeIsCounted() {
+        Schema schema = new Schema(String.class);
+        SchemaSlotDescription slot = new SchemaSlotDescription("bytes");
+
+        int modifications = schema.getModifications();
+        schema.addSlotDescription(slot);
+        Assert.assertNotEquals(modifications, modifications = schema.getModifications());
+        schema.addSpecialSetter(new Signature("setBytes"));
+        Assert.assertNotEquals(modifications, modifications = schema.getModifications());
+        schema.clearSpecialSetters();
+        Assert.assertNotEquals(modifications, modifications = schema.getModifications());
+        schema.setConstructor(new Signature("String"));
+        Assert.assertNotEquals(modifications, modifications = schema.getModifications());
+        schema.setType(Object.class);
+        Assert.assertNotEquals(modifications, modifications = schema.getModifications());
+        schema.removeSlotDescription(slot);
+        Assert.assertNotEquals(modifications, schema.getModifications());
+        Assert.assertTrue(schema.getSlotDescriptions().isEmpty());
+    }
+}
@@ -0,0 +1,485 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.taglib;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELContext;
+import javax.servlet.Servlet;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
+
+import org.fenixedu.commons.i18n.I18N;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTemplate;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
+import pt.ist.fenixWebFramework.renderers.utils.FragmentCache;
+import pt.ist.fenixframework.DomainObject;
+
+@RunWith(JUnit4.class)
+public class ViewObjectTagTest {
+
+    private static int objects;
+
+    private FakePageContext page;
+    private DomainObject object;
+    private int renderings;
+
+    @Before
+    public void setup() {
+        this.page = new FakePageContext();
+        this.object = domainObject("view-object-" + objects++);
+        this.renderings = 0;
+    }
+
+    @Test
+    public void missRendersAndKeepsTheFragment() throws Exception {
+        Assert.assertEquals("<p>1</p>", draw(tag().renderObject(null, object)));
+        Assert.assertEquals(1, renderings);
+        Assert.assertEquals("<p>1</p>", FragmentCache.get(key(object)));
+    }
+
+    @Test
+    public void hitDoesNotRenderAgain() throws Exception {
+        draw(tag().renderObject(null, object));
+        Assert.assertEquals("<p>1</p>", draw(tag().renderObject(null, object)));
+        Assert.assertEquals(1, renderings);
+    }
+
+    @Test
+    public void changedObjectsAreRenderedAgain() throws Exception {
+        draw(tag().renderObject(null, object));
+        FragmentCache.invalidate(object.getExternalId());
+
+        Assert.assertEquals("<p>2</p>", draw(tag().renderObject(null, object)));
+        Assert.assertEquals(2, renderings);
+        Assert.assertEquals("<p>2</p>", draw(tag().renderObject(null, object)));
+    }
+
+    @Test
+    public void uncachedTagsAlwaysRender() throws Exception {
+        ViewObjectTag tag = tag();
+        tag.setCached(false);
+        draw(tag.renderObject(null, object));
+        draw(tag.renderObject(null, object));
+        Assert.assertEquals(2, renderings);
+        Assert.assertNull(FragmentCache.get(key(object)));
+    }
+
+    @Test
+    public void includedTemplatesArePartOfTheFragment() throws Exception {
+        ViewObjectTag tag = new TestViewObjectTag() {
+            @Override
+            protected HtmlComponent renderObjectUncached(PresentationContext context, Object object) {
+                renderings++;
+                HtmlBlockContainer container = new HtmlBlockContainer();
+                container.setIndented(false);
+                container.addChild(new HtmlText("before", false));
+                container.addChild(new HtmlTemplate("/template.jsp", object));
+                container.addChild(new HtmlText("after", false));
+                return container;
+            }
+        };
+        tag.setPageContext(page);
+        tag.setCached(true);
+
+        HtmlComponent component = tag.renderObject(null, object);
+        Assert.assertEquals("", page.output.toString());
+
+        String expected = "<div>before[/template.jsp]after</div>";
+        Assert.assertEquals(expected, FragmentCache.get(key(object)));
+        Assert.assertEquals(expected, draw(component));
+        Assert.assertEquals(expected, draw(tag.renderObject(null, object)));
+        Assert.assertEquals(1, renderings);
+    }
+
+    private ViewObjectTag tag() {
+        ViewObjectTag tag = new TestViewObjectTag();
+        tag.setPageContext(page);
+        tag.setCached(true);
+        return tag;
+    }
+
+    private FragmentCache.Key key(DomainObject object) {
+        return FragmentCache.key(object, object.getClass(), null, null, new ViewObjectTag().getRenderProperties(),
+                I18N.getLocale());
+    }
+
+    private static String draw(HtmlComponent component) throws IOException {
+        StringWriter writer = new StringWriter();
+        component.draw(writer);
+        return writer.toString();
+    }
+
+    private class TestViewObjectTag extends ViewObjectTag {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected HtmlComponent renderObjectUncached(PresentationContext context, Object object) throws JspException {
+            return new HtmlText("<p>" + ++renderings + "</p>", false, false);
+        }
+    }
+
+    private static DomainObject domainObject(String externalId) {
+        return (DomainObject) Proxy.newProxyInstance(ViewObjectTagTest.class.getClassLoader(),
+                new Class<?>[] { DomainObject.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getExternalId":
+                        return externalId;
+                    case "hashCode":
+                        return externalId.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    /*
+     * Includes write the name of the template to the current output.
+     */
+    private static class FakePageContext extends PageContext {
+
+        private final StringWriter output = new StringWriter();
+        private final Deque<JspWriter> outs = new ArrayDeque<JspWriter>();
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        FakePageContext() {
+            outs.push(new FakeJspWriter(output));
+        }
+
+        @Override
+        public JspWriter getOut() {
+            return outs.peek();
+        }
+
+        @Override
+        public JspWriter pushBody(Writer writer) {
+            outs.push(new FakeJspWriter(writer));
+            return outs.peek();
+        }
+
+        @Override
+        public JspWriter popBody() {
+            outs.pop();
+            return outs.peek();
+        }
+
+        @Override
+        public void include(String relativeUrlPath) throws IOException {
+            include(relativeUrlPath, true);
+        }
+
+        @Override
+        public void include(String relativeUrlPath, boolean flush) throws IOException {
+            getOut().write("[" + relativeUrlPath + "]");
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value, int scope) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Object getAttribute(String name, int scope) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Object findAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public void removeAttribute(String name, int scope) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public int getAttributesScope(String name) {
+            return attributes.containsKey(name) ? REQUEST_SCOPE : 0;
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNamesInScope(int scope) {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public javax.servlet.jsp.el.ExpressionEvaluator getExpressionEvaluator() {
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public javax.servlet.jsp.el.VariableResolver getVariableResolver() {
+            return null;
+        }
+
+        @Override
+        public ELContext getELContext() {
+            return null;
+        }
+
+        @Override
+        public void initialize(Servlet servlet, ServletRequest request, ServletResponse response, String errorPageURL,
+                boolean needsSession, int bufferSize, boolean autoFlush) {
+        }
+
+        @Override
+        public void release() {
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return null;
+        }
+
+        @Override
+        public Object getPage() {
+            return null;
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return null;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return null;
+        }
+
+        @Override
+        public Exception getException() {
+            return null;
+        }
+
+        @Override
+        public ServletConfig getServletConfig() {
+            return null;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return null;
+        }
+
+        @Override
+        public void forward(String relativeUrlPath) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void handlePageException(Exception e) {
+            throw new UnsupportedOperationException(e);
+        }
+
+        @Override
+        public void handlePageException(Throwable t) {
+            throw new UnsupportedOperationException(t);
+        }
+    }
+
+    private static class FakeJspWriter extends JspWriter {
+
+        private final Writer writer;
+
+        FakeJspWriter(Writer writer) {
+            super(NO_BUFFER, true);
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            writer.write(cbuf, off, len);
+        }
+
+        @Override
+        public void newLine() throws IOException {
+            write('\n');
+        }
+
+        @Override
+        public void print(boolean b) throws IOException {
+            write(String.valueOf(b));
+        }
+
+        @Override
+        public void print(char c) throws IOException {
+            write(c);
+        }
+
+        @Override
+        public void print(int i) throws IOException {
+            write(String.valueOf(i));
+        }
+
+        @Override
+        public void print(long l) throws IOException {
+            write(String.valueOf(l));
+        }
+
+        @Override
+        public void print(float f) throws IOException {
+            write(String.valueOf(f));
+        }
+
+        @Override
+        public void print(double d) throws IOException {
+            write(String.valueOf(d));
+        }
+
+        @Override
+        public void print(char[] s) throws IOException {
+            write(s);
+        }
+
+        @Override
+        public void print(String s) throws IOException {
+            write(String.valueOf(s));
+        }
+
+        @Override
+        public void print(Object obj) throws IOException {
+            write(String.valueOf(obj));
+        }
+
+        @Override
+        public void println() throws IOException {
+            newLine();
+        }
+
+        @Override
+        public void println(boolean x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(char x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(int x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(long x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(float x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(double x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(char[] x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(String x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void println(Object x) throws IOException {
+            print(x);
+            newLine();
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void clearBuffer() {
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int getRemaining() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixframework.DomainObject;
+
+@RunWith(JUnit4.class)
+public class FragmentCacheTest {
+
+    @Test
+    public void keepsFragmentsByKey() {
+        DomainObject object = domainObject("fragment-hit");
+        FragmentCache.Key key = key(object, "short");
+        Assert.assertNull(FragmentCache.get(key));
+
+        FragmentCache.put(key, "<p>x</p>");
+        Assert.assertEquals("<p>x</p>", FragmentCache.get(key(object, "short")));
+        Assert.assertNull(FragmentCache.get(key(object, "long")));
+        Assert.assertNull(FragmentCache.get(key(domainObject("fragment-other"), "short")));
+    }
+
+    @Test
+    public void keysDependOnProperties() {
+        DomainObject object = domainObject("fragment-properties");
+        Properties properties = new Properties();
+        properties.setProperty("classes", "a");
+        FragmentCache.put(FragmentCache.key(object, Object.class, null, "short", properties, Locale.ENGLISH), "a");
+
+        Assert.assertEquals("a", FragmentCache.get(FragmentCache.key(object, Object.class, null, "short",
+                (Properties) properties.clone(), Locale.ENGLISH)));
+        properties.setProperty("classes", "b");
+        Assert.assertNull(FragmentCache.get(FragmentCache.key(object, Object.class, null, "short", properties,
+                Locale.ENGLISH)));
+        Assert.assertNull(FragmentCache.get(key(object, "short")));
+    }
+
+    @Test
+    public void invalidationDiscardsFragmentsOfTheObject() {
+        DomainObject object = domainObject("fragment-invalidated");
+        DomainObject other = domainObject("fragment-kept");
+        FragmentCache.put(key(object, "short"), "old");
+        FragmentCache.put(key(other, "short"), "other");
+
+        FragmentCache.invalidate(object.getExternalId());
+
+        Assert.assertNull(FragmentCache.get(key(object, "short")));
+        Assert.assertEquals("other", FragmentCache.get(key(other, "short")));
+
+        FragmentCache.put(key(object, "short"), "new");
+        Assert.assertEquals("new", FragmentCache.get(key(object, "short")));
+    }
+
+    @Test
+    public void fragmentsRenderedBeforeAnInvalidationAreNotKept() {
+        DomainObject object = domainObject("fragment-concurrent");
+        FragmentCache.Key key = key(object, "short");
+
+        // the object changes while the fragment is being rendered
+        FragmentCache.invalidate(object.getExternalId());
+        FragmentCache.put(key, "stale");
+
+        Assert.assertNull(FragmentCache.get(key));
+        Assert.assertNull(FragmentCache.get(key(object, "short")));
+    }
+
+    private static FragmentCache.Key key(DomainObject object, String layout) {
+        return FragmentCache.key(object, Object.class, null, layout, null, Locale.ENGLISH);
+    }
+
+    private static DomainObject domainObject(String externalId) {
+        return (DomainObject) Proxy.newProxyInstance(FragmentCacheTest.class.getClassLoader(),
+                new Class<?>[] { DomainObject.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getExternalId":
+                        return externalId;
+                    case "hashCode":
+                        return externalId.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
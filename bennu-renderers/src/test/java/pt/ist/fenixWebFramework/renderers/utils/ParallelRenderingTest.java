@@ -0,0 +1,231 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.CollectionRenderer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTable;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.contexts.OutputContext;
+import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
+import pt.ist.fenixWebFramework.renderers.layouts.TabularLayout;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectCollection;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+
+@RunWith(JUnit4.class)
+public class ParallelRenderingTest {
+
+    private static final int ROWS = 200;
+
+    @After
+    public void reset() {
+        ParallelRendering.configure(0, 0, Runnable::run, () -> false);
+    }
+
+    @Test
+    public void rowsKeepTheirOrderAndFailedRowsAreRemoved() {
+        ParallelRendering.configure(2, 4, Runnable::run, () -> false);
+
+        StubLayout layout = new StubLayout();
+        HtmlTable table = (HtmlTable) layout.createComponent(null, null);
+
+        Assert.assertEquals(expectedRows(), texts(table));
+        Assert.assertTrue(layout.threads.size() > 1);
+    }
+
+    @Test
+    public void workersRunInTheGivenTransaction() {
+        Set<String> transactions = ConcurrentHashMap.newKeySet();
+        ParallelRendering.configure(2, 4, runnable -> {
+            transactions.add(Thread.currentThread().getName());
+            runnable.run();
+        }, () -> false);
+
+        new StubLayout().createComponent(null, null);
+
+        Assert.assertFalse(transactions.isEmpty());
+        Assert.assertFalse(transactions.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void pendingWritesRenderSequentially() {
+        ParallelRendering.configure(2, 4, Runnable::run, () -> true);
+
+        StubLayout layout = new StubLayout();
+        HtmlTable table = (HtmlTable) layout.createComponent(null, null);
+
+        Assert.assertEquals(expectedRows(), texts(table));
+        Assert.assertEquals(1, layout.threads.size());
+        Assert.assertTrue(layout.threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void disabledRendersSequentially() {
+        StubLayout layout = new StubLayout();
+        HtmlTable table = (HtmlTable) layout.createComponent(null, null);
+
+        Assert.assertEquals(expectedRows(), texts(table));
+        Assert.assertEquals(1, layout.threads.size());
+    }
+
+    @Test
+    public void collectionRowsGetTheirOwnContextAndTheRequest() {
+        ParallelRendering.configure(2, 4, Runnable::run, () -> false);
+
+        List<String> names = new ArrayList<String>();
+        MetaObjectCollection collection = new MetaObjectCollection();
+        for (int i = 0; i < ROWS; i++) {
+            String name = "person " + i;
+            names.add(name);
+            SimpleMetaObject metaObject = new SimpleMetaObject(name);
+            metaObject.addSlot(new MetaSlot(metaObject, "bytes"));
+            collection.add(metaObject);
+        }
+
+        OutputContext context = new OutputContext();
+        context.setMetaObject(collection);
+        RecordingCollectionRenderer renderer = new RecordingCollectionRenderer();
+        renderer.setContext(context);
+        renderer.setDisplayHeaders(false);
+
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        RenderersRequestProcessorImpl.currentRequest.set(request);
+        try {
+            HtmlTable table = (HtmlTable) renderer.render(names, List.class);
+
+            List<String> rows = new ArrayList<String>();
+            for (HtmlTableRow row : table.getRows()) {
+                rows.add(((HtmlText) row.getCells().get(0).getBody()).getText());
+            }
+            Assert.assertEquals(names, rows);
+        } finally {
+            RenderersRequestProcessorImpl.currentRequest.remove();
+        }
+
+        Assert.assertTrue(renderer.threads.size() > 1);
+        Assert.assertEquals(1, renderer.requests.size());
+        Assert.assertTrue(renderer.requests.contains(request));
+        Assert.assertEquals(ROWS, renderer.contexts.size());
+        Assert.assertFalse(renderer.contexts.contains(context));
+        Assert.assertSame(collection, context.getMetaObject());
+    }
+
+    private static boolean fails(int rowIndex) {
+        return rowIndex % 7 == 3;
+    }
+
+    private static List<String> expectedRows() {
+        List<String> rows = new ArrayList<String>();
+        for (int rowIndex = 0; rowIndex < ROWS; rowIndex++) {
+            if (!fails(rowIndex)) {
+                rows.add(rowIndex + ":0 " + rowIndex + ":1");
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> texts(HtmlTable table) {
+        List<String> rows = new ArrayList<String>();
+        for (HtmlTableRow row : table.getRows()) {
+            Assert.assertEquals(2, row.getCells().size());
+            rows.add(((HtmlText) row.getCells().get(0).getBody()).getText() + " "
+                    + ((HtmlText) row.getCells().get(1).getBody()).getText());
+        }
+        return rows;
+    }
+
+    /*
+     * Checks that every cell is rendered with a context presenting the object of its row.
+     */
+    private static class RecordingCollectionRenderer extends CollectionRenderer {
+
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+        private final Set<Object> requests = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<PresentationContext> contexts = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        protected HtmlComponent renderSlot(MetaSlot slot) {
+            PresentationContext context = getContext();
+            Assert.assertSame(slot.getMetaObject(), context.getMetaObject());
+
+            threads.add(Thread.currentThread().getName());
+            synchronized (this) {
+                requests.add(RenderersRequestProcessorImpl.getCurrentRequest());
+                contexts.add(context);
+            }
+            return new HtmlText((String) context.getMetaObject().getObject());
+        }
+    }
+
+    private static class StubLayout extends TabularLayout {
+
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        protected boolean isParallelRowRendering(int rowNumber) {
+            return ParallelRendering.isParallel(rowNumber);
+        }
+
+        @Override
+        protected HtmlComponent getHeaderComponent(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        protected int getNumberOfColumns() {
+            return 2;
+        }
+
+        @Override
+        protected int getNumberOfRows() {
+            return ROWS;
+        }
+
+        @Override
+        protected HtmlComponent getComponent(int rowIndex, int columnIndex) {
+            threads.add(Thread.currentThread().getName());
+            if (columnIndex == 1 && fails(rowIndex)) {
+                throw new IllegalStateException("row " + rowIndex);
+            }
+            return new HtmlText(rowIndex + ":" + columnIndex);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SortCriteriaTest {
+
+    private static final Person ANA = new Person("ana", 30, 1);
+    private static final Person BRUNO = new Person("Bruno", 25, 2);
+    private static final Person CARLA = new Person("carla", 30, 3);
+    private static final Person NOBODY = new Person(null, null, 4);
+    private static final Person ANA_AGAIN = new Person("ana", 20, 5);
+
+    private static final List<Person> PEOPLE = Arrays.asList(CARLA, NOBODY, ANA, BRUNO, ANA_AGAIN);
+
+    @Test
+    public void sortsAscending() {
+        Assert.assertEquals(Arrays.asList(ANA, ANA_AGAIN, BRUNO, CARLA, NOBODY), sort("name"));
+        Assert.assertEquals(Arrays.asList(ANA, ANA_AGAIN, BRUNO, CARLA, NOBODY), sort("name=ascending"));
+    }
+
+    @Test
+    public void sortsDescending() {
+        // as with the previous comparator, descending order also reverses the position of null values
+        Assert.assertEquals(Arrays.asList(NOBODY, CARLA, BRUNO, ANA, ANA_AGAIN), sort("name=descending"));
+    }
+
+    @Test
+    public void nullsAreLastInAscendingOrder() {
+        // ana and carla have the same age and keep their original order
+        Assert.assertEquals(Arrays.asList(ANA_AGAIN, BRUNO, CARLA, ANA, NOBODY), sort("age"));
+    }
+
+    @Test
+    public void sortsByMultipleCriteria() {
+        Assert.assertEquals(Arrays.asList(ANA, ANA_AGAIN, BRUNO, CARLA, NOBODY), sort("name, age=desc"));
+        Assert.assertEquals(Arrays.asList(ANA_AGAIN, ANA, BRUNO, CARLA, NOBODY), sort("name,age"));
+        Assert.assertEquals(Arrays.asList(ANA_AGAIN, BRUNO, CARLA, ANA, NOBODY), sort("age,name=desc"));
+    }
+
+    @Test
+    public void sortIsStable() {
+        List<Person> people = new ArrayList<Person>();
+        for (int i = 0; i < 100; i++) {
+            people.add(new Person(i % 2 == 0 ? "even" : "odd", null, i));
+        }
+
+        List<Person> sorted = SortCriteria.parse("name").sort(people);
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(2 * i, sorted.get(i).getRank().getValue());
+            Assert.assertEquals(2 * i + 1, sorted.get(50 + i).getRank().getValue());
+        }
+    }
+
+    @Test
+    public void selectFirstMatchesTheSortedPrefix() {
+        for (String criteria : new String[] { "name", "name=desc", "age", "age=desc,name", "name,age=desc" }) {
+            List<Person> sorted = sort(criteria);
+            for (int count = 0; count <= PEOPLE.size() + 1; count++) {
+                Assert.assertEquals(criteria + " " + count, sorted.subList(0, Math.min(count, sorted.size())),
+                        SortCriteria.parse(criteria).selectFirst(PEOPLE, count));
+            }
+        }
+    }
+
+    @Test
+    public void selectFirstIsStable() {
+        List<Person> people = new ArrayList<Person>();
+        for (int i = 0; i < 100; i++) {
+            people.add(new Person("same", null, i));
+        }
+        Assert.assertEquals(people.subList(0, 10), SortCriteria.parse("name").selectFirst(people, 10));
+    }
+
+    @Test
+    public void largeCollectionsOfPlainValuesAreSorted() {
+        Random random = new Random(42);
+        List<Person> people = new ArrayList<Person>();
+        for (int i = 0; i < 20000; i++) {
+            people.add(new Person("name" + random.nextInt(5000), random.nextInt(100), i));
+        }
+
+        List<Person> expected = new ArrayList<Person>(people);
+        Collections.sort(expected, Comparator.comparing(Person::getAge).reversed().thenComparing(Person::getName));
+        Assert.assertEquals(expected, SortCriteria.parse("age=desc,name").sort(people));
+    }
+
+    @Test
+    public void largeCollectionsOfOtherValuesAreComparedInTheCallingThread() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Person> people = new ArrayList<Person>();
+        for (int i = 0; i < 20000; i++) {
+            people.add(new Person(null, null, (i * 7919) % 20000, threads));
+        }
+
+        List<Person> sorted = SortCriteria.parse("rank").sort(people);
+        for (int i = 0; i < sorted.size(); i++) {
+            Assert.assertEquals(i, sorted.get(i).getRank().getValue());
+        }
+        Assert.assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    private static List<Person> sort(String criteria) {
+        return SortCriteria.parse(criteria).sort(PEOPLE);
+    }
+
+    public static class Person {
+        private final String name;
+        private final Integer age;
+        private final Rank rank;
+
+        Person(String name, Integer age, int rank) {
+            this(name, age, rank, null);
+        }
+
+        Person(String name, Integer age, int rank, Set<Thread> threads) {
+            this.name = name;
+            this.age = age;
+            this.rank = new Rank(rank, threads);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public Rank getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return name + "/" + age + "/" + rank.getValue();
+        }
+    }
+
+    public static class Rank implements Comparable<Rank> {
+        private final int value;
+        private final Set<Thread> threads;
+
+        Rank(int value, Set<Thread> threads) {
+            this.value = value;
+            this.threads = threads;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            if (threads != null) {
+                threads.add(Thread.currentThread());
+            }
+            return Integer.compare(value, other.value);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.ajax;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.StreamingAutoCompleteProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+@RunWith(JUnit4.class)
+public class AutoCompleteFieldTest {
+
+    private static final List<String> NAMES = Arrays.asList("ana", "anabela", "andre", "antonio", "bruno", "carla",
+            "carlos", "diana", "duarte", "eva");
+
+    private int attributeChanges;
+    private HttpServletRequest request;
+    private NameProvider provider;
+
+    @Before
+    public void setup() {
+        this.attributeChanges = 0;
+        this.request = requestWithSession(new HashMap<String, Object>());
+        this.provider = new NameProvider();
+    }
+
+    @Test
+    public void fieldsOfASessionAreBounded() {
+        int maxFields = RenderersConfigurationManager.getConfiguration().autoCompleteCacheMaxFields();
+        AutoCompleteField first = AutoCompleteField.get(request, "first");
+        AutoCompleteField second = AutoCompleteField.get(request, "second");
+        for (int i = 0; i < maxFields - 2; i++) {
+            AutoCompleteField.get(request, "page " + i);
+        }
+        Assert.assertSame(first, AutoCompleteField.get(request, "first"));
+
+        AutoCompleteField.get(request, "last");
+        Assert.assertSame(first, AutoCompleteField.get(request, "first"));
+        Assert.assertNotSame(second, AutoCompleteField.get(request, "second"));
+    }
+
+    @Test
+    public void sessionAttributeIsSetAfterEveryChange() {
+        AutoCompleteField.get(request, "field");
+        int changes = attributeChanges;
+        Assert.assertTrue(changes > 0);
+        AutoCompleteField.get(request, "field");
+        Assert.assertEquals(changes + 1, attributeChanges);
+    }
+
+    @Test
+    public void requestsWithoutSessionAreNotCoalesced() {
+        Assert.assertNull(AutoCompleteField.get(requestWithSession(null), "field"));
+    }
+
+    @Test
+    public void searchesOnlyFetchTheRequestedPage() {
+        AutoCompleteField field = AutoCompleteField.get(request, "field");
+        Assert.assertEquals(Arrays.asList("ana", "anabela"), field.search(provider, null, "a", 2));
+        Assert.assertEquals(3, provider.fetched);
+    }
+
+    @Test
+    public void completeResultsAreNarrowed() {
+        AutoCompleteField field = AutoCompleteField.get(request, "field");
+        Assert.assertEquals(Arrays.asList("carla", "carlos"), field.search(provider, null, "car", 5));
+        Assert.assertEquals(Arrays.asList("carlos"), field.search(provider, null, "carlo", 5));
+        Assert.assertEquals(1, provider.searches);
+        Assert.assertEquals(1, provider.narrowings);
+
+        Assert.assertEquals(Arrays.asList("diana"), field.search(provider, null, "di", 5));
+        Assert.assertEquals(2, provider.searches);
+    }
+
+    @Test
+    public void incompleteResultsAreNotNarrowed() {
+        AutoCompleteField field = AutoCompleteField.get(request, "field");
+        Assert.assertEquals(Arrays.asList("ana", "anabela"), field.search(provider, null, "an", 2));
+        Assert.assertEquals(Arrays.asList("ana", "anabela"), field.search(provider, null, "ana", 2));
+        Assert.assertEquals(2, provider.searches);
+        Assert.assertEquals(0, provider.narrowings);
+    }
+
+    private static class NameProvider implements StreamingAutoCompleteProvider<String> {
+
+        private int searches;
+        private int narrowings;
+        private int fetched;
+
+        @Override
+        public Stream<String> streamSearchResults(Map<String, String> argsMap, String value, int maxCount) {
+            searches++;
+            return NAMES.stream().filter(name -> name.startsWith(value)).peek(name -> fetched++);
+        }
+
+        @Override
+        public Stream<String> narrowSearchResults(Map<String, String> argsMap, String value, String previousValue,
+                List<String> previousResults) {
+            if (!value.startsWith(previousValue)) {
+                return null;
+            }
+            narrowings++;
+            return new ArrayList<String>(previousResults).stream().filter(name -> name.startsWith(value));
+        }
+    }
+
+    private HttpServletRequest requestWithSession(Map<String, Object> attributes) {
+        HttpSession session = attributes == null ? null : (HttpSession) Proxy.newProxyInstance(
+                HttpSession.class.getClassLoader(), new Class<?>[] { HttpSession.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getAttribute":
+                        return attributes.get(args[0]);
+                    case "setAttribute":
+                        attributes.put((String) args[0], args[1]);
+                        attributeChanges++;
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getSession")) {
+                        return session;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
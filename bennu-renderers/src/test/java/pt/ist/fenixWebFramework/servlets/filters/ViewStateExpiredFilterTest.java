@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.state.EditRequest.ViewStateExpiredException;
+
+@RunWith(JUnit4.class)
+public class ViewStateExpiredFilterTest {
+
+    private final List<String> forwards = new ArrayList<String>();
+    private boolean committed;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Before
+    public void setup() {
+        this.forwards.clear();
+        this.committed = false;
+        this.request = (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getRequestDispatcher")) {
+                        return Proxy.newProxyInstance(RequestDispatcher.class.getClassLoader(),
+                                new Class<?>[] { RequestDispatcher.class }, (dispatcherProxy, forward, forwardArgs) -> {
+                                    forwards.add((String) args[0]);
+                                    return null;
+                                });
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        this.response = (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "isCommitted":
+                        return committed;
+                    case "resetBuffer":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void expiredViewStatesShowTheExpiredPage() throws Exception {
+        filter((request, response) -> {
+            throw new ViewStateExpiredException();
+        });
+        Assert.assertEquals(ViewStateExpiredFilter.EXPIRED_PAGE, forwards.get(0));
+    }
+
+    @Test
+    public void expiredViewStatesWrappedByServletsShowTheExpiredPage() throws Exception {
+        filter((request, response) -> {
+            throw new ServletException(new RuntimeException(new ViewStateExpiredException()));
+        });
+        Assert.assertEquals(ViewStateExpiredFilter.EXPIRED_PAGE, forwards.get(0));
+    }
+
+    @Test
+    public void otherFailuresAreRethrown() throws Exception {
+        ServletException failure = new ServletException(new IllegalArgumentException("Invalid ViewState provided"));
+        try {
+            filter((request, response) -> {
+                throw failure;
+            });
+            Assert.fail();
+        } catch (ServletException e) {
+            Assert.assertSame(failure, e);
+        }
+        Assert.assertTrue(forwards.isEmpty());
+    }
+
+    @Test(expected = ViewStateExpiredException.class)
+    public void committedResponsesAreNotForwarded() throws Exception {
+        committed = true;
+        filter((request, response) -> {
+            throw new ViewStateExpiredException();
+        });
+    }
+
+    private void filter(FilterChain chain) throws Exception {
+        new ViewStateExpiredFilter().doFilter(request, response, chain);
+    }
+
+}
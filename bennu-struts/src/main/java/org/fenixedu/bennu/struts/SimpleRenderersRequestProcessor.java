@@ -40,12 +40,14 @@ import org.fenixedu.commons.i18n.I18N;
 import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.components.Constants;
 import pt.ist.fenixWebFramework.renderers.components.state.ComponentLifeCycle;
+import pt.ist.fenixWebFramework.renderers.components.state.EditRequest.ViewStateExpiredException;
 import pt.ist.fenixWebFramework.renderers.components.state.EditRequest.ViewStateUserChangedException;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
 import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.servlets.filters.ViewStateExpiredFilter;
 
 /**
  * The standard renderers request processor. This processor is responsible for
@@ -115,6 +117,8 @@ public class SimpleRenderersRequestProcessor extends RequestProcessor {
             } catch (ViewStateUserChangedException e) {
                 response.sendRedirect(RenderersConfigurationManager.getConfiguration().tamperingRedirect());
                 return null;
+            } catch (ViewStateExpiredException e) {
+                return new ActionForward("expired", ViewStateExpiredFilter.EXPIRED_PAGE, false, "");
             } catch (Exception e) {
                 if (action instanceof ExceptionHandler) {
                     ExceptionHandler handler = (ExceptionHandler) action;
@@ -36,7 +36,7 @@ class StrutsSemanticURLHandler implements SemanticURLHandler {
     @Override
     public void handleRequest(MenuFunctionality functionality, HttpServletRequest request, HttpServletResponse response,
             FilterChain chain) throws IOException, ServletException {
-        ResponseWrapper responseWrapper = new ResponseWrapper(response);
+        ResponseWrapper responseWrapper = new ResponseWrapper(request, response);
         request.getRequestDispatcher(functionality.getItemKey()).forward(
                 RequestWrapperFilter.getFenixHttpServletRequestWrapper(request), responseWrapper);
         responseWrapper.writeRealResponse(request.getSession(false));